@@ -0,0 +1,123 @@
+package othello;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the batch kernels of {@link BatchMoveGenerator} with their scalar counterparts and with the same work done
+ * one {@link Board} at a time through getPlayableTiles and placeDisc. The batch is the corpus of
+ * {@link BenchmarkPositions} repeated to {@link #BATCH} positions, and every benchmark counts one operation per
+ * position. The Boards changed by placeDisc cannot be undone, so boardPlaceDisc restores a scratch Board to its
+ * corpus position with {@link Board#copyPosition(Board)} before every move, as part of the measured work; the batch
+ * benchmarks write their results to separate arrays and need no restore.
+ * @see BitBoardBenchmark
+ * @see BoardBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchMoveGeneratorBenchmark {
+
+    /**
+     * The number of positions in a batch.
+     */
+    static final int BATCH = 16 * BenchmarkPositions.COUNT;
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    private final long[] own = new long[BATCH];
+    private final long[] opponent = new long[BATCH];
+    private final int[] squares = new int[BATCH];
+    private final long[] moves = new long[BATCH];
+    private final long[] flips = new long[BATCH];
+    private final long[] nextOwn = new long[BATCH];
+    private final long[] nextOpponent = new long[BATCH];
+    private final BatchMoveGenerator generator = new BatchMoveGenerator(BATCH);
+    private Board[] boards;
+    private final Board[] scratch = new Board[BATCH];
+    private Coordinate[] coordinates;
+
+    @Setup(Level.Trial)
+    public void loadCorpus() {
+        BitBoard[] corpus = BenchmarkPositions.bitBoards(phase);
+        Board[] corpusBoards = BenchmarkPositions.boards(phase);
+        boards = new Board[BATCH];
+        coordinates = new Coordinate[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            BitBoard board = corpus[i % corpus.length];
+            own[i] = board.getOwn();
+            opponent[i] = board.getOpponent();
+            squares[i] = Long.numberOfTrailingZeros(board.getPlayableMask());
+            boards[i] = corpusBoards[i % corpus.length];
+            scratch[i] = new Board();
+            coordinates[i] = new Coordinate(squares[i] >>> 3, squares[i] & 7);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] batchGenerateMoves() {
+        BatchMoveGenerator.generateMoves(own, opponent, moves, BATCH);
+        return moves;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] scalarGenerateMoves() {
+        BatchMoveGenerator.generateMovesScalar(own, opponent, moves, BATCH);
+        return moves;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int boardGetPlayableTiles() {
+        int count = 0;
+        for (Board board : boards) {
+            ArrayList<Coordinate> playable = board.getPlayableTiles();
+            count += playable.size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] batchPlay() {
+        generator.play(own, opponent, squares, flips, nextOwn, nextOpponent, BATCH);
+        return nextOwn;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] scalarPlay() {
+        BatchMoveGenerator.playScalar(own, opponent, squares, flips, nextOwn, nextOpponent, BATCH);
+        return nextOwn;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Board[] boardPlaceDisc() {
+        for (int i = 0; i < BATCH; i++) {
+            scratch[i].copyPosition(boards[i]);
+            scratch[i].placeDisc(coordinates[i]);
+        }
+        return scratch;
+    }
+}
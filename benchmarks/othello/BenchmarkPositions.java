@@ -0,0 +1,107 @@
+package othello;
+
+import java.util.Random;
+
+/**
+ * BenchmarkPositions is the fixed corpus of positions the benchmarks run over. Positions are reached by playing
+ * random legal moves from the start position with a fixed seed per game phase, so every run and every machine sees
+ * the same positions. Each position is kept as the sequence of moves that reaches it, which lets a benchmark rebuild
+ * fresh Board objects as often as it needs to.<p></p>
+ * The phases are "opening" (4 to 12 Discs played), "midgame" (20 to 36) and "endgame" (44 to 54). Every position has
+ * at least one playable tile. No game in the corpus contains a pass, so a move sequence is a plain list of squares
+ * that replays the same way on a Board and on a BitBoard.
+ */
+final class BenchmarkPositions {
+
+    /**
+     * The number of positions in each phase.
+     */
+    static final int COUNT = 64;
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * @param phase "opening", "midgame" or "endgame"
+     * @return COUNT move sequences, each a list of bit indexes played from the start position
+     */
+    static int[][] moveSequences(String phase) {
+        switch (phase) {
+            case "opening":
+                return generate(4, 12, 0x0B3E41L);
+            case "midgame":
+                return generate(20, 36, 0x41D6A3EL);
+            case "endgame":
+                return generate(44, 54, 0xE4D6A3EL);
+            default:
+                throw new IllegalArgumentException("unknown phase " + phase);
+        }
+    }
+
+    /**
+     * @param phase "opening", "midgame" or "endgame"
+     * @return a fresh Board for every position of the phase
+     */
+    static Board[] boards(String phase) {
+        int[][] sequences = moveSequences(phase);
+        Board[] boards = new Board[sequences.length];
+        for (int i = 0; i < sequences.length; i++) {
+            boards[i] = toBoard(sequences[i]);
+        }
+        return boards;
+    }
+
+    /**
+     * @param phase "opening", "midgame" or "endgame"
+     * @return a fresh BitBoard for every position of the phase
+     */
+    static BitBoard[] bitBoards(String phase) {
+        int[][] sequences = moveSequences(phase);
+        BitBoard[] boards = new BitBoard[sequences.length];
+        for (int i = 0; i < sequences.length; i++) {
+            boards[i] = new BitBoard();
+            for (int square : sequences[i]) {
+                boards[i].makeMove(square);
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * @param sequence bit indexes played from the start position
+     * @return a Board with the moves played on it
+     */
+    static Board toBoard(int[] sequence) {
+        Board board = new Board();
+        for (int square : sequence) {
+            board.placeDisc(new Coordinate(square >>> 3, square & 7));
+        }
+        return board;
+    }
+
+    private static int[][] generate(int minPlies, int maxPlies, long seed) {
+        Random random = new Random(seed);
+        int[][] sequences = new int[COUNT][];
+        int found = 0;
+        while (found < COUNT) {
+            int plies = minPlies + random.nextInt(maxPlies - minPlies + 1);
+            int[] sequence = new int[plies];
+            BitBoard board = new BitBoard();
+            boolean complete = true;
+            for (int ply = 0; ply < plies; ply++) {
+                long moves = board.getPlayableMask();
+                if (moves == 0) {
+                    complete = false;
+                    break;
+                }
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--)
+                    moves &= moves - 1;
+                sequence[ply] = Long.numberOfTrailingZeros(moves);
+                board.makeMove(sequence[ply]);
+            }
+            if (complete && board.getPlayableMask() != 0)
+                sequences[found++] = sequence;
+        }
+        return sequences;
+    }
+}
@@ -0,0 +1,27 @@
+package othello;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmark suite with the GC profiler attached, so every result reports ops/sec together with the
+ * bytes allocated per operation ({@code gc.alloc.rate.norm}). Any standard JMH command line options can be passed,
+ * for example a regular expression to run only some benchmarks, or {@code -p phase=endgame}.
+ * <p></p>
+ * Usage: {@code BenchmarkRunner [jmh options] [benchmark regex]}
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine).addProfiler(GCProfiler.class);
+        if (commandLine.getIncludes().isEmpty())
+            options.include("othello\\..*Benchmark\\..*");
+        new Runner(options.build()).run();
+    }
+}
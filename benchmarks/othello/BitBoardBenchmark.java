@@ -0,0 +1,123 @@
+package othello;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the mask-based counterparts of the {@link BoardBenchmark} operations on {@link BitBoard}, over the same
+ * corpus. Moves are taken back with undoMove, so every benchmark leaves its positions unchanged and none needs a
+ * per-invocation setup. Playouts pass when the player to move has no playable tiles and end when neither player can
+ * move.
+ * @see BoardBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitBoardBenchmark {
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    private BitBoard[] boards;
+    private int[] moves;
+    private final int[] playedSquares = new int[128];
+    private final long[] playedFlips = new long[128];
+    private SplittableRandom random;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void loadCorpus() {
+        boards = BenchmarkPositions.bitBoards(phase);
+        moves = new int[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            moves[i] = Long.numberOfTrailingZeros(boards[i].getPlayableMask());
+        }
+        random = new SplittableRandom(2410);
+    }
+
+    private int next() {
+        index = (index + 1) % boards.length;
+        return index;
+    }
+
+    @Benchmark
+    public long getPlayableMask() {
+        return boards[next()].getPlayableMask();
+    }
+
+    @Benchmark
+    public int getDiscCount() {
+        BitBoard board = boards[next()];
+        return Long.bitCount(board.getBlack()) - Long.bitCount(board.getWhite());
+    }
+
+    @Benchmark
+    public long computeFlips() {
+        int i = next();
+        return BitBoard.computeFlips(boards[i].getOwn(), boards[i].getOpponent(), moves[i]);
+    }
+
+    @Benchmark
+    public long computeFlipsFromTables() {
+        int i = next();
+        return FlipTables.computeFlips(boards[i].getOwn(), boards[i].getOpponent(), moves[i]);
+    }
+
+    @Benchmark
+    public long makeUndoMove() {
+        int i = next();
+        BitBoard board = boards[i];
+        long flips = board.makeMove(moves[i]);
+        board.undoMove(moves[i], flips);
+        return flips;
+    }
+
+    @Benchmark
+    public int randomPlayout() {
+        BitBoard board = boards[next()];
+        int played = 0;
+        int passes = 0;
+        while (passes < 2) {
+            long playable = board.getPlayableMask();
+            if (playable == 0) {
+                board.pass();
+                playedSquares[played] = SearchResult.PASS;
+                playedFlips[played++] = 0;
+                passes++;
+                continue;
+            }
+            passes = 0;
+            for (int skip = random.nextInt(Long.bitCount(playable)); skip > 0; skip--)
+                playable &= playable - 1;
+            int square = Long.numberOfTrailingZeros(playable);
+            playedSquares[played] = square;
+            playedFlips[played++] = board.makeMove(square);
+        }
+        int discs = Long.bitCount(board.getBlack());
+        while (played > 0) {
+            played--;
+            if (playedSquares[played] == SearchResult.PASS) {
+                board.pass();
+            } else {
+                board.undoMove(playedSquares[played], playedFlips[played]);
+            }
+        }
+        return discs;
+    }
+}
@@ -0,0 +1,104 @@
+package othello;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the public rules engine of {@link Board} over the opening, midgame and endgame positions of
+ * {@link BenchmarkPositions}. Every benchmark cycles through the positions one per call. Operations that change the
+ * board cannot be undone on a Board, so they first restore a scratch Board to the corpus position with
+ * {@link Board#copyPosition(Board)}, which only touches the tiles the last call changed. The restore is part of each
+ * measured operation, as undoMove is in the {@link BitBoardBenchmark} counterparts, so both report comparable
+ * ops/sec.<p></p>
+ * Random playouts pass when the player to move has no playable tiles and end when neither player can move, as in
+ * {@link BitBoardBenchmark}.
+ * @see BitBoardBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    private Board[] boards;
+    private Board[] scratch;
+    private Coordinate[] moves;
+    private SplittableRandom random;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void loadCorpus() {
+        boards = BenchmarkPositions.boards(phase);
+        scratch = new Board[boards.length];
+        moves = new Coordinate[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            scratch[i] = new Board();
+            moves[i] = boards[i].getPlayableTiles().get(0);
+        }
+        random = new SplittableRandom(2410);
+    }
+
+    private int next() {
+        index = (index + 1) % boards.length;
+        return index;
+    }
+
+    /**
+     * @return the scratch Board of position i, set to the corpus position
+     */
+    private Board restore(int i) {
+        scratch[i].copyPosition(boards[i]);
+        return scratch[i];
+    }
+
+    @Benchmark
+    public ArrayList<Coordinate> getPlayableTiles() {
+        return boards[next()].getPlayableTiles();
+    }
+
+    @Benchmark
+    public int[] getDiscCount() {
+        return boards[next()].getDiscCount();
+    }
+
+    @Benchmark
+    public Board placeDisc() {
+        int i = next();
+        Board board = restore(i);
+        board.placeDisc(moves[i]);
+        return board;
+    }
+
+    @Benchmark
+    public int randomPlayout() {
+        Board board = restore(next());
+        while (!board.isGameOver()) {
+            ArrayList<Coordinate> playable = board.getPlayableTiles();
+            if (playable.isEmpty()) {
+                board.pass();
+            } else {
+                board.placeDisc(playable.get(random.nextInt(playable.size())));
+            }
+        }
+        return board.getDiscCount()[0];
+    }
+}
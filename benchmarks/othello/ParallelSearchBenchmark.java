@@ -0,0 +1,94 @@
+package othello;
+
+import java.util.Random;
+
+/**
+ * Measures how the time to reach a fixed depth falls as ParallelSearch gets more threads. Each thread count searches
+ * the same set of midgame positions, clearing its transposition table between positions, and the speedup is reported
+ * relative to one thread. The search, its table and its pool are built once per thread count, outside the timed
+ * region.<p></p>
+ * Usage: {@code ParallelSearchBenchmark [depth] [positions] [tableMegabytes]}
+ * @see ParallelSearch
+ */
+public class ParallelSearchBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int megabytes = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        BitBoard[] positions = positions(count, 20, new Random(2410));
+
+        System.out.printf("depth %d, %d positions, %d MB table, %d cores%n", depth, count, megabytes,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %12s %10s %14s %10s%n", "threads", "time (ms)", "speedup", "nodes/sec", "fill");
+
+        // Warm up the JIT so the single-thread baseline is not penalised.
+        try (ParallelSearch search = new ParallelSearch(new PositionalEvaluator(), depth, 0, 1, megabytes)) {
+            run(search, depth - 2, positions);
+        }
+
+        double baseline = 0;
+        for (int threads : THREAD_COUNTS) {
+            try (ParallelSearch search = new ParallelSearch(new PositionalEvaluator(), depth, 0, threads,
+                    megabytes)) {
+                long[] stats = run(search, depth, positions);
+                double millis = stats[2] / 1e6;
+                if (threads == 1)
+                    baseline = millis;
+                System.out.printf("%8d %12.1f %10.2f %14d %9.1f%%%n", threads, millis, baseline / millis,
+                        (long) (stats[0] / (millis / 1000)), stats[1] / 10.0);
+            }
+        }
+    }
+
+    /**
+     * Searches every position to the given depth, clearing the table before each one. Only the searches are timed.
+     * @return the total node count, the fill level of the table after the last search and the total search time in
+     * nanoseconds
+     */
+    private static long[] run(ParallelSearch search, int depth, BitBoard[] positions) {
+        long nodes = 0;
+        long nanos = 0;
+        int fill = 0;
+        for (BitBoard position : positions) {
+            search.getTable().clear();
+            long start = System.nanoTime();
+            nodes += search.search(position, depth, 0).getNodes();
+            nanos += System.nanoTime() - start;
+            fill = search.getTable().getFillPermille();
+        }
+        return new long[]{nodes, fill, nanos};
+    }
+
+    /**
+     * Plays random moves from the start position to produce reproducible test positions.
+     * @param count the number of positions
+     * @param plies the number of random moves played to reach each position
+     * @param random the source of the moves
+     * @return positions in which the player to move has at least one playable tile
+     */
+    static BitBoard[] positions(int count, int plies, Random random) {
+        BitBoard[] positions = new BitBoard[count];
+        int found = 0;
+        while (found < count) {
+            BitBoard board = new BitBoard();
+            for (int ply = 0; ply < plies; ply++) {
+                long moves = board.getPlayableMask();
+                if (moves == 0) {
+                    board.pass();
+                    moves = board.getPlayableMask();
+                    if (moves == 0)
+                        break;
+                }
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--)
+                    moves &= moves - 1;
+                board.makeMove(Long.numberOfTrailingZeros(moves));
+            }
+            if (board.getPlayableMask() != 0)
+                positions[found++] = board;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,125 @@
+package othello;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link WideBitBoard} on each board size, for comparison with the 8x8 {@link BitBoardBenchmark}. The
+ * positions are taken from random games played to a third of the board in the setup, so they hold a similar share of
+ * Discs on every size. Moves are taken back with undoMove, so every benchmark leaves its positions unchanged.
+ * @see BitBoardBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WideBitBoardBenchmark {
+
+    private static final int POSITIONS = 256;
+
+    @Param({"8", "10", "12", "16"})
+    public int size;
+
+    private WideBitBoard[] boards;
+    private int[] moves;
+    private long[] buffer;
+    private long[] flips;
+    private int[] playedSquares;
+    private long[][] playedFlips;
+    private SplittableRandom random;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void createPositions() {
+        random = new SplittableRandom(2410);
+        int words = WideBitBoard.words(size);
+        buffer = new long[words];
+        flips = new long[words];
+        playedSquares = new int[2 * size * size];
+        playedFlips = new long[2 * size * size][words];
+        boards = new WideBitBoard[POSITIONS];
+        moves = new int[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            WideBitBoard board;
+            do {
+                board = new WideBitBoard(size);
+                for (int ply = 0; ply < size * size / 3 && board.generateMoves(buffer) > 0; ply++) {
+                    board.makeMove(randomMove(buffer), flips);
+                }
+            } while (board.generateMoves(buffer) == 0);
+            boards[i] = board;
+            moves[i] = WideBitBoard.next(buffer, 0);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) % boards.length;
+        return index;
+    }
+
+    private int randomMove(long[] playable) {
+        int square = WideBitBoard.next(playable, 0);
+        for (int skip = random.nextInt(WideBitBoard.bitCount(playable)); skip > 0; skip--) {
+            square = WideBitBoard.next(playable, square + 1);
+        }
+        return square;
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        return boards[next()].generateMoves(buffer);
+    }
+
+    @Benchmark
+    public int makeUndoMove() {
+        int i = next();
+        WideBitBoard board = boards[i];
+        int flipped = board.makeMove(moves[i], flips);
+        board.undoMove(moves[i], flips);
+        return flipped;
+    }
+
+    @Benchmark
+    public int randomPlayout() {
+        WideBitBoard board = boards[next()];
+        int played = 0;
+        int passes = 0;
+        while (passes < 2) {
+            if (board.generateMoves(buffer) == 0) {
+                board.pass();
+                playedSquares[played++] = SearchResult.PASS;
+                passes++;
+                continue;
+            }
+            passes = 0;
+            int square = randomMove(buffer);
+            playedSquares[played] = square;
+            board.makeMove(square, playedFlips[played++]);
+        }
+        int discs = board.getBlackCount();
+        while (played > 0) {
+            played--;
+            if (playedSquares[played] == SearchResult.PASS) {
+                board.pass();
+            } else {
+                board.undoMove(playedSquares[played], playedFlips[played]);
+            }
+        }
+        return discs;
+    }
+}
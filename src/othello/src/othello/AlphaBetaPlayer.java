@@ -0,0 +1,538 @@
+package othello;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * AlphaBetaPlayer is a computer opponent that chooses moves with a negamax alpha-beta search over a {@link BitBoard}.
+ * <p></p>
+ * The search deepens iteratively one ply at a time. From the third iteration on, each iteration starts with an
+ * aspiration window around the previous score and widens it only when the result falls outside. Moves are ordered
+ * with the principal variation of the previous iteration first, then by a shallow search at nodes with enough depth
+ * left, or by the static evaluation of the resulting position near the leaves. A search can be bounded by depth, by a
+ * wall-clock time limit or both; when time runs out the result of the last completed iteration is returned.
+ * <p></p>
+ * If a {@link TranspositionTable} is supplied, every searched position is stored in it. Its best move is tried right
+ * after the principal variation move, and stored bounds that are deep enough cut the search off.
+ * The table is kept between searches so later moves profit from earlier work.
+ * <p></p>
+ * With an {@link OpeningBook}, moves chosen through {@link #selectMove(BitBoard)} or {@link #chooseMove(Board)} are
+ * taken from the book as long as it has a trusted move, and searched only when the game leaves the book.
+ * <p></p>
+ * Every completed iteration and every search is reported to {@link EngineMetrics}, and as a
+ * {@link SearchIterationEvent} and a {@link MoveSearchEvent} to Java Flight Recorder while a recording enables them.
+ * <p></p>
+ * An AlphaBetaPlayer reuses its internal buffers between searches and is therefore not thread safe.
+ * @see Player
+ * @see Evaluator
+ * @see SearchResult
+ * @see TranspositionTable
+ * @see OpeningBook
+ */
+public class AlphaBetaPlayer implements Player {
+
+    /**
+     * The score of a won game before the final disc difference is added. Heuristic scores never reach it.
+     */
+    public static final int WIN = 1_000_000;
+
+    /**
+     * The deepest iteration a search will start. A game never lasts more than 60 moves.
+     */
+    public static final int MAX_DEPTH = 60;
+
+    /**
+     * The longest line the search can follow. Passes do not use up depth, so lines can be longer than MAX_DEPTH.
+     */
+    private static final int MAX_PLY = 2 * MAX_DEPTH + 2;
+
+    private static final int INFINITY = 2 * WIN;
+
+    /**
+     * The initial half-width of the aspiration window, in evaluation units (about two Discs).
+     */
+    private static final int ASPIRATION_WINDOW = 200;
+
+    /**
+     * Nodes with at least this much depth left are ordered by a shallow search instead of a static evaluation.
+     */
+    private static final int SHALLOW_ORDERING_DEPTH = 4;
+
+    /**
+     * The number of nodes visited between two checks of the clock.
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    private final Evaluator evaluator;
+    private final int maxDepth;
+    private final long timeLimitMillis;
+    private final TranspositionTable table;
+    private OpeningBook book;
+    private int bookMinGames;
+    private Consumer<SearchResult> progressListener;
+
+    /**
+     * Per-ply move lists and ordering scores, reused across nodes so the search does not allocate.
+     */
+    private final int[][] moves = new int[MAX_PLY][64];
+    private final int[][] moveScores = new int[MAX_PLY][64];
+
+    /**
+     * The triangular principal variation table. pv[ply] holds the best line found from ply onwards.
+     */
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    /**
+     * The principal variation of the last completed iteration, tried first by the next one.
+     */
+    private final int[] previousPv = new int[MAX_PLY + 1];
+    private int previousPvLength;
+    private boolean followPv;
+
+    private BitBoard position;
+    private long nodes;
+
+    /**
+     * Counters for {@link EngineMetrics}: the interior nodes expanded, the legal moves at those nodes, the beta
+     * cutoffs and the cutoffs caused by the first move tried.
+     */
+    private long interiorNodes;
+    private long children;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long deadline;
+    private boolean stopped;
+
+    /**
+     * Set from another thread by {@link #stop()}. It is only read when the clock is checked, so the volatile read
+     * stays out of the per-node path.
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * Creates a player that searches to a fixed depth with no time limit, using a PositionalEvaluator.
+     * @param maxDepth the depth to search to, between 1 and MAX_DEPTH
+     */
+    public AlphaBetaPlayer(int maxDepth) {
+        this(new PositionalEvaluator(), maxDepth, 0);
+    }
+
+    /**
+     * @param evaluator scores the positions at the leaves of the search
+     * @param maxDepth the deepest iteration to search, between 1 and MAX_DEPTH
+     * @param timeLimitMillis the wall-clock time each move may take, or 0 for no limit
+     */
+    public AlphaBetaPlayer(Evaluator evaluator, int maxDepth, long timeLimitMillis) {
+        this(evaluator, maxDepth, timeLimitMillis, null);
+    }
+
+    /**
+     * @param evaluator scores the positions at the leaves of the search
+     * @param maxDepth the deepest iteration to search, between 1 and MAX_DEPTH
+     * @param timeLimitMillis the wall-clock time each move may take, or 0 for no limit
+     * @param table the transposition table to use, or null to search without one
+     */
+    public AlphaBetaPlayer(Evaluator evaluator, int maxDepth, long timeLimitMillis, TranspositionTable table) {
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH)
+            throw new IllegalArgumentException("maxDepth must be between 1 and " + MAX_DEPTH);
+        this.evaluator = evaluator;
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.table = table;
+    }
+
+    /**
+     * Chooses a move for the player whose turn it is on the given board, within this player's depth and time limits.
+     * @param board the current game
+     * @return the chosen move, or null if the player to move has no playable tiles
+     */
+    public Coordinate chooseMove(Board board) {
+        return play(new BitBoard(board)).getBestMove();
+    }
+
+    @Override
+    public int selectMove(BitBoard board) {
+        return play(board).getBestSquare();
+    }
+
+    /**
+     * Lets the player take its moves from an opening book while the game is in it.
+     * @param book the book to use, or null to always search
+     * @param minGames the number of games a book position needs before its move is trusted
+     * @see OpeningBook#probe(BitBoard, int)
+     */
+    public void setOpeningBook(OpeningBook book, int minGames) {
+        this.book = book;
+        this.bookMinGames = minGames;
+    }
+
+    /**
+     * Sets an observer that is told the result of every completed iteration, for example to show the progress of a
+     * long search. It is called on the searching thread, in the middle of the search, so it should return quickly.
+     * @param progressListener receives the best move, score and depth so far, or null for none
+     */
+    public void setProgressListener(Consumer<SearchResult> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * @return the book move if there is one, else the result of a search within this player's limits
+     */
+    private SearchResult play(BitBoard board) {
+        SearchResult booked = book != null ? book.probe(board, bookMinGames) : null;
+        return booked != null ? booked : search(board, maxDepth, timeLimitMillis);
+    }
+
+    /**
+     * Searches the given position with iterative deepening until maxDepth is completed, the time limit runs out, or
+     * the game is solved to the end. The BitBoard is left unchanged.
+     * @param board the position to search
+     * @param maxDepth the deepest iteration to search
+     * @param timeLimitMillis the wall-clock time the search may take, or 0 for no limit
+     * @return the best move of the last completed iteration together with search statistics
+     */
+    public SearchResult search(BitBoard board, int maxDepth, long timeLimitMillis) {
+        stopRequested = false;
+        if (table != null)
+            table.newSearch();
+        long deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000L : 0;
+        return iterate(board, 1, maxDepth, deadline);
+    }
+
+    /**
+     * Asks a running search to finish. The search returns the result of its last completed iteration shortly after.
+     * Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Clears a stop request left over from an earlier search, for callers that start searches through
+     * {@link #iterate(BitBoard, int, int, long)}.
+     */
+    void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Runs the iterative deepening loop. Unlike {@link #search(BitBoard, int, long)} it neither starts a new
+     * transposition table generation nor clears a pending stop request, so several players sharing a table can search
+     * the same position together.
+     * @param board the position to search
+     * @param firstDepth the depth of the first iteration
+     * @param maxDepth the deepest iteration to search
+     * @param deadline the System.nanoTime value at which to stop, or 0 for no limit
+     * @return the best move of the last completed iteration together with search statistics
+     */
+    SearchResult iterate(BitBoard board, int firstDepth, int maxDepth, long deadline) {
+        return iterate(board, firstDepth, maxDepth, deadline, null);
+    }
+
+    /**
+     * Continues the iterative deepening of an earlier search of the same position, such as a pondering search, with
+     * the iteration after the last one it completed. The first aspiration window is centred on the earlier score and
+     * the earlier principal variation is searched first, as if the earlier iterations had run in this call. Like
+     * {@link #iterate(BitBoard, int, int, long)} it starts no new table generation and clears no stop request.
+     * @param board the position to search
+     * @param previous the result of the earlier search of the position
+     * @param maxDepth the deepest iteration to search
+     * @param deadline the System.nanoTime value at which to stop, or 0 for no limit
+     * @return the best move of the last completed iteration, which is the earlier result if none completes, together
+     * with the statistics of this call
+     */
+    SearchResult resume(BitBoard board, SearchResult previous, int maxDepth, long deadline) {
+        return iterate(board, previous.getDepth() + 1, maxDepth, deadline, previous);
+    }
+
+    private SearchResult iterate(BitBoard board, int firstDepth, int maxDepth, long deadline, SearchResult previous) {
+        MoveSearchEvent searchEvent = new MoveSearchEvent();
+        boolean sample = EngineMetrics.ENABLED || searchEvent.isEnabled();
+        long allocatedBefore = sample ? EngineMetrics.threadAllocatedBytes() : -1;
+        long collectionsBefore = sample ? EngineMetrics.collectionCount() : 0;
+        long collectionMillisBefore = sample ? EngineMetrics.collectionMillis() : 0;
+        searchEvent.begin();
+        long start = System.nanoTime();
+        position = new BitBoard(board.getOwn(), board.getOpponent(), board.getPlayerTurn());
+        nodes = 0;
+        interiorNodes = 0;
+        children = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        stopped = false;
+        this.deadline = deadline;
+        previousPvLength = 0;
+
+        long rootMoves = position.getPlayableMask();
+        if (rootMoves == 0)
+            return new SearchResult(SearchResult.PASS, 0, 0, 0, System.nanoTime() - start, new int[0]);
+
+        int bestSquare = Long.numberOfTrailingZeros(rootMoves);
+        int bestScore = 0;
+        int completedDepth = 0;
+        if (previous != null && previous.getDepth() > 0 && previous.getBestSquare() >= 0
+                && (rootMoves & 1L << previous.getBestSquare()) != 0) {
+            bestSquare = previous.getBestSquare();
+            bestScore = previous.getScore();
+            completedDepth = previous.getDepth();
+            int[] line = previous.getPrincipalVariation();
+            previousPvLength = Math.min(line.length, previousPv.length);
+            System.arraycopy(line, 0, previousPv, 0, previousPvLength);
+        }
+        int empties = Long.bitCount(~(position.getOwn() | position.getOpponent()));
+        int depthLimit = Math.min(maxDepth, MAX_DEPTH);
+
+        for (int depth = Math.max(1, firstDepth); depth <= depthLimit; depth++) {
+            SearchIterationEvent iterationEvent = new SearchIterationEvent();
+            iterationEvent.begin();
+            long iterationStart = System.nanoTime();
+            long startNodes = nodes;
+            long startInteriorNodes = interiorNodes;
+            long startChildren = children;
+            long startCutoffs = cutoffs;
+            long startFirstMoveCutoffs = firstMoveCutoffs;
+            long startProbes = table != null ? table.getProbes() : 0;
+            long startHits = table != null ? table.getHits() : 0;
+            int delta = ASPIRATION_WINDOW;
+            int alpha = depth >= 3 ? bestScore - delta : -INFINITY;
+            int beta = depth >= 3 ? bestScore + delta : INFINITY;
+            int score;
+            while (true) {
+                followPv = true;
+                score = negamax(0, depth, alpha, beta);
+                if (stopped)
+                    break;
+                if (score <= alpha && alpha > -INFINITY) {
+                    delta *= 2;
+                    alpha = Math.max(-INFINITY, score - delta);
+                } else if (score >= beta && beta < INFINITY) {
+                    delta *= 2;
+                    beta = Math.min(INFINITY, score + delta);
+                } else {
+                    break;
+                }
+            }
+            if (stopped)
+                break;
+
+            bestScore = score;
+            bestSquare = pv[0][0];
+            completedDepth = depth;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+
+            long probes = table != null ? table.getProbes() - startProbes : 0;
+            long hits = table != null ? table.getHits() - startHits : 0;
+            EngineMetrics.addIteration(System.nanoTime() - iterationStart, nodes - startNodes,
+                    interiorNodes - startInteriorNodes, children - startChildren, probes, hits,
+                    cutoffs - startCutoffs, firstMoveCutoffs - startFirstMoveCutoffs);
+            iterationEvent.end();
+            if (iterationEvent.shouldCommit()) {
+                iterationEvent.depth = depth;
+                iterationEvent.score = bestScore;
+                iterationEvent.bestMove = BitBoard.squareName(bestSquare);
+                iterationEvent.nodes = nodes - startNodes;
+                iterationEvent.branchingFactor = interiorNodes == startInteriorNodes ? 0
+                        : (double) (children - startChildren) / (interiorNodes - startInteriorNodes);
+                iterationEvent.tableProbes = probes;
+                iterationEvent.tableHits = hits;
+                iterationEvent.cutoffs = cutoffs - startCutoffs;
+                iterationEvent.firstMoveCutoffs = firstMoveCutoffs - startFirstMoveCutoffs;
+                iterationEvent.commit();
+            }
+            if (progressListener != null)
+                progressListener.accept(new SearchResult(bestSquare, bestScore, completedDepth, nodes,
+                        System.nanoTime() - start, Arrays.copyOf(previousPv, previousPvLength)));
+
+            if (depth >= empties)
+                break;
+        }
+
+        int[] line = new int[previousPvLength];
+        System.arraycopy(previousPv, 0, line, 0, previousPvLength);
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBefore >= 0 ? EngineMetrics.threadAllocatedBytes() - allocatedBefore : -1;
+        long collections = sample ? EngineMetrics.collectionCount() - collectionsBefore : -1;
+        long collectionMillis = sample ? EngineMetrics.collectionMillis() - collectionMillisBefore : -1;
+        EngineMetrics.addSearch(elapsed, allocated, collections, collectionMillis);
+        searchEvent.end();
+        if (searchEvent.shouldCommit()) {
+            searchEvent.empties = empties;
+            searchEvent.depth = completedDepth;
+            searchEvent.score = bestScore;
+            searchEvent.bestMove = BitBoard.squareName(bestSquare);
+            searchEvent.nodes = nodes;
+            searchEvent.nodesPerSecond = elapsed == 0 ? 0 : (long) (nodes * 1e9 / elapsed);
+            searchEvent.allocated = allocated;
+            searchEvent.collections = collections;
+            searchEvent.commit();
+        }
+        return new SearchResult(bestSquare, bestScore, completedDepth, nodes, elapsed, line);
+    }
+
+    /**
+     * The fail-soft negamax alpha-beta search.
+     * @param ply the distance from the root
+     * @param depth the remaining depth; passes do not reduce it
+     * @param alpha the lower bound of the window
+     * @param beta the upper bound of the window
+     * @return the score of the position for the player to move, or 0 if the search was stopped
+     */
+    private int negamax(int ply, int depth, int alpha, int beta) {
+        if (++nodes % CLOCK_CHECK_INTERVAL == 0
+                && (stopRequested || deadline != 0 && System.nanoTime() - deadline >= 0))
+            stopped = true;
+        if (stopped)
+            return 0;
+
+        pvLength[ply] = ply;
+        long own = position.getOwn();
+        long opponent = position.getOpponent();
+        long playable = BitBoard.generateMoves(own, opponent);
+
+        if (playable == 0) {
+            if (BitBoard.generateMoves(opponent, own) == 0)
+                return finalScore(own, opponent);
+            position.pass();
+            int score = -negamax(ply + 1, depth, -beta, -alpha);
+            position.pass();
+            updatePv(ply, SearchResult.PASS);
+            return score;
+        }
+
+        if (depth == 0)
+            return evaluator.evaluate(own, opponent);
+
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (table != null) {
+            long entry = table.probe(position.getHash());
+            if (entry != 0) {
+                ttMove = TranspositionTable.move(entry);
+                if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.score(entry);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha))
+                        return score;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int count = orderMoves(ply, depth, playable, ttMove);
+        interiorNodes++;
+        children += count;
+        int best = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int square = moves[ply][i];
+            long flips = position.makeMove(square);
+            int score = -negamax(ply + 1, depth - 1, -beta, -alpha);
+            position.undoMove(square, flips);
+            followPv = false;
+            if (stopped)
+                return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = square;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, square);
+                    if (alpha >= beta) {
+                        cutoffs++;
+                        if (i == 0)
+                            firstMoveCutoffs++;
+                        break;
+                    }
+                }
+            }
+        }
+        if (table != null) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(position.getHash(), depth, bound, best, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * Fills the move list for a ply and sorts it best first. The move from the previous principal variation comes
+     * first, followed by the transposition table move, then moves are ranked by a shallow search when enough depth
+     * remains, or by the static evaluation of the position they lead to.
+     * @param ply the distance from the root
+     * @param depth the remaining depth at this node
+     * @param playable the mask of legal moves
+     * @param ttMove the best move stored in the transposition table, or NO_MOVE
+     * @return the number of moves written to moves[ply]
+     */
+    private int orderMoves(int ply, int depth, long playable, int ttMove) {
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        int pvMove = followPv && ply < previousPvLength ? previousPv[ply] : SearchResult.PASS;
+        if (pvMove == SearchResult.PASS || (playable & (1L << pvMove)) == 0)
+            followPv = false;
+
+        boolean wasFollowingPv = followPv;
+        followPv = false;
+        int count = 0;
+        for (long remaining = playable; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            int score;
+            if (wasFollowingPv && square == pvMove) {
+                score = INFINITY;
+            } else if (square == ttMove) {
+                score = INFINITY - 1;
+            } else if (depth >= SHALLOW_ORDERING_DEPTH) {
+                long flips = position.makeMove(square);
+                score = -negamax(ply + 1, depth / 4, -INFINITY, INFINITY);
+                position.undoMove(square, flips);
+            } else {
+                long flips = BitBoard.computeFlips(position.getOwn(), position.getOpponent(), square);
+                score = -evaluator.evaluate(position.getOpponent() & ~flips,
+                        position.getOwn() | flips | (1L << square));
+            }
+            int i = count++;
+            while (i > 0 && scores[i - 1] < score) {
+                list[i] = list[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            list[i] = square;
+            scores[i] = score;
+        }
+        followPv = wasFollowingPv;
+        return count;
+    }
+
+    /**
+     * Makes the given move followed by the child's best line the principal variation at this ply.
+     * @param ply the distance from the root
+     * @param square the move played at this ply, or PASS
+     */
+    private void updatePv(int ply, int square) {
+        pv[ply][ply] = square;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    /**
+     * Scores a finished game. Empty squares go to the winner, as in tournament scoring.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @return WIN plus the disc difference for a win, minus that for a loss, or 0 for a draw
+     */
+    static int finalScore(long own, long opponent) {
+        int ownCount = Long.bitCount(own);
+        int opponentCount = Long.bitCount(opponent);
+        int empties = 64 - ownCount - opponentCount;
+        if (ownCount > opponentCount)
+            return WIN + ownCount - opponentCount + empties;
+        if (ownCount < opponentCount)
+            return -WIN + ownCount - opponentCount - empties;
+        return 0;
+    }
+}
@@ -0,0 +1,237 @@
+package othello;
+
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * AsyncMoveProvider lets a user interface ask for a computer move without waiting for it. The search runs on a
+ * background thread owned by this object; progress and the final move are handed to a callback executor, such as
+ * {@code EventQueue::invokeLater} for Swing, so the interface can update itself on its own thread.<p></p>
+ * While the opponent thinks, the provider can ponder: it guesses the opponent's reply from the principal variation of
+ * its last move and searches the position after that reply with no time limit. When the opponent plays the guessed
+ * move, the move search starts one iteration deeper than the pondering got, on a transposition table already filled by
+ * it, and falls back to the pondering result if no deeper iteration finishes in time. When the guess misses, pondering
+ * is stopped and the table still holds whatever it found about transpositions.<p></p>
+ * {@link #cancel()} drops the current search, for example when a new game is started: results and progress of a
+ * cancelled search are never delivered, and its future is cancelled.<p></p>
+ * The provider must be closed when no longer needed, which stops its thread.
+ * @see AlphaBetaPlayer
+ * @see GUI
+ */
+public class AsyncMoveProvider implements AutoCloseable {
+
+    private final AlphaBetaPlayer player;
+    private final TranspositionTable table;
+    private final int maxDepth;
+    private final long timeLimitMillis;
+    private final Executor callbacks;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "othello-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Guards generation, pending and the stop flag of the player, so a task that is about to start cannot clear a
+     * stop that was meant for it.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Counts the requests and cancellations. A task only runs and delivers results while the generation it was
+     * submitted in is current.
+     */
+    private int generation;
+
+    /**
+     * The future of the current request, cancelled when the request is overtaken.
+     */
+    private CompletableFuture<SearchResult> pending;
+
+    /**
+     * The position being pondered and the last completed pondering iteration. Only used on the search thread.
+     */
+    private long ponderOwn;
+    private long ponderOpponent;
+    private SearchResult ponderResult;
+
+    private volatile int ponderHits;
+
+    /**
+     * @param evaluator scores the positions at the leaves of the search
+     * @param maxDepth the deepest iteration to search, between 1 and AlphaBetaPlayer.MAX_DEPTH
+     * @param timeLimitMillis the wall-clock time each move may take, or 0 for no limit
+     * @param tableMegabytes the size of the transposition table kept between moves
+     * @param callbacks runs the progress and result callbacks, for example EventQueue::invokeLater
+     */
+    public AsyncMoveProvider(Evaluator evaluator, int maxDepth, long timeLimitMillis, int tableMegabytes,
+                             Executor callbacks) {
+        this.table = new TranspositionTable(tableMegabytes);
+        this.player = new AlphaBetaPlayer(evaluator, maxDepth, timeLimitMillis, table);
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Starts searching a move. Pondering, and any earlier search still running, is stopped first.
+     * @param position the position to move in; it is copied, so the caller may change it afterwards
+     * @param progress receives the result of every completed iteration on the callback executor, or null
+     * @return completed on the callback executor with the chosen move, or cancelled by {@link #cancel()}
+     */
+    public CompletableFuture<SearchResult> requestMove(BitBoard position, Consumer<SearchResult> progress) {
+        BitBoard board = new BitBoard(position.getOwn(), position.getOpponent(), position.getPlayerTurn());
+        CompletableFuture<SearchResult> future = new CompletableFuture<>();
+        int task;
+        synchronized (lock) {
+            task = interrupt();
+            pending = future;
+        }
+        executor.execute(() -> {
+            if (!begin(task))
+                return;
+            Consumer<SearchResult> report = progress == null ? null
+                    : result -> deliver(task, () -> progress.accept(result));
+            player.setProgressListener(report);
+            SearchResult result = search(board, report);
+            player.setProgressListener(null);
+            deliver(task, () -> future.complete(result));
+        });
+        return future;
+    }
+
+    /**
+     * Starts pondering after this provider's move has been played: the opponent's expected reply is taken from the
+     * principal variation of the move's result, and the position after it is searched until the next request.
+     * Nothing happens if the result has no expected reply.
+     * @param position the position after this provider's move, with the opponent to move
+     * @param moveResult the result of the request that chose the move
+     */
+    public void ponder(BitBoard position, SearchResult moveResult) {
+        int[] line = moveResult.getPrincipalVariation();
+        if (line.length < 2 || line[1] == SearchResult.PASS
+                || (position.getPlayableMask() & (1L << line[1])) == 0)
+            return;
+        long flips = BitBoard.computeFlips(position.getOwn(), position.getOpponent(), line[1]);
+        long own = position.getOpponent() & ~flips;
+        long opponent = position.getOwn() | flips | (1L << line[1]);
+        BitBoard expected = new BitBoard(own, opponent,
+                position.getPlayerTurn() == Color.BLACK ? Color.WHITE : Color.BLACK);
+        if (expected.getPlayableMask() == 0)
+            return;
+
+        int task = interrupt();
+        executor.execute(() -> {
+            if (!begin(task))
+                return;
+            ponderOwn = own;
+            ponderOpponent = opponent;
+            ponderResult = null;
+            table.newSearch();
+            player.setProgressListener(result -> ponderResult = result);
+            player.iterate(expected, 1, AlphaBetaPlayer.MAX_DEPTH, 0);
+            player.setProgressListener(null);
+        });
+    }
+
+    /**
+     * Stops pondering and any running search. The future of a running request is cancelled and no more progress is
+     * delivered for it. Safe to call from any thread.
+     */
+    public void cancel() {
+        interrupt();
+    }
+
+    /**
+     * @return how many requests found the position they were pondering on
+     */
+    public int getPonderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Stops the search thread. Running searches are stopped and their results dropped.
+     */
+    @Override
+    public void close() {
+        interrupt();
+        executor.shutdown();
+    }
+
+    /**
+     * Searches a position on the search thread, reusing the pondering work if it was on the same position.
+     */
+    private SearchResult search(BitBoard board, Consumer<SearchResult> progress) {
+        long start = System.nanoTime();
+        long deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000L : 0;
+        SearchResult pondered = ponderResult;
+        ponderResult = null;
+        if (pondered == null || board.getOwn() != ponderOwn || board.getOpponent() != ponderOpponent) {
+            table.newSearch();
+            return player.iterate(board, 1, maxDepth, deadline);
+        }
+
+        ponderHits++;
+        if (progress != null)
+            progress.accept(pondered);
+        int empties = Long.bitCount(~(board.getOwn() | board.getOpponent()));
+        if (pondered.getDepth() >= Math.min(maxDepth, empties))
+            return pondered;
+        SearchResult result = player.resume(board, pondered, maxDepth, deadline);
+        if (result.getDepth() == pondered.getDepth())
+            return new SearchResult(pondered.getBestSquare(), pondered.getScore(), pondered.getDepth(),
+                    pondered.getNodes() + result.getNodes(), System.nanoTime() - start,
+                    pondered.getPrincipalVariation());
+        return result;
+    }
+
+    /**
+     * Starts a new generation, which stops whatever the search thread is doing.
+     * @return the new generation
+     */
+    private int interrupt() {
+        synchronized (lock) {
+            generation++;
+            player.stop();
+            if (pending != null)
+                pending.cancel(false);
+            pending = null;
+            return generation;
+        }
+    }
+
+    /**
+     * Called by a task when it starts on the search thread.
+     * @return false if the task was overtaken by a later request and should not run
+     */
+    private boolean begin(int task) {
+        synchronized (lock) {
+            if (task != generation)
+                return false;
+            player.resetStop();
+            return true;
+        }
+    }
+
+    private boolean isCurrent(int task) {
+        synchronized (lock) {
+            return task == generation;
+        }
+    }
+
+    /**
+     * Runs a callback on the callback executor if its task has not been overtaken by then.
+     */
+    private void deliver(int task, Runnable callback) {
+        if (!isCurrent(task))
+            return;
+        callbacks.execute(() -> {
+            if (isCurrent(task))
+                callback.run();
+        });
+    }
+}
@@ -0,0 +1,445 @@
+package othello;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BatchAnalyzer scores a file of positions, one per line in the format of {@link BitBoard#toString()}, and writes a
+ * result line per position as JSON lines or CSV. Blank lines and lines starting with # are skipped.<p></p>
+ * The input is read as a stream on the calling thread and the positions are analysed on a pool of worker threads,
+ * each with its own {@link AlphaBetaPlayer} and {@link EndgameSolver}. Positions with few enough empties are solved
+ * exactly, the others are searched to a fixed depth. Results finish out of order, so they wait in a reorder buffer
+ * until every earlier result has been written. A semaphore allows only a fixed number of positions between reading
+ * and writing, which bounds both the work queue and the reorder buffer: a slow worker stalls the reader instead of
+ * letting memory grow.<p></p>
+ * Every few results the output is flushed to disk and a checkpoint file next to it records how many positions are
+ * done and how many bytes of output belong to them. The checkpoint is replaced atomically, so it always describes
+ * complete lines. A resumed run truncates the output to the recorded length, skips the recorded number of positions
+ * and carries on, so a crash loses at most the work since the last checkpoint.<p></p>
+ * A position that cannot be read, or whose analysis throws, produces a result line with an error instead of stopping
+ * the run. An Error in a worker stops the run, but only after the position has given back its place in the reorder
+ * buffer, so the reader never waits for a result that will not come.<p></p>
+ * Usage: {@code BatchAnalyzer -in positions.txt -out results.jsonl [-format jsonl|csv] [-depth n] [-exact n]
+ * [-time ms] [-threads n] [-inflight n] [-checkpoint n] [-resume]}, where -exact is the number of empties up to which
+ * positions are solved exactly and -checkpoint the number of results between checkpoints.
+ * @see AlphaBetaPlayer
+ * @see EndgameSolver
+ */
+public class BatchAnalyzer {
+
+    /**
+     * The output formats.
+     */
+    public enum Format {
+        JSONL, CSV
+    }
+
+    private static final String CSV_HEADER = "index,position,empties,move,score,depth,exact,nodes,millis,error\n";
+
+    private final int threads;
+    private final int depth;
+    private final int exactEmpties;
+    private final long timeLimitMillis;
+    private final int maxInFlight;
+    private final int checkpointInterval;
+    private final Format format;
+
+    /**
+     * @param threads the number of worker threads
+     * @param depth the search depth of positions that are not solved exactly, between 1 and
+     *              {@link AlphaBetaPlayer#MAX_DEPTH}
+     * @param exactEmpties positions with at most this many empties are solved exactly, between 0 and 60
+     * @param timeLimitMillis the time one position may take, or 0 for no limit
+     * @param maxInFlight the number of positions that may be read but not yet written
+     * @param checkpointInterval the number of results written between checkpoints
+     * @param format the output format
+     */
+    public BatchAnalyzer(int threads, int depth, int exactEmpties, long timeLimitMillis, int maxInFlight,
+                         int checkpointInterval, Format format) {
+        if (threads < 1 || maxInFlight < 1 || checkpointInterval < 1)
+            throw new IllegalArgumentException("threads, in-flight limit and checkpoint interval must be positive");
+        if (depth < 1 || depth > AlphaBetaPlayer.MAX_DEPTH)
+            throw new IllegalArgumentException("depth must be between 1 and " + AlphaBetaPlayer.MAX_DEPTH);
+        if (exactEmpties < 0 || exactEmpties > 60)
+            throw new IllegalArgumentException("exact empties must be between 0 and 60");
+        if (timeLimitMillis < 0)
+            throw new IllegalArgumentException("time limit must not be negative");
+        this.threads = threads;
+        this.depth = depth;
+        this.exactEmpties = exactEmpties;
+        this.timeLimitMillis = timeLimitMillis;
+        this.maxInFlight = maxInFlight;
+        this.checkpointInterval = checkpointInterval;
+        this.format = format;
+    }
+
+    /**
+     * @param output the result file
+     * @return the checkpoint file kept next to it
+     */
+    public static Path checkpointFile(Path output) {
+        return output.resolveSibling(output.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Analyses every position of the input.
+     * @param input the positions, one per line
+     * @param output the result file; it is replaced unless the run is resumed
+     * @param resume whether to continue from the checkpoint of an earlier run, if there is one
+     * @return the number of positions analysed and skipped
+     * @throws IOException if a file cannot be read or written
+     */
+    public Summary run(Path input, Path output, boolean resume) throws IOException {
+        long start = System.nanoTime();
+        Path checkpoint = checkpointFile(output);
+        long skip = 0;
+        long offset = 0;
+        if (resume && Files.exists(checkpoint)) {
+            Properties saved = new Properties();
+            try (BufferedReader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+                saved.load(reader);
+            }
+            skip = Long.parseLong(saved.getProperty("positions"));
+            offset = Long.parseLong(saved.getProperty("bytes"));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            channel.truncate(offset);
+            channel.position(offset);
+            Sink sink = new Sink(channel, checkpoint, skip);
+            ThreadLocal<Analyst> analysts = ThreadLocal.withInitial(() -> new Analyst(sink.errors));
+            if (offset == 0 && format == Format.CSV)
+                sink.writer.write(CSV_HEADER);
+
+            long index = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String text = line.trim();
+                if (text.isEmpty() || text.startsWith("#"))
+                    continue;
+                long position = index++;
+                if (position < skip)
+                    continue;
+                sink.permits.acquire();
+                sink.checkFailure();
+                pool.execute(() -> analyse(sink, analysts, position, text));
+            }
+            sink.permits.acquire(maxInFlight);
+            sink.checkFailure();
+            sink.checkpoint();
+            return new Summary(sink.written - skip, skip, sink.errors.sum(), System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } finally {
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The task of one position. Whatever happens, the position is completed, so its permit and ring slot are given
+     * back: an exception becomes an error line, and an Error fails the run.
+     */
+    private void analyse(Sink sink, ThreadLocal<Analyst> analysts, long position, String text) {
+        String line = "";
+        try {
+            line = analysts.get().analyse(position, text);
+        } catch (RuntimeException e) {
+            sink.errors.increment();
+            line = line(position, text, 0, null, false, "analysis failed: " + e);
+        } catch (Error e) {
+            sink.fail(new IOException("analysis of position " + position + " failed", e));
+            throw e;
+        } finally {
+            sink.complete(position, line);
+        }
+    }
+
+    /**
+     * The reorder buffer and the output. Results are put into a ring indexed by position number; the ring has room
+     * for every position in flight, so no two of them share a slot. Whichever worker fills the slot of the next
+     * position to write drains the ring as far as it is filled.
+     */
+    private final class Sink {
+        private final FileChannel channel;
+        private final Writer writer;
+        private final Path checkpoint;
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        private final String[] ring = new String[maxInFlight];
+        private final LongAdder errors = new LongAdder();
+        private long written;
+        private volatile IOException failure;
+
+        Sink(FileChannel channel, Path checkpoint, long written) {
+            this.channel = channel;
+            this.writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            this.checkpoint = checkpoint;
+            this.written = written;
+        }
+
+        synchronized void complete(long position, String line) {
+            ring[(int) (position % maxInFlight)] = line;
+            String next;
+            while ((next = ring[(int) (written % maxInFlight)]) != null) {
+                ring[(int) (written % maxInFlight)] = null;
+                try {
+                    if (failure == null) {
+                        writer.write(next);
+                        written++;
+                        if (written % checkpointInterval == 0)
+                            checkpoint();
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+                permits.release();
+            }
+        }
+
+        /**
+         * Flushes the output to disk, then records how far it is complete.
+         */
+        synchronized void checkpoint() throws IOException {
+            writer.flush();
+            channel.force(false);
+            Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+            Files.write(temporary, ("positions=" + written + "\nbytes=" + channel.position() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Stops the writing of results, and makes the reader throw the first failure.
+         */
+        synchronized void fail(IOException e) {
+            if (failure == null)
+                failure = e;
+        }
+
+        void checkFailure() throws IOException {
+            if (failure != null)
+                throw failure;
+        }
+    }
+
+    /**
+     * The engines of one worker thread.
+     */
+    private final class Analyst {
+        private final AlphaBetaPlayer player = new AlphaBetaPlayer(new PositionalEvaluator(), depth, timeLimitMillis,
+                new TranspositionTable(16));
+        private final EndgameSolver solver = new EndgameSolver(timeLimitMillis, 16);
+        private final LongAdder errors;
+
+        Analyst(LongAdder errors) {
+            this.errors = errors;
+        }
+
+        /**
+         * Solves the position exactly if it has few empties or the game is over, otherwise searches it to the fixed
+         * depth. A player without moves passes, and the result is the score of the position after the pass.
+         * @return the result line of one position
+         */
+        String analyse(long index, String text) {
+            BitBoard board;
+            try {
+                board = BitBoard.parse(text);
+            } catch (IllegalArgumentException e) {
+                errors.increment();
+                return line(index, text, 0, null, false, String.valueOf(e.getMessage()));
+            }
+            int empties = Long.bitCount(~(board.getOwn() | board.getOpponent()));
+            boolean passed = board.getPlayableMask() == 0;
+            boolean exact = empties <= exactEmpties
+                    || passed && BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0;
+            SearchResult result;
+            if (exact) {
+                result = solver.solve(board);
+            } else if (passed) {
+                board.pass();
+                SearchResult reply = player.search(board, depth, timeLimitMillis);
+                result = new SearchResult(SearchResult.PASS, -reply.getScore(), reply.getDepth(), reply.getNodes(),
+                        reply.getElapsedNanos(), new int[0]);
+            } else {
+                result = player.search(board, depth, timeLimitMillis);
+            }
+            if (result == null) {
+                errors.increment();
+                return line(index, text, empties, null, true, "time limit exceeded");
+            }
+            return line(index, text, empties, result, exact, null);
+        }
+    }
+
+    /**
+     * Formats one result, or an error if the result is null.
+     */
+    private String line(long index, String position, int empties, SearchResult result, boolean exact,
+                        String error) {
+        StringBuilder line = new StringBuilder(160);
+        String move = result == null ? "" : result.getBestSquare() == SearchResult.PASS ? "pass"
+                : BitBoard.squareName(result.getBestSquare());
+        if (format == Format.CSV) {
+            line.append(index).append(',').append(csv(position)).append(',').append(empties).append(',');
+            if (result != null)
+                line.append(move).append(',').append(result.getScore()).append(',').append(result.getDepth())
+                        .append(',').append(exact).append(',').append(result.getNodes()).append(',')
+                        .append(result.getElapsedNanos() / 1_000_000).append(',');
+            else
+                line.append(",,,,,,").append(csv(error));
+        } else {
+            line.append("{\"index\":").append(index).append(",\"position\":").append(json(position))
+                    .append(",\"empties\":").append(empties);
+            if (result != null)
+                line.append(",\"move\":\"").append(move).append("\",\"score\":").append(result.getScore())
+                        .append(",\"depth\":").append(result.getDepth()).append(",\"exact\":").append(exact)
+                        .append(",\"nodes\":").append(result.getNodes()).append(",\"millis\":")
+                        .append(result.getElapsedNanos() / 1_000_000);
+            else
+                line.append(",\"error\":").append(json(error));
+            line.append('}');
+        }
+        return line.append('\n').toString();
+    }
+
+    private static String json(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String csv(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0)
+            return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * What a run did.
+     */
+    public static final class Summary {
+        private final long analysed;
+        private final long skipped;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Summary(long analysed, long skipped, long errors, long elapsedNanos) {
+            this.analysed = analysed;
+            this.skipped = skipped;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the number of positions written by this run, including those with errors
+         */
+        public long getAnalysed() {
+            return analysed;
+        }
+
+        /**
+         * @return the number of positions skipped because an earlier run had written them
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return the number of positions that produced an error line
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%d positions in %.1f s (%.0f/s), %d skipped, %d errors", analysed, seconds,
+                    analysed / Math.max(seconds, 1e-9), skipped, errors);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path input = null;
+        Path output = null;
+        Format format = Format.JSONL;
+        int depth = 8;
+        int exact = 14;
+        int time = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int inFlight = 1024;
+        int checkpoint = 1000;
+        boolean resume = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-in":
+                    input = Paths.get(args[++i]);
+                    break;
+                case "-out":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "-format":
+                    format = Format.valueOf(args[++i].toUpperCase());
+                    break;
+                case "-depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "-exact":
+                    exact = Integer.parseInt(args[++i]);
+                    break;
+                case "-time":
+                    time = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-inflight":
+                    inFlight = Integer.parseInt(args[++i]);
+                    break;
+                case "-checkpoint":
+                    checkpoint = Integer.parseInt(args[++i]);
+                    break;
+                case "-resume":
+                    resume = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (input == null || output == null)
+            throw new IllegalArgumentException("-in and -out are required");
+        System.out.println(new BatchAnalyzer(threads, depth, exact, time, inFlight, checkpoint, format)
+                .run(input, output, resume));
+    }
+}
@@ -0,0 +1,498 @@
+package othello;
+
+import java.awt.*;
+import java.util.ArrayList;
+
+/**
+ * BitBoard is a second representation of a game of Othello that keeps the position in two 64-bit masks instead of a
+ * 2d Disc array. One mask holds the Discs of the player whose turn it is and the other holds the Discs of the
+ * opponent. Legal moves and flips are computed for all eight directions at once with shift-and-mask propagation, so no
+ * bounds checks, exceptions or Color comparisons are needed in the hot path.<p></p>
+ * Square numbering follows the tiles array of {@link Board}: the tile at {@code tiles[x][y]} is bit {@code x * 8 + y}.
+ * A BitBoard gives the same results as a Board for {@link #getPlayableTiles()}, {@link #placeDisc(Coordinate)} and
+ * {@link #getDiscCount()}.
+ * @see Board
+ */
+public class BitBoard {
+
+    /**
+     * All squares except those with y == 0. Used to stop shifts towards a higher y from wrapping onto the next row.
+     */
+    private static final long NOT_FIRST_Y = 0xFEFEFEFEFEFEFEFEL;
+
+    /**
+     * All squares except those with y == 7. Used to stop shifts towards a lower y from wrapping onto the previous row.
+     */
+    private static final long NOT_LAST_Y = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * All squares except those with y == 0 or y == 7. Opponent Discs in these columns can never be flanked
+     * horizontally or diagonally from both sides, so masking them out also stops wrap-around during propagation.
+     */
+    private static final long INNER_Y = NOT_FIRST_Y & NOT_LAST_Y;
+
+    /**
+     * The number of symmetries of the board: 4 rotations, each optionally mirrored.
+     * @see #transform(long, int)
+     */
+    public static final int SYMMETRIES = 8;
+
+    /**
+     * The Discs of the player whose turn it is.
+     * @see #playerTurn
+     */
+    private long own;
+
+    /**
+     * The Discs of the player who is waiting for their turn.
+     */
+    private long opponent;
+
+    /**
+     * Keeps track of whose turn it is. The playerTurn variable can either be Black or White and decides which color
+     * the own mask represents.
+     * @see #own
+     */
+    private Color playerTurn;
+
+    /**
+     * The Zobrist hash of the position, kept up to date by every move, undo and pass.
+     * @see Zobrist
+     */
+    private long hash;
+
+    /**
+     * Constructor for the BitBoard class. Creates the starting position of a game of Othello with Black to move.
+     * @see Board#Board()
+     */
+    public BitBoard() {
+        this(new Board());
+    }
+
+    /**
+     * Creates a BitBoard holding the same position and player turn as the given Board.
+     * @param board the board to copy
+     */
+    public BitBoard(Board board) {
+        long black = board.getBlack();
+        long white = board.getWhite();
+        this.playerTurn = board.getPlayerTurn() == Color.BLACK ? Color.BLACK : Color.WHITE;
+        this.own = playerTurn == Color.BLACK ? black : white;
+        this.opponent = playerTurn == Color.BLACK ? white : black;
+        this.hash = Zobrist.hash(black, white, playerTurn);
+    }
+
+    /**
+     * Creates a BitBoard from two masks and the player to move.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @param playerTurn the player to move, either Color.BLACK or Color.WHITE
+     */
+    public BitBoard(long own, long opponent, Color playerTurn) {
+        this.own = own;
+        this.opponent = opponent;
+        this.playerTurn = playerTurn == Color.BLACK ? Color.BLACK : Color.WHITE;
+        this.hash = Zobrist.hash(getBlack(), getWhite(), this.playerTurn);
+    }
+
+    /**
+     * Reads a position written by {@link #toString()}: 64 characters in bit index order, X for a Black Disc, O for a
+     * White Disc and - or . for an empty square, followed by whitespace and X or O for the player to move.
+     * @param text the position to read
+     * @return a BitBoard holding the position
+     * @throws IllegalArgumentException if the text is not in this format
+     */
+    public static BitBoard parse(String text) {
+        String trimmed = text.trim();
+        if (trimmed.length() < 66 || !Character.isWhitespace(trimmed.charAt(64)))
+            throw new IllegalArgumentException("expected 64 squares and the player to move: " + text);
+        long black = 0;
+        long white = 0;
+        for (int square = 0; square < 64; square++) {
+            char c = Character.toUpperCase(trimmed.charAt(square));
+            if (c == 'X') {
+                black |= 1L << square;
+            } else if (c == 'O') {
+                white |= 1L << square;
+            } else if (c != '-' && c != '.') {
+                throw new IllegalArgumentException("unexpected square '" + c + "' in " + text);
+            }
+        }
+        char side = Character.toUpperCase(trimmed.substring(64).trim().charAt(0));
+        if (side != 'X' && side != 'O')
+            throw new IllegalArgumentException("unexpected player to move '" + side + "' in " + text);
+        return side == 'X' ? new BitBoard(black, white, Color.BLACK) : new BitBoard(white, black, Color.WHITE);
+    }
+
+    /**
+     * @param x the first index of the tile
+     * @param y the second index of the tile
+     * @return the bit index of the tile at (x, y)
+     */
+    public static int square(int x, int y) {
+        return x * 8 + y;
+    }
+
+    /**
+     * @param coordinate the tile
+     * @return the bit index of the tile at the given coordinate
+     */
+    public static int square(Coordinate coordinate) {
+        return square(coordinate.x, coordinate.y);
+    }
+
+    /**
+     * Names a square in the usual game notation: a column letter from a to h for y and a row number from 1 to 8 for x,
+     * so the start position has Black Discs on e4 and d5.
+     * @param square a bit index between 0 and 63
+     * @return the name of the square, such as "f5"
+     */
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+
+    /**
+     * Reads a square name written by {@link #squareName(int)}. Upper case column letters are accepted as well.
+     * @param name the name of the square, such as "f5" or "F5"
+     * @return the bit index of the square
+     * @throws IllegalArgumentException if the name is not a square of the board
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2)
+            throw new IllegalArgumentException("expected a square such as f5: " + name);
+        int y = Character.toLowerCase(name.charAt(0)) - 'a';
+        int x = name.charAt(1) - '1';
+        if (x < 0 || x > 7 || y < 0 || y > 7)
+            throw new IllegalArgumentException("expected a square such as f5: " + name);
+        return square(x, y);
+    }
+
+    /**
+     * @return the Discs of the player whose turn it is
+     */
+    public long getOwn() {
+        return own;
+    }
+
+    /**
+     * @return the Discs of the player who is not to move
+     */
+    public long getOpponent() {
+        return opponent;
+    }
+
+    /**
+     * @return the Black Discs on the board
+     */
+    public long getBlack() {
+        return playerTurn == Color.BLACK ? own : opponent;
+    }
+
+    /**
+     * @return the White Discs on the board
+     */
+    public long getWhite() {
+        return playerTurn == Color.BLACK ? opponent : own;
+    }
+
+    /**
+     * @return A Color, either black or white depending on whose turn it is
+     * @see #playerTurn
+     */
+    public Color getPlayerTurn() {
+        return playerTurn;
+    }
+
+    /**
+     * @return the Zobrist hash of the position and the player to move
+     * @see Zobrist
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return a mask of every square at which the player to move can legally place a Disc
+     * @see #generateMoves(long, long)
+     */
+    public long getPlayableMask() {
+        return generateMoves(own, opponent);
+    }
+
+    /**
+     * Calculates which positions on the board can be played based on whose turn it currently is.
+     * @return an arrayList of coordinates at which it is legal to place a Disc
+     * @see Board#getPlayableTiles()
+     */
+    public ArrayList<Coordinate> getPlayableTiles() {
+        ArrayList<Coordinate> coordinates = new ArrayList<>();
+        for (long moves = getPlayableMask(); moves != 0; moves &= moves - 1) {
+            coordinates.add(Coordinate.of(Long.numberOfTrailingZeros(moves)));
+        }
+        return coordinates;
+    }
+
+    /**
+     * Places a Disc for the player to move, flips every Disc it outflanks and then switches the turn.
+     * @param coordinate the location a Disc is to be placed at
+     * @see Board#placeDisc(Coordinate)
+     * @see #makeMove(int)
+     */
+    public void placeDisc(Coordinate coordinate) {
+        makeMove(square(coordinate));
+    }
+
+    /**
+     * Places a Disc for the player to move at the given square, flips every Disc it outflanks and switches the
+     * turn.<p></p>
+     * The returned mask together with the square is everything {@link #undoMove(int, long)} needs to restore the
+     * previous position, so a search can walk the game tree on a single BitBoard without copying or allocating.
+     * The square is expected to be a legal move; an illegal one places a lone Disc and returns 0.
+     * @param square the bit index the Disc is placed at
+     * @return a mask of the Discs that were flipped
+     * @see #undoMove(int, long)
+     */
+    public long makeMove(int square) {
+        long flips = computeFlips(own, opponent, square);
+        long newOwn = own | flips | (1L << square);
+        own = opponent & ~flips;
+        opponent = newOwn;
+        hash ^= Zobrist.disc(playerTurn, square) ^ flipKeys(flips);
+        switchTurn();
+        return flips;
+    }
+
+    /**
+     * Takes back a move made with {@link #makeMove(int)}, restoring both masks and the player turn exactly. Moves
+     * must be undone in the reverse order they were made.
+     * @param square the bit index the Disc was placed at
+     * @param flips the mask returned by makeMove for that move
+     * @see #makeMove(int)
+     */
+    public void undoMove(int square, long flips) {
+        long mover = opponent & ~(flips | (1L << square));
+        opponent = own | flips;
+        own = mover;
+        switchTurn();
+        hash ^= Zobrist.disc(playerTurn, square) ^ flipKeys(flips);
+    }
+
+    /**
+     * Passes the turn to the other player without placing a Disc. Used when the player to move has no playable
+     * tiles. Calling it a second time undoes the pass.
+     */
+    public void pass() {
+        long mover = own;
+        own = opponent;
+        opponent = mover;
+        switchTurn();
+    }
+
+    /**
+     * Switches whose turn it is. The turn alternates between black and white.
+     * @see #playerTurn
+     */
+    private void switchTurn() {
+        playerTurn = playerTurn == Color.BLACK ? Color.WHITE : Color.BLACK;
+        hash ^= Zobrist.SIDE;
+    }
+
+    /**
+     * @param flips a mask of Discs that change color
+     * @return the XOR of the flip keys of every square in the mask
+     * @see Zobrist#FLIP
+     */
+    private static long flipKeys(long flips) {
+        long keys = 0;
+        for (; flips != 0; flips &= flips - 1) {
+            keys ^= Zobrist.FLIP[Long.numberOfTrailingZeros(flips)];
+        }
+        return keys;
+    }
+
+    /**
+     * Counts the number of Black Discs and the number of White Discs on the board.
+     * @return an int array, the first element corresponding to the amount of Black Discs and the second to the number
+     * of White
+     * @see Board#getDiscCount()
+     */
+    public int[] getDiscCount() {
+        return new int[]{Long.bitCount(getBlack()), Long.bitCount(getWhite())};
+    }
+
+    /**
+     * Calculates the legal moves for the player owning {@code own}. Each of the eight directions is handled by
+     * growing runs of opponent Discs from the own Discs, two steps of one square and then two steps of two squares
+     * over pairs of opponent Discs, which covers the longest possible run of six, and keeping the empty squares that
+     * are reached.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @return a mask of the empty squares that flank at least one opponent Disc
+     */
+    public static long generateMoves(long own, long opponent) {
+        long empty = ~(own | opponent);
+        long inner = opponent & INNER_Y;
+        return movesUp(own, inner, empty, 1)
+                | movesDown(own, inner, empty, 1)
+                | movesUp(own, opponent, empty, 8)
+                | movesDown(own, opponent, empty, 8)
+                | movesUp(own, inner, empty, 7)
+                | movesDown(own, inner, empty, 7)
+                | movesUp(own, inner, empty, 9)
+                | movesDown(own, inner, empty, 9);
+    }
+
+    /**
+     * Calculates which opponent Discs are flipped when the player owning {@code own} places a Disc at
+     * {@code square}. The square is expected to be empty. If the move is illegal the result is 0.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @param square the bit index the Disc is placed at
+     * @return a mask of the opponent Discs that change color
+     */
+    public static long computeFlips(long own, long opponent, int square) {
+        long move = 1L << square;
+        long inner = opponent & INNER_Y;
+        return flipsUp(move, own, inner, 1)
+                | flipsDown(move, own, inner, 1)
+                | flipsUp(move, own, opponent, 8)
+                | flipsDown(move, own, opponent, 8)
+                | flipsUp(move, own, inner, 7)
+                | flipsDown(move, own, inner, 7)
+                | flipsUp(move, own, inner, 9)
+                | flipsDown(move, own, inner, 9);
+    }
+
+    /**
+     * Applies one of the 8 symmetries of the board to a mask. Symmetry bit 2 transposes x and y, then bit 1 flips x
+     * to 7 - x and bit 0 flips y to 7 - y, so symmetry 0 is the identity. The evaluation of a position and its best
+     * moves do not change under these symmetries.
+     * @param mask the squares to transform
+     * @param symmetry a number from 0 to SYMMETRIES - 1
+     * @return the transformed squares
+     * @see #transformSquare(int, int)
+     */
+    public static long transform(long mask, int symmetry) {
+        if ((symmetry & 4) != 0) {
+            long t = 0x0F0F0F0F00000000L & (mask ^ (mask << 28));
+            mask ^= t ^ (t >>> 28);
+            t = 0x3333000033330000L & (mask ^ (mask << 14));
+            mask ^= t ^ (t >>> 14);
+            t = 0x5500550055005500L & (mask ^ (mask << 7));
+            mask ^= t ^ (t >>> 7);
+        }
+        if ((symmetry & 2) != 0)
+            mask = Long.reverseBytes(mask);
+        if ((symmetry & 1) != 0) {
+            mask = ((mask >>> 1) & 0x5555555555555555L) | ((mask & 0x5555555555555555L) << 1);
+            mask = ((mask >>> 2) & 0x3333333333333333L) | ((mask & 0x3333333333333333L) << 2);
+            mask = ((mask >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((mask & 0x0F0F0F0F0F0F0F0FL) << 4);
+        }
+        return mask;
+    }
+
+    /**
+     * Applies one of the 8 symmetries of the board to a single square.
+     * @param square the bit index to transform
+     * @param symmetry a number from 0 to SYMMETRIES - 1
+     * @return the transformed bit index
+     * @see #transform(long, int)
+     */
+    public static int transformSquare(int square, int symmetry) {
+        int x = square >>> 3;
+        int y = square & 7;
+        if ((symmetry & 4) != 0) {
+            int swap = x;
+            x = y;
+            y = swap;
+        }
+        if ((symmetry & 2) != 0)
+            x = 7 - x;
+        if ((symmetry & 1) != 0)
+            y = 7 - y;
+        return square(x, y);
+    }
+
+    /**
+     * Finds moves in a direction that increases the bit index by {@code shift}.
+     * @param own the Discs of the player to move
+     * @param opponent the opponent Discs that may be flanked in this direction
+     * @param empty the empty squares
+     * @param shift the distance between neighbouring squares in this direction
+     * @return the empty squares reached after at least one opponent Disc
+     */
+    private static long movesUp(long own, long opponent, long empty, int shift) {
+        long run = (own << shift) & opponent;
+        run |= (run << shift) & opponent;
+        long pairs = opponent & (opponent << shift);
+        run |= (run << 2 * shift) & pairs;
+        run |= (run << 2 * shift) & pairs;
+        return (run << shift) & empty;
+    }
+
+    /**
+     * Finds moves in a direction that decreases the bit index by {@code shift}.
+     * @see #movesUp(long, long, long, int)
+     */
+    private static long movesDown(long own, long opponent, long empty, int shift) {
+        long run = (own >>> shift) & opponent;
+        run |= (run >>> shift) & opponent;
+        long pairs = opponent & (opponent >>> shift);
+        run |= (run >>> 2 * shift) & pairs;
+        run |= (run >>> 2 * shift) & pairs;
+        return (run >>> shift) & empty;
+    }
+
+    /**
+     * Finds the Discs flipped in a direction that increases the bit index by {@code shift}. The run of opponent
+     * Discs next to the move is kept only if it ends on an own Disc, which is done with a sign mask instead of a
+     * branch.
+     * @param move the mask of the placed Disc
+     * @param own the Discs of the player to move
+     * @param opponent the opponent Discs that may be flanked in this direction
+     * @param shift the distance between neighbouring squares in this direction
+     * @return the flipped Discs in this direction
+     */
+    private static long flipsUp(long move, long own, long opponent, int shift) {
+        long run = (move << shift) & opponent;
+        run |= (run << shift) & opponent;
+        run |= (run << shift) & opponent;
+        run |= (run << shift) & opponent;
+        run |= (run << shift) & opponent;
+        run |= (run << shift) & opponent;
+        long bound = (run << shift) & own;
+        return run & ((bound | -bound) >> 63);
+    }
+
+    /**
+     * Finds the Discs flipped in a direction that decreases the bit index by {@code shift}.
+     * @see #flipsUp(long, long, long, int)
+     */
+    private static long flipsDown(long move, long own, long opponent, int shift) {
+        long run = (move >>> shift) & opponent;
+        run |= (run >>> shift) & opponent;
+        run |= (run >>> shift) & opponent;
+        run |= (run >>> shift) & opponent;
+        run |= (run >>> shift) & opponent;
+        run |= (run >>> shift) & opponent;
+        long bound = (run >>> shift) & own;
+        return run & ((bound | -bound) >> 63);
+    }
+
+    /**
+     * @return the position as 64 characters in bit index order (X Black, O White, - empty), a space and the player
+     * to move
+     * @see #parse(String)
+     */
+    @Override
+    public String toString() {
+        long black = getBlack();
+        long white = getWhite();
+        StringBuilder text = new StringBuilder(66);
+        for (int square = 0; square < 64; square++) {
+            long bit = 1L << square;
+            text.append((black & bit) != 0 ? 'X' : (white & bit) != 0 ? 'O' : '-');
+        }
+        return text.append(' ').append(playerTurn == Color.BLACK ? 'X' : 'O').toString();
+    }
+}
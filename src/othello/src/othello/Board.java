@@ -6,8 +6,12 @@ import java.util.ArrayList;
 /**
  * Board is the logical representation of a game of Othello. A Board object is characterized by an 8x8 grid where Discs
  * can be placed. When a Disc is played onto the board, the board updates and switches other Discs on the board as per
- * the rules of Othello. The board class keeps track of player turn and alternates it each time a Disc is placed.
+ * the rules of Othello. The board class keeps track of player turn and alternates it each time a Disc is placed.<p></p>
+ * Variant games can be played on any even size from 4x4 to 16x16 with {@link #Board(int)}. Such boards keep their
+ * Discs in a {@link WideBitBoard} instead of two longs, so the methods that return a single 64-bit mask are only
+ * available on 8x8 boards; the overloads taking a {@code long[]} work for every size.
  * @see Disc
+ * @see WideBitBoard
  */
 public class Board {
 
@@ -17,6 +21,22 @@ public class Board {
      */
     private Disc[][] tiles;
 
+    /**
+     * The number of rows and columns of the grid.
+     */
+    private final int size;
+
+    /**
+     * The Discs of a board that is not 8x8, or null for an 8x8 board, which uses the black and white masks.
+     * @see #Board(int)
+     */
+    private final WideBitBoard wide;
+
+    /**
+     * The Discs flipped by the last move, as bits x * size + y, handed to the listeners.
+     */
+    private final long[] moveFlips;
+
     /**
      * Keeps track of whose turn it is. The playerTurn variable can either be Black or White.
      * Each time a new Disc is placed the playerTurn will alternate.
@@ -25,6 +45,27 @@ public class Board {
      */
     private Color playerTurn;
 
+    /**
+     * The squares holding Black and White Discs, as bit x * 8 + y for tile (x, y). They are kept in step with the
+     * tiles array by placeDisc, so move generation and flipping do not have to read the grid.
+     * @see BitBoard#square(int, int)
+     */
+    private long black;
+    private long white;
+
+    /**
+     * The number of Black and White Discs, kept up to date by placeDisc.
+     * @see #placeDisc(Coordinate)
+     */
+    private int blackCount;
+    private int whiteCount;
+
+    /**
+     * The observers told about every placed Disc.
+     * @see BoardListener
+     */
+    private final ArrayList<BoardListener> listeners = new ArrayList<>();
+
     /**
      * Constructor for the Board Class. Calls the initTiles method to instantiate the tiles object. Sets the starting
      * player to Black
@@ -33,32 +74,88 @@ public class Board {
      * @see #playerTurn
      */
     public Board() {
-        this.tiles = initTiles();
+        this(8);
+    }
+
+    /**
+     * Creates the starting position of a game on a board of the given size, with the four starting Discs on the
+     * centre squares and Black to move.
+     * @param size the number of rows and columns, even and between {@link WideBitBoard#MIN_SIZE} and
+     *             {@link WideBitBoard#MAX_SIZE}
+     * @throws IllegalArgumentException if the size is not supported
+     */
+    public Board(int size) {
+        this.wide = size == 8 ? null : new WideBitBoard(size);
+        this.moveFlips = new long[WideBitBoard.words(size)];
+        this.size = size;
+        this.tiles = initTiles(size);
         this.playerTurn = Color.BLACK;
+        if (size == 8) {
+            this.black = 1L << BitBoard.square(4, 3) | 1L << BitBoard.square(3, 4);
+            this.white = 1L << BitBoard.square(3, 3) | 1L << BitBoard.square(4, 4);
+        }
+        this.blackCount = 2;
+        this.whiteCount = 2;
+    }
+
+    /**
+     * Creates a Board holding the given position, for example one rebuilt from a {@link GameRecord}.
+     * @param black the squares holding Black Discs, as bit x * 8 + y for tile (x, y)
+     * @param white the squares holding White Discs
+     * @param playerTurn the player to move, either Color.BLACK or Color.WHITE
+     * @see BitBoard#square(int, int)
+     */
+    public Board(long black, long white, Color playerTurn) {
+        if ((black & white) != 0)
+            throw new IllegalArgumentException("a square cannot hold a Black and a White Disc");
+        this.size = 8;
+        this.wide = null;
+        this.moveFlips = new long[1];
+        this.tiles = new Disc[8][8];
+        for (long discs = black | white; discs != 0; discs &= discs - 1) {
+            int square = Long.numberOfTrailingZeros(discs);
+            tiles[square >>> 3][square & 7] = new Disc((black & (1L << square)) != 0 ? Color.BLACK : Color.WHITE);
+        }
+        this.playerTurn = playerTurn == Color.BLACK ? Color.BLACK : Color.WHITE;
+        this.black = black;
+        this.white = white;
+        this.blackCount = Long.bitCount(black);
+        this.whiteCount = Long.bitCount(white);
     }
 
     /**
      * Sets the board to its starting state. <p></p>
-     * This method creates an 8x8 grid, using a 2d othello.Disc array, and fills the center 4 positions/tiles with Discs of
-     * alternating colors (White, Black) such that each color is diagonal to itself. E.g. WB/BW.
-     * The pattern starts at (3,3) with white.
+     * This method creates a size x size grid, using a 2d othello.Disc array, and fills the center 4 positions/tiles
+     * with Discs of alternating colors (White, Black) such that each color is diagonal to itself. E.g. WB/BW.
+     * On an 8x8 board the pattern starts at (3,3) with white.
      * Used for the instantiation of the tiles object in the Board constructor.
-     * @return 2d Disc array of size 8x8 with the center four tiles filled with Discs of alternating colors
+     * @param size the number of rows and columns
+     * @return 2d Disc array of the given size with the center four tiles filled with Discs of alternating colors
      * @see #tiles
-     * @see #Board()
+     * @see #Board(int)
      * @see Disc
      */
-    private Disc[][] initTiles() {
-        Disc[][] tiles = new Disc[8][8];
-        tiles[3][3] = new Disc(Color.WHITE);
-        tiles[4][3] = new Disc(Color.BLACK);
-        tiles[3][4] = new Disc(Color.BLACK);
-        tiles[4][4] = new Disc(Color.WHITE);
+    private Disc[][] initTiles(int size) {
+        Disc[][] tiles = new Disc[size][size];
+        int centre = size / 2;
+        tiles[centre - 1][centre - 1] = new Disc(Color.WHITE);
+        tiles[centre][centre - 1] = new Disc(Color.BLACK);
+        tiles[centre - 1][centre] = new Disc(Color.BLACK);
+        tiles[centre][centre] = new Disc(Color.WHITE);
         return tiles;
     }
 
     /**
-     * @return 2d Disc array (8x8)
+     * @return the number of rows and columns of the grid
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * The array and its Discs are the live state of this board and change with every move. Use
+     * {@link Position#of(Board)} for a snapshot that can be shared with other threads.
+     * @return 2d Disc array (size x size)
      * @see #tiles
      */
     public Disc[][] getTiles() {
@@ -76,168 +173,88 @@ public class Board {
     /**
      * Calculates which positions on the board can be played based on whose turn it currently is.
      * A tile is playable if it can create a straight line between it and an already played Disc
-     * with at least one Disc of the opposite color in that line.
-     * @return an arrayList of coordinates at which it is legal to place a Disc
-     * @see Coordinate
+     * with at least one Disc of the opposite color in that line.<p></p>
+     * The moves are generated by {@link BitBoard} from the Disc masks this board keeps, so this method neither reads
+     * the grid nor allocates. Calls are counted by {@link EngineMetrics} only when it is enabled.
+     * @return a mask with bit x * 8 + y set for every playable tile (x, y)
+     * @throws IllegalStateException if the board is not 8x8
+     * @see BitBoard#generateMoves(long, long)
+     * @see #getPlayableMask(long[])
      * @see #playerTurn
      */
+    public long getPlayableMask() {
+        if (EngineMetrics.ENABLED)
+            EngineMetrics.countMoveGeneration();
+        if (wide != null)
+            throw new IllegalStateException("a 64-bit mask cannot hold a " + size + "x" + size + " board");
+        return playerTurn == Color.BLACK ? BitBoard.generateMoves(black, white) : BitBoard.generateMoves(white, black);
+    }
+
+    /**
+     * Calculates the playable tiles on a board of any size.
+     * @param bits receives a bit x * size + y for every playable tile (x, y); at least
+     *             {@link WideBitBoard#words(int)} longs
+     * @return the number of playable tiles
+     * @see #getPlayableMask()
+     */
+    public int getPlayableMask(long[] bits) {
+        if (wide != null)
+            return wide.generateMoves(bits);
+        bits[0] = getPlayableMask();
+        return Long.bitCount(bits[0]);
+    }
+
+    /**
+     * @return whether the player to move has a playable tile, on a board of any size
+     */
+    public boolean hasPlayableTile() {
+        return wide != null ? wide.hasMoves() : getPlayableMask() != 0;
+    }
+
+    /**
+     * Writes the bit index of every playable tile into a caller-supplied buffer, lowest first, without allocating
+     * on an 8x8 board.
+     * @param squares a buffer of at least size * size ints that receives the playable tiles
+     * @return the number of playable tiles written to the buffer
+     * @see #getPlayableMask()
+     */
+    public int getPlayableTiles(int[] squares) {
+        int count = 0;
+        if (wide != null) {
+            long[] moves = new long[WideBitBoard.words(size)];
+            wide.generateMoves(moves);
+            for (int square = WideBitBoard.next(moves, 0); square >= 0; square = WideBitBoard.next(moves, square + 1))
+                squares[count++] = square;
+            return count;
+        }
+        for (long moves = getPlayableMask(); moves != 0; moves &= moves - 1) {
+            squares[count++] = Long.numberOfTrailingZeros(moves);
+        }
+        return count;
+    }
+
+    /**
+     * Calculates which positions on the board can be played based on whose turn it currently is.
+     * Each playable tile is listed once, as its shared Coordinate.
+     * @return an arrayList of coordinates at which it is legal to place a Disc
+     * @see Coordinate#of(int)
+     * @see #getPlayableMask()
+     */
     public ArrayList<Coordinate> getPlayableTiles() {
-        ArrayList<Coordinate> coordinates = new ArrayList<>();
-
-        for (int x = 0; x < tiles.length; x++) {
-            for (int y = 0; y < tiles[x].length; y++) {
-                if (tiles[x][y] == null)
-                    continue;
-                if (tiles[x][y].getColor().equals(playerTurn)) {
-
-                    //Checks to the right
-                    try {
-                        if (tiles[x + 1][y] != null
-                                && !tiles[x][y].equals(tiles[x + 1][y])) {
-                            for (int i = x + 2; i < tiles[0].length; i++) {
-                                if (tiles[i][y] == null) {
-                                    coordinates.add(new Coordinate(i, y));
-                                    break;
-                                }
-                                if (tiles[i][y].equals(tiles[x][y])){
-                                    break;
-                                }
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-
-                    //Checks diagonally up and right
-                    try {
-                        if (tiles[x + 1][y - 1] != null
-                                && !tiles[x][y].equals(tiles[x + 1][y - 1])) {
-                            int j = y - 2;
-                            for (int i = x + 2; i < tiles[0].length && j >= 0; i++) {
-                                if (tiles[i][j] == null) {
-                                    coordinates.add(new Coordinate(i, j));
-                                    break;
-                                }
-                                if (tiles[i][j].equals(tiles[x][y])){
-                                    break;
-                                }
-                                j--;
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-
-                    //Checks upwards
-                    try {
-                        if (tiles[x][y - 1] != null
-                                && !tiles[x][y].equals(tiles[x][y - 1])) {
-                            for (int i = y - 2; i >= 0; i--) {
-                                if (tiles[x][i] == null) {
-                                    coordinates.add(new Coordinate(x, i));
-                                    break;
-                                }
-                                if (tiles[x][i].equals(tiles[x][y])){
-                                    break;
-                                }
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-
-                    //Checks diagonally up and left
-                    try {
-                        if (tiles[x - 1][y - 1] != null
-                                && !tiles[x][y].equals(tiles[x - 1][y - 1])) {
-                            int j = y - 2;
-                            for (int i = x - 2; i >= 0 && j >= 0; i--) {
-                                if (tiles[i][j] == null) {
-                                    coordinates.add(new Coordinate(i,j));
-                                    break;
-                                }
-                                if (tiles[i][j].equals(tiles[x][y])){
-                                    break;
-                                }
-                                j--;
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-
-                    //Checks to the left
-                    try {
-                        if (tiles[x - 1][y] != null
-                                && !tiles[x][y].equals(tiles[x - 1][y])) {
-                            for (int i = x - 2; i >= 0; i--) {
-                                if (tiles[i][y] == null) {
-                                    coordinates.add(new Coordinate(i, y));
-                                    break;
-                                }
-                                if (tiles[i][y].equals(tiles[x][y])){
-                                    break;
-                                }
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-
-                    //Checks diagonally down and left
-                    try {
-                        if (tiles[x - 1][y + 1] != null
-                                && !tiles[x][y].equals(tiles[x - 1][y + 1])) {
-                            int j = y + 2;
-                            for (int i = x - 2; i >= 0 && j < tiles[1].length; i--) {
-                                if (tiles[i][j] == null) {
-                                    coordinates.add(new Coordinate(i,j));
-                                    break;
-                                }
-                                if (tiles[i][j].equals(tiles[x][y])){
-                                    break;
-                                }
-                                j++;
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-
-                    //Checks downwards
-                    try {
-                        if (tiles[x][y + 1] != null
-                                && !tiles[x][y].equals(tiles[x][y + 1])) {
-                            for (int i = y + 2; i < tiles[1].length; i++) {
-                                if (tiles[x][i] == null) {
-                                    coordinates.add(new Coordinate(x, i));
-                                    break;
-                                }
-                                if (tiles[x][i].equals(tiles[x][y])){
-                                    break;
-                                }
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-
-                    //Checks diagonally down and to the right
-                    try {
-                        if (tiles[x + 1][y + 1] != null
-                                && !tiles[x][y].equals(tiles[x + 1][y + 1])) {
-                            int j = y + 2;
-                            for (int i = x + 2; i < tiles[0].length
-                                    && j < tiles[1].length; i++) {
-                                if (tiles[i][j] == null) {
-                                    coordinates.add(new Coordinate(i, j));
-                                    break;
-                                }
-                                if (tiles[i][j].equals(tiles[x][y])){
-                                    break;
-                                }
-                                j++;
-                            }
-                        }
-                    } catch (ArrayIndexOutOfBoundsException ignored) {
-                    }
-                }
+        if (wide != null) {
+            int[] squares = new int[size * size];
+            int count = getPlayableTiles(squares);
+            ArrayList<Coordinate> coordinates = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                coordinates.add(Coordinate.of(squares[i] / size, squares[i] % size));
             }
+            return coordinates;
+        }
+        long moves = getPlayableMask();
+        ArrayList<Coordinate> coordinates = new ArrayList<>(Long.bitCount(moves));
+        for (; moves != 0; moves &= moves - 1) {
+            coordinates.add(Coordinate.of(Long.numberOfTrailingZeros(moves)));
         }
-
         return coordinates;
     }
 
@@ -262,212 +279,234 @@ public class Board {
      * the turn.<p></p>
      * Creates a new othello.Disc whose color is determined by the playerTurn object in the tiles array at the position
      * specified by the x and y values of the coordinate parameter.
-     * Then searches in 8 directions to find a line between the placed Disc and another Disc of the same color, if a
-     * compatible line if found then all Discs in that line (excluding the start and end positions) are flipped.
-     * Then calls the switchTurn method.
+     * The Discs to flip are those in a line between the placed Disc and another Disc of the same color, in any of the
+     * 8 directions. They are looked up in {@link FlipTables} from the masks this board keeps, and only those Discs are
+     * touched. The disc counts are adjusted by the number of flips, and every
+     * {@link BoardListener} is told about the move before this method returns.
+     * Then calls the switchTurn method.<p></p>
+     * On a board that is not 8x8 the flips come from {@link WideBitBoard#makeMove(int, long[])} instead, and the
+     * square must be empty.
      * @param coordinate the location a Disc is to be placed at
+     * @throws IllegalArgumentException if the board is not 8x8 and the tile already holds a Disc
      * @see Disc
      * @see #tiles
      * @see #switchTurn()
      */
     public void placeDisc(Coordinate coordinate) {
-        Disc placedDisc = new Disc(playerTurn);
-        tiles[coordinate.x][coordinate.y] = placedDisc;
-
-        //Checks to the right
-        try {
-            if (tiles[coordinate.x + 1][coordinate.y] != null
-                    && !placedDisc.equals(tiles[coordinate.x + 1][coordinate.y])) {
-                for (int i = coordinate.x + 2; i < tiles[0].length - 1; i++) {
-                    if (tiles[i][coordinate.y] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[i][coordinate.y])) {
-                        for (int j = coordinate.x + 1; j < i; j++) {
-                            tiles[j][coordinate.y].switchColor();
-                        }
-                        break;
-                    }
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
+        if (wide != null) {
+            placeWideDisc(coordinate);
+            return;
         }
-
-        //Checks diagonally up and right
-        try {
-            if (tiles[coordinate.x + 1][coordinate.y - 1] != null
-                    && !placedDisc.equals(tiles[coordinate.x + 1][coordinate.y - 1])) {
-                int j = coordinate.y - 2;
-                for (int i = coordinate.x + 2; i < tiles[0].length - 1 && j >= 0; i++) {
-                    if (tiles[i][j] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[i][j])) {
-                        int h = coordinate.y - 1;
-                        for (int k = coordinate.x + 1; k < i; k++) {
-                            tiles[k][h].switchColor();
-                            h--;
-                        }
-                        break;
-                    }
-                    j--;
-                }
+        int square = BitBoard.square(coordinate);
+        long placed = 1L << square;
+        if (tiles[coordinate.x][coordinate.y] != null) {
+            if ((black & placed) != 0) {
+                blackCount--;
+            } else {
+                whiteCount--;
             }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
+            black &= ~placed;
+            white &= ~placed;
+        }
+        tiles[coordinate.x][coordinate.y] = new Disc(playerTurn);
+
+        boolean blackMoved = playerTurn == Color.BLACK;
+        long flipped = blackMoved ? FlipTables.computeFlips(black, white, square)
+                : FlipTables.computeFlips(white, black, square);
+        for (long flips = flipped; flips != 0; flips &= flips - 1) {
+            int flip = Long.numberOfTrailingZeros(flips);
+            tiles[flip >>> 3][flip & 7].switchColor();
         }
 
-        //Checks upwards
-        try {
-            if (tiles[coordinate.x][coordinate.y - 1] != null
-                    && !placedDisc.equals(tiles[coordinate.x][coordinate.y - 1])) {
-                for (int i = coordinate.y - 2; i >= 0; i--) {
-                    if (tiles[coordinate.x][i] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[coordinate.x][i])) {
-                        for (int j = coordinate.y - 1; j > i; j--) {
-                            tiles[coordinate.x][j].switchColor();
-                        }
-                        break;
-                    }
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
+        int flipCount = Long.bitCount(flipped);
+        if (blackMoved) {
+            black |= placed | flipped;
+            white &= ~flipped;
+            blackCount += 1 + flipCount;
+            whiteCount -= flipCount;
+        } else {
+            white |= placed | flipped;
+            black &= ~flipped;
+            whiteCount += 1 + flipCount;
+            blackCount -= flipCount;
         }
 
-        //Checks diagonally up and left
-        try {
-            if (tiles[coordinate.x - 1][coordinate.y - 1] != null
-                    && !placedDisc.equals(tiles[coordinate.x - 1][coordinate.y - 1])) {
-                int j = coordinate.y - 2;
-                for (int i = coordinate.x - 2; i >= 0 && j >= 0; i--) {
-                    if (tiles[i][j] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[i][j])) {
-                        int h = coordinate.y - 1;
-                        for (int k = coordinate.x - 1; k > i; k--) {
-                            tiles[k][h].switchColor();
-                            h--;
-                        }
-                        break;
-                    }
-                    j--;
-                }
+        switchTurn();
+        if (!listeners.isEmpty()) {
+            moveFlips[0] = flipped;
+            for (BoardListener listener : listeners) {
+                listener.discPlaced(this, square, moveFlips, blackCount, whiteCount);
             }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
         }
+    }
 
-        //Checks to the left
-        try {
-            if (tiles[coordinate.x - 1][coordinate.y] != null
-                    && !placedDisc.equals(tiles[coordinate.x - 1][coordinate.y])) {
-                for (int i = coordinate.x - 2; i >= 0; i--) {
-                    if (tiles[i][coordinate.y] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[i][coordinate.y])) {
-                        for (int j = coordinate.x - 1; j > i; j--) {
-                            tiles[j][coordinate.y].switchColor();
-                        }
-                        break;
-                    }
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
+    /**
+     * The {@link #placeDisc(Coordinate)} of boards that are not 8x8. Unlike an 8x8 board, which replaces a Disc
+     * already on the tile, a WideBitBoard cannot hold two Discs on one square, so an occupied tile is refused.
+     */
+    private void placeWideDisc(Coordinate coordinate) {
+        if (tiles[coordinate.x][coordinate.y] != null)
+            throw new IllegalArgumentException("tile (" + coordinate.x + ", " + coordinate.y
+                    + ") already holds a Disc");
+        int square = wide.square(coordinate.x, coordinate.y);
+        wide.makeMove(square, moveFlips);
+        tiles[coordinate.x][coordinate.y] = new Disc(playerTurn);
+        for (int flip = WideBitBoard.next(moveFlips, 0); flip >= 0; flip = WideBitBoard.next(moveFlips, flip + 1)) {
+            tiles[flip / size][flip % size].switchColor();
         }
+        blackCount = wide.getBlackCount();
+        whiteCount = wide.getWhiteCount();
 
-        //Checks diagonally down and left
-        try {
-            if (tiles[coordinate.x - 1][coordinate.y + 1] != null
-                    && !placedDisc.equals(tiles[coordinate.x - 1][coordinate.y + 1])) {
-                int j = coordinate.y + 2;
-                for (int i = coordinate.x - 2; i >= 0 && j < tiles[1].length - 1; i--) {
-                    if (tiles[i][j] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[i][j])) {
-                        int h = coordinate.y + 1;
-                        for (int k = coordinate.x - 1; k > i; k--) {
-                            tiles[k][h].switchColor();
-                            h++;
-                        }
-                        break;
-                    }
-                    j++;
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
+        switchTurn();
+        for (BoardListener listener : listeners) {
+            listener.discPlaced(this, square, moveFlips, blackCount, whiteCount);
         }
+    }
 
-        //Checks downwards
-        try {
-            if (tiles[coordinate.x][coordinate.y + 1] != null
-                    && !placedDisc.equals(tiles[coordinate.x][coordinate.y + 1])) {
-                for (int i = coordinate.y + 2; i < tiles[1].length -  1; i++) {
-                    if (tiles[coordinate.x][i] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[coordinate.x][i])) {
-                        for (int j = coordinate.y + 1; j < i; j++) {
-                            tiles[coordinate.x][j].switchColor();
-                        }
-                        break;
-                    }
-                }
+    /**
+     * Sets this board to the position of another 8x8 board, for benchmarks that replay moves on the same Boards.
+     * Only the tiles whose Disc differs are touched, so restoring a board after one move costs about as much as the
+     * move. Listeners are not told.
+     * @param source the board to copy, which is not changed
+     * @throws IllegalStateException if either board is not 8x8
+     */
+    void copyPosition(Board source) {
+        if (wide != null || source.wide != null)
+            throw new IllegalStateException("only 8x8 boards can copy a position");
+        for (long changed = (black ^ source.black) | (white ^ source.white); changed != 0; changed &= changed - 1) {
+            int square = Long.numberOfTrailingZeros(changed);
+            Disc disc = tiles[square >>> 3][square & 7];
+            Disc sourceDisc = source.tiles[square >>> 3][square & 7];
+            if (sourceDisc == null) {
+                tiles[square >>> 3][square & 7] = null;
+            } else if (disc == null) {
+                tiles[square >>> 3][square & 7] = new Disc(sourceDisc.getColor());
+            } else {
+                disc.switchColor();
             }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
         }
+        black = source.black;
+        white = source.white;
+        blackCount = source.blackCount;
+        whiteCount = source.whiteCount;
+        playerTurn = source.playerTurn;
+    }
 
-        //Checks diagonally down and to the right
-        try {
-            if (tiles[coordinate.x + 1][coordinate.y + 1] != null
-                    && !placedDisc.equals(tiles[coordinate.x + 1][coordinate.y + 1])) {
-                int j = coordinate.y + 2;
-                for (int i = coordinate.x + 2; i < tiles[0].length - 1
-                        && j < tiles[1].length - 1; i++) {
-                    if (tiles[i][j] == null) {
-                        break;
-                    }
-                    if (placedDisc.equals(tiles[i][j])) {
-                        int h = coordinate.y + 1;
-                        for (int k = coordinate.x + 1; k < i; k++) {
-                            tiles[k][h].switchColor();
-                            h++;
-                        }
-                        break;
-                    }
-                    j++;
-                }
-            }
-        } catch (ArrayIndexOutOfBoundsException ignored) {
+    /**
+     * Passes the turn to the other player, which the rules allow only when the player to move has no playable tile.
+     * Listeners are not told, since no Disc changes.
+     * @throws IllegalStateException if the player to move has a playable tile
+     * @see #switchTurn()
+     */
+    public void pass() {
+        if (hasPlayableTile())
+            throw new IllegalStateException("cannot pass while a tile is playable");
+        if (wide != null)
+            wide.pass();
+        switchTurn();
+    }
+
+    /**
+     * @return whether neither player has a playable tile
+     */
+    public boolean isGameOver() {
+        if (wide != null) {
+            if (wide.hasMoves())
+                return false;
+            wide.pass();
+            boolean over = !wide.hasMoves();
+            wide.pass();
+            return over;
         }
+        return BitBoard.generateMoves(black, white) == 0 && BitBoard.generateMoves(white, black) == 0;
+    }
 
+    /**
+     * @return the number of Black Discs on the board, kept up to date by placeDisc
+     * @see #placeDisc(Coordinate)
+     */
+    public int getBlackCount() {
+        return blackCount;
+    }
 
-        switchTurn();
+    /**
+     * @return the number of White Discs on the board, kept up to date by placeDisc
+     * @see #placeDisc(Coordinate)
+     */
+    public int getWhiteCount() {
+        return whiteCount;
     }
 
     /**
-     * Counts the number of Black Discs and the number of White Discs on the board.
+     * @return a mask with bit x * 8 + y set for every Black Disc at (x, y)
+     * @throws IllegalStateException if the board is not 8x8
+     * @see BitBoard#square(int, int)
+     */
+    public long getBlack() {
+        if (wide != null)
+            throw new IllegalStateException("a 64-bit mask cannot hold a " + size + "x" + size + " board");
+        return black;
+    }
+
+    /**
+     * @return a mask with bit x * 8 + y set for every White Disc at (x, y)
+     * @throws IllegalStateException if the board is not 8x8
+     * @see BitBoard#square(int, int)
+     */
+    public long getWhite() {
+        if (wide != null)
+            throw new IllegalStateException("a 64-bit mask cannot hold a " + size + "x" + size + " board");
+        return white;
+    }
+
+    /**
+     * @param bits receives a bit x * size + y for every Black Disc at (x, y), on a board of any size; at least
+     *             {@link WideBitBoard#words(int)} longs
+     */
+    public void getBlack(long[] bits) {
+        if (wide != null) {
+            wide.getBlack(bits);
+        } else {
+            bits[0] = black;
+        }
+    }
+
+    /**
+     * @param bits receives a bit x * size + y for every White Disc at (x, y), on a board of any size; at least
+     *             {@link WideBitBoard#words(int)} longs
+     */
+    public void getWhite(long[] bits) {
+        if (wide != null) {
+            wide.getWhite(bits);
+        } else {
+            bits[0] = white;
+        }
+    }
+
+    /**
+     * Returns the number of Black Discs and the number of White Discs on the board. Kept for existing callers;
+     * {@link #getBlackCount()} and {@link #getWhiteCount()} return the same numbers without allocating.
      * @return an int array, the first element corresponding to the amount of Black Discs and the second to the number
      * of White
      */
     public int[] getDiscCount() {
-        int blackDiscs = 0;
-        int whiteDiscs = 0;
-
-        for (Disc[] innerArray : tiles) {
-            for (Disc el : innerArray) {
-                if (el != null) {
-                    if (el.getColor().equals(Color.BLACK)) {
-                        blackDiscs++;
-                    } else {
-                        whiteDiscs++;
-                    }
-                }
-            }
-        }
+        return new int[]{blackCount, whiteCount};
+    }
 
-        return new int[]{blackDiscs, whiteDiscs};
+    /**
+     * Registers a listener that is told about every Disc placed on this board from now on.
+     * @param listener the listener to add
+     * @see BoardListener
+     */
+    public void addBoardListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops telling a listener about placed Discs.
+     * @param listener the listener to remove
+     */
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
     }
 }
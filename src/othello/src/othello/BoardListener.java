@@ -0,0 +1,26 @@
+package othello;
+
+/**
+ * A BoardListener is told about every Disc placed on a {@link Board} it is registered with. It receives what the move
+ * changed instead of the whole grid, so a view or a logger can update only the affected squares and read the new
+ * disc counts without scanning the board.<p></p>
+ * Listeners are called on the thread that placed the Disc, after the Discs have been flipped and the turn has
+ * switched.
+ * @see Board#addBoardListener(BoardListener)
+ */
+public interface BoardListener {
+
+    /**
+     * Called after a Disc has been placed and the Discs it captured have been flipped.
+     * @param board the board the move was played on
+     * @param square the bit index x * size + y of the placed Disc, which is x * 8 + y on an 8x8 board
+     * @param flipped a bitset with bit x * size + y set for every Disc that changed color, in
+     *                {@link WideBitBoard#words(int)} longs; on an 8x8 board flipped[0] is the mask of flipped Discs.
+     *                The array belongs to the board and is only valid during the call
+     * @see WideBitBoard#next(long[], int)
+     * @param blackCount the number of Black Discs after the move
+     * @param whiteCount the number of White Discs after the move
+     * @see BitBoard#square(int, int)
+     */
+    void discPlaced(Board board, int square, long[] flipped, int blackCount, int whiteCount);
+}
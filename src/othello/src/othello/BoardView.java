@@ -0,0 +1,221 @@
+package othello;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.Consumer;
+
+/**
+ * BoardView is a single custom-painted component that draws a {@link Board}. It replaces a grid of 64 buttons.<p></p>
+ * The view remembers which Discs and playable-tile hints it last drew as three bitsets, one long on an 8x8 board
+ * and up to four on a 16x16 one. When the board reports a move it compares them with the board's Discs and repaints
+ * only the squares that changed: the placed Disc, the flipped Discs and the hints that appeared or disappeared.
+ * Swing merges these requests, so a fast stream of moves, such as two computer players at hundreds of moves per
+ * second, costs a few small repaints each and never rebuilds components.<p></p>
+ * The board is drawn as large as the component allows and kept square, with as many rows and columns as the board
+ * has. The disc images are scaled once per cell
+ * size and cached, so resizing the window only rescales them when the size actually changes.
+ * @see GUI
+ */
+public class BoardView extends JComponent {
+
+    private static final long serialVersionUID = -2876502337519403452L;
+
+    private static final Color BOARD_COLOR = new Color(65, 156, 124);
+    private static final Color LINE_COLOR = new Color(40, 110, 86);
+    private static final int GAP = 4;
+
+    private final Image[] discImages = {new ImageIcon("src/images/Black100.png").getImage(),
+            new ImageIcon("src/images/White100.png").getImage()};
+
+    /**
+     * The disc images scaled to the current cell size, and the size they were scaled to.
+     */
+    private final Image[] scaledImages = new Image[2];
+    private int scaledSize;
+
+    private Board board;
+    private int size;
+    private long[] paintedBlack;
+    private long[] paintedWhite;
+    private long[] paintedHints;
+
+    /**
+     * The board's current Discs and hints, read into reused arrays by {@link #update()}.
+     */
+    private long[] black;
+    private long[] white;
+    private long[] hints;
+    private Consumer<Coordinate> moveListener = coordinate -> {
+    };
+
+    /**
+     * Repaints the squares a move changed as soon as the board reports it.
+     */
+    private final BoardListener boardListener = (board, square, flipped, blackCount, whiteCount) -> update();
+
+    /**
+     * @param board the game to draw
+     */
+    public BoardView(Board board) {
+        setOpaque(true);
+        setPreferredSize(new Dimension(8 * 80, 8 * 80));
+        setBoard(board);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int cell = cellSize();
+                if (cell == 0)
+                    return;
+                int x = (e.getY() - originY()) / cell;
+                int y = (e.getX() - originX()) / cell;
+                if (e.getY() < originY() || e.getX() < originX() || x >= size || y >= size)
+                    return;
+                if (WideBitBoard.get(paintedHints, x * size + y))
+                    moveListener.accept(Coordinate.of(x, y));
+            }
+        });
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                repaint();
+            }
+        });
+    }
+
+    /**
+     * Shows a different game, for example after New Game, and repaints the whole board.
+     * @param board the game to draw
+     */
+    public void setBoard(Board board) {
+        if (this.board != null)
+            this.board.removeBoardListener(boardListener);
+        this.board = board;
+        board.addBoardListener(boardListener);
+        size = board.getSize();
+        int words = WideBitBoard.words(size);
+        paintedBlack = new long[words];
+        paintedWhite = new long[words];
+        paintedHints = new long[words];
+        black = new long[words];
+        white = new long[words];
+        hints = new long[words];
+        board.getBlack(paintedBlack);
+        board.getWhite(paintedWhite);
+        board.getPlayableMask(paintedHints);
+        repaint();
+    }
+
+    /**
+     * Sets the action taken when the user clicks a playable tile.
+     * @param moveListener receives the coordinate of the clicked tile
+     */
+    public void setMoveListener(Consumer<Coordinate> moveListener) {
+        this.moveListener = moveListener;
+    }
+
+    /**
+     * Brings the view up to date with the board, repainting only the squares whose Disc or hint changed. Moves made
+     * with {@link Board#placeDisc(Coordinate)} are picked up automatically through a {@link BoardListener}.
+     */
+    public void update() {
+        board.getBlack(black);
+        board.getWhite(white);
+        board.getPlayableMask(hints);
+        int cell = cellSize();
+        for (int i = 0; i < black.length; i++) {
+            long changed = (black[i] ^ paintedBlack[i]) | (white[i] ^ paintedWhite[i]) | (hints[i] ^ paintedHints[i]);
+            paintedBlack[i] = black[i];
+            paintedWhite[i] = white[i];
+            paintedHints[i] = hints[i];
+            for (; changed != 0; changed &= changed - 1) {
+                int square = (i << 6) + Long.numberOfTrailingZeros(changed);
+                repaint(originX() + (square % size) * cell, originY() + (square / size) * cell, cell, cell);
+            }
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        g2.setColor(getParent() != null ? getParent().getBackground() : Color.LIGHT_GRAY);
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int cell = cellSize();
+        if (cell <= GAP)
+            return;
+        int left = originX();
+        int top = originY();
+        int inner = cell - GAP;
+        int disc = inner - 2 * GAP;
+        if (scaledSize != disc) {
+            scaledSize = disc;
+            for (int i = 0; i < discImages.length; i++) {
+                scaledImages[i] = discImages[i].getScaledInstance(disc, disc, Image.SCALE_SMOOTH);
+                // ImageIcon waits for the scaled image to be produced, so the first paint is not missing Discs
+                new ImageIcon(scaledImages[i]);
+            }
+        }
+
+        g2.setColor(LINE_COLOR);
+        g2.fillRect(left, top, size * cell, size * cell);
+
+        int firstColumn = Math.max(0, (clip.x - left) / cell);
+        int lastColumn = Math.min(size - 1, (clip.x + clip.width - left) / cell);
+        int firstRow = Math.max(0, (clip.y - top) / cell);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height - top) / cell);
+        for (int x = firstRow; x <= lastRow; x++) {
+            for (int y = firstColumn; y <= lastColumn; y++) {
+                int square = x * size + y;
+                int px = left + y * cell + GAP / 2;
+                int py = top + x * cell + GAP / 2;
+                g2.setColor(BOARD_COLOR);
+                g2.fillRect(px, py, inner, inner);
+                if (WideBitBoard.get(paintedBlack, square)) {
+                    g2.drawImage(scaledImages[0], px + GAP, py + GAP, this);
+                } else if (WideBitBoard.get(paintedWhite, square)) {
+                    g2.drawImage(scaledImages[1], px + GAP, py + GAP, this);
+                } else if (WideBitBoard.get(paintedHints, square)) {
+                    g2.setColor(Color.YELLOW);
+                    g2.setStroke(new BasicStroke(Math.max(2, GAP / 2f)));
+                    g2.drawRect(px + 1, py + 1, inner - 3, inner - 3);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the side of one square in pixels, including the gap between squares
+     */
+    private int cellSize() {
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right;
+        int height = getHeight() - insets.top - insets.bottom;
+        return Math.max(0, Math.min(width, height) / size);
+    }
+
+    /**
+     * @return the x pixel at which the board starts, centering it horizontally
+     */
+    private int originX() {
+        Insets insets = getInsets();
+        return insets.left + (getWidth() - insets.left - insets.right - size * cellSize()) / 2;
+    }
+
+    /**
+     * @return the y pixel at which the board starts, centering it vertically
+     */
+    private int originY() {
+        Insets insets = getInsets();
+        return insets.top + (getHeight() - insets.top - insets.bottom - size * cellSize()) / 2;
+    }
+}
@@ -4,9 +4,24 @@ import java.util.Objects;
 
 /**
  * A coordinate is a pair of 2 integers, x and y. This class is used to communicate positions in a 2d array.
+ * <p></p>
+ * The 64 coordinates of the board are created once and shared; {@link #of(int, int)} and {@link #of(int)} return
+ * them without allocating. Coordinates are immutable, so sharing them is safe.
  */
 public class Coordinate {
 
+    /**
+     * The interned coordinates of the 8x8 board, indexed by bit index (x * 8 + y).
+     * @see BitBoard#square(int, int)
+     */
+    private static final Coordinate[] SQUARES = new Coordinate[64];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new Coordinate(square >>> 3, square & 7);
+        }
+    }
+
     /**
      * The position on the x-axis or the first index of a 2d array.
      */
@@ -22,6 +37,27 @@ public class Coordinate {
         this.y = y;
     }
 
+    /**
+     * Returns the shared coordinate for a tile of the board. Positions off the board get a new Coordinate.
+     * @param x the position on the x-axis
+     * @param y the position on the y-axis
+     * @return the coordinate (x, y)
+     */
+    public static Coordinate of(int x, int y) {
+        if (x >= 0 && x < 8 && y >= 0 && y < 8)
+            return SQUARES[x * 8 + y];
+        return new Coordinate(x, y);
+    }
+
+    /**
+     * @param square a bit index between 0 and 63
+     * @return the shared coordinate of the tile with that bit index
+     * @see BitBoard#square(int, int)
+     */
+    public static Coordinate of(int square) {
+        return SQUARES[square];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
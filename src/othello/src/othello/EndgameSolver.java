@@ -0,0 +1,879 @@
+package othello;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * EndgameSolver plays out every line to the end of the game to find the exact final disc difference and the move
+ * that reaches it. Near the end of a game this is both stronger and, with few enough empty squares, cheaper than a
+ * heuristic search.<p></p>
+ * The solver is a fail-soft negamax alpha-beta search on raw Disc masks. An exact solve is a sequence of null
+ * window searches that close in on the score from a draw (MTD(f)); within a search, after the first move of a node
+ * the other moves are only tested against a null window and searched again with the full window if they turn out
+ * better (principal variation search). The search is tuned for the last moves:
+ * <ul>
+ * <li>With 4 or fewer empties left, specialised routines try the remaining squares directly, without generating a
+ * move list, and only test squares next to an opponent Disc.</li>
+ * <li>Below {@link #FASTEST_FIRST_EMPTIES} empties the same is done for every empty square, with squares in
+ * quadrants with an odd number of empties tried first (parity ordering), since the player who moves last in a region
+ * usually gains there.</li>
+ * <li>From {@link #FASTEST_FIRST_EMPTIES} empties on, moves are sorted by how few replies they leave the opponent
+ * (fastest-first), and from {@link #SHALLOW_SORT_EMPTIES} on by a shallow search.</li>
+ * <li>From {@link #TABLE_EMPTIES} empties on, positions are stored in the transposition table. A stored best move is
+ * searched before the other moves are generated, and usually cuts the node off on its own. From
+ * {@link #ETC_EMPTIES} on every child is looked up in the table before any is searched.</li>
+ * <li>From {@link #STABILITY_EMPTIES} empties on, the opponent's stable Discs, which can never be flipped again, give
+ * an upper bound on the score that can cut the node off before any move is tried.</li>
+ * </ul>
+ * Scores count empty squares left at the end for the winner. In win/loss/draw mode the search uses the null window
+ * around 0 and only proves the sign of the score, which is much faster. A time budget stops the solve early, in which
+ * case no result is returned.<p></p>
+ * An EndgameSolver reuses its internal buffers and transposition table between solves and is therefore not thread
+ * safe. {@link #stop()} may be called from any thread.<p></p>
+ * Usage: {@code EndgameSolver [empties] [-positions n] [-wld]} solves random positions with the given number of
+ * empties and reports the time taken.
+ * @see AlphaBetaPlayer
+ * @see TranspositionTable
+ */
+public class EndgameSolver {
+
+    /**
+     * Nodes with at least this many empties order their moves fastest-first.
+     */
+    static final int FASTEST_FIRST_EMPTIES = 6;
+
+    /**
+     * Nodes with at least this many empties order their moves by a shallow search instead.
+     */
+    static final int SHALLOW_SORT_EMPTIES = 14;
+
+    /**
+     * The depth of the shallow search that orders moves.
+     */
+    static final int SHALLOW_SORT_DEPTH = 2;
+
+    /**
+     * Nodes with at least this many empties try a stability cutoff.
+     */
+    static final int STABILITY_EMPTIES = 4;
+
+    /**
+     * Nodes with at least this many empties use the transposition table.
+     */
+    static final int TABLE_EMPTIES = 7;
+
+    /**
+     * Nodes with at least this many empties look up their children in the transposition table before searching any
+     * of them (enhanced transposition cutoff).
+     */
+    static final int ETC_EMPTIES = 10;
+
+    /**
+     * The number of nodes visited between two checks of the clock.
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 4096;
+
+    private static final int INFINITY = 65;
+
+    private static final long CORNERS = 0x8100000000000081L;
+
+    /**
+     * The four 4x4 quadrants of the board, used for parity ordering.
+     */
+    private static final long[] QUADRANTS = {0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L,
+            0xF0F0F0F000000000L};
+
+    /**
+     * QUADRANT_OF[square] is the bit of the quadrant holding the square.
+     */
+    private static final int[] QUADRANT_OF = new int[64];
+
+    /**
+     * NEIGHBOURS[square] holds the up to eight squares around a square. A move can only flip if one of them holds an
+     * opponent Disc.
+     */
+    private static final long[] NEIGHBOURS = new long[64];
+
+    /**
+     * For the stability bound, the squares with fewer than 1, 2 and 4 steps left to the high end of their diagonal,
+     * then to the low end, along the directions that change the bit index by 7 and by 9.
+     */
+    private static final long[] LINE_ENDS_7 = new long[6];
+    private static final long[] LINE_ENDS_9 = new long[6];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            for (int q = 0; q < QUADRANTS.length; q++) {
+                if ((QUADRANTS[q] & (1L << square)) != 0)
+                    QUADRANT_OF[square] = 1 << q;
+            }
+            int x = square >>> 3;
+            int y = square & 7;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if ((dx != 0 || dy != 0) && x + dx >= 0 && x + dx < 8 && y + dy >= 0 && y + dy < 8)
+                        NEIGHBOURS[square] |= 1L << BitBoard.square(x + dx, y + dy);
+                }
+            }
+            for (int k = 0; k < 3; k++) {
+                int steps = 1 << k;
+                if (Math.min(7 - x, y) < steps)
+                    LINE_ENDS_7[k] |= 1L << square;
+                if (Math.min(x, 7 - y) < steps)
+                    LINE_ENDS_7[3 + k] |= 1L << square;
+                if (Math.min(7 - x, 7 - y) < steps)
+                    LINE_ENDS_9[k] |= 1L << square;
+                if (Math.min(x, y) < steps)
+                    LINE_ENDS_9[3 + k] |= 1L << square;
+            }
+        }
+    }
+
+    private final long timeLimitMillis;
+    private final TranspositionTable table;
+
+    /**
+     * Per-depth move lists and ordering keys, indexed by the number of empties, reused so the search does not
+     * allocate.
+     */
+    private final int[][] moves = new int[65][32];
+    private final int[][] moveKeys = new int[65][32];
+
+    /**
+     * Per-depth flips of every move, indexed by the number of empties and the square, filled by nodes that order
+     * their moves fastest-first so each move's flips are only computed once.
+     */
+    private final long[][] moveFlips = new long[65][64];
+
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+
+    /**
+     * @param timeLimitMillis the wall-clock time a solve may take, or 0 for no limit
+     * @param tableMegabytes the size of the transposition table
+     */
+    public EndgameSolver(long timeLimitMillis, int tableMegabytes) {
+        this.timeLimitMillis = timeLimitMillis;
+        this.table = new TranspositionTable(tableMegabytes);
+    }
+
+    /**
+     * Solves the game on the given board exactly.
+     * @param board the current game
+     * @return the best move and the final disc difference for the player to move, or null if the time ran out
+     * @see #solve(BitBoard)
+     */
+    public SearchResult solve(Board board) {
+        return solve(new BitBoard(board));
+    }
+
+    /**
+     * Solves a position exactly.
+     * @param board the position to solve; it is not changed
+     * @return the best move and the final disc difference for the player to move, with the number of empties as
+     * depth, or null if the time ran out
+     */
+    public SearchResult solve(BitBoard board) {
+        return solve(board, -INFINITY, INFINITY);
+    }
+
+    /**
+     * Finds out whether the player to move wins, loses or draws with perfect play.
+     * @param board the position to solve; it is not changed
+     * @return a result whose score is 1 for a win, 0 for a draw or -1 for a loss, with a move that achieves it, or
+     * null if the time ran out
+     */
+    public SearchResult solveWinLossDraw(BitBoard board) {
+        SearchResult result = solve(board, -1, 1);
+        if (result == null)
+            return null;
+        return new SearchResult(result.getBestSquare(), Integer.signum(result.getScore()), result.getDepth(),
+                result.getNodes(), result.getElapsedNanos(), result.getPrincipalVariation());
+    }
+
+    /**
+     * Stops a running solve, which then returns null. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return the transposition table, kept between solves
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    private SearchResult solve(BitBoard board, int alpha, int beta) {
+        long start = System.nanoTime();
+        nodes = 0;
+        stopped = false;
+        stopRequested = false;
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000L : 0;
+        table.newSearch();
+
+        long own = board.getOwn();
+        long opponent = board.getOpponent();
+        long empty = ~(own | opponent);
+        int empties = Long.bitCount(empty);
+        int score = beta - alpha > 2 ? solveExact(own, opponent, empties, parity(empty))
+                : search(own, opponent, alpha, beta, empties, parity(empty), false);
+        if (stopped)
+            return null;
+
+        int[] line = principalVariation(own, opponent, empties);
+        int bestSquare = line.length > 0 ? line[0] : SearchResult.PASS;
+        if (BitBoard.generateMoves(own, opponent) == 0)
+            bestSquare = SearchResult.PASS;
+        return new SearchResult(bestSquare, score, empties, nodes, System.nanoTime() - start, line);
+    }
+
+    /**
+     * Finds the exact score with a sequence of null window searches (MTD(f)), starting from a draw. Each search
+     * proves the score lies above or below a test value, and the transposition table carries what it learned to the
+     * next one. Null window searches prune far more than one search with the full window, above all when the score
+     * is far from 0, where most nodes can be cut off by stable Discs.
+     * @return the final disc difference for the player to move
+     */
+    private int solveExact(long own, long opponent, int empties, int parity) {
+        int lower = -64;
+        int upper = 64;
+        int score = 0;
+        while (lower < upper && !stopped) {
+            int test = score == lower ? score + 1 : score;
+            score = search(own, opponent, test - 1, test, empties, parity, false);
+            if (score < test) {
+                upper = score;
+            } else {
+                lower = score;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * The search for any number of empties, which hands nodes with few empties to the specialised routines.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @param alpha the lower bound of the window
+     * @param beta the upper bound of the window
+     * @param empties the number of empty squares
+     * @param parity a bit per quadrant, set if the quadrant has an odd number of empties
+     * @param passed whether the previous move was a pass
+     * @return the final disc difference for the player to move, or a bound on it outside the window
+     */
+    private int search(long own, long opponent, int alpha, int beta, int empties, int parity, boolean passed) {
+        if (empties >= STABILITY_EMPTIES && alpha >= 64 - 2 * Long.bitCount(opponent)) {
+            int bound = 64 - 2 * Long.bitCount(stableDiscs(opponent, own | opponent));
+            if (bound <= alpha)
+                return bound;
+        }
+        if (empties <= 4)
+            return solveShallow(own, opponent, alpha, beta, empties, parity);
+        if (empties < FASTEST_FIRST_EMPTIES)
+            return searchParity(own, opponent, alpha, beta, empties, parity, passed);
+        if (++nodes % CLOCK_CHECK_INTERVAL == 0
+                && (stopRequested || deadline != 0 && System.nanoTime() - deadline >= 0))
+            stopped = true;
+        if (stopped)
+            return 0;
+
+        long hash = 0;
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (empties >= TABLE_EMPTIES) {
+            hash = hash(own, opponent);
+            long entry = table.probe(hash);
+            if (entry != 0) {
+                ttMove = TranspositionTable.move(entry);
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha))
+                    return score;
+            }
+        }
+
+        long playable = BitBoard.generateMoves(own, opponent);
+        if (playable == 0) {
+            if (passed)
+                return finalScore(own, opponent);
+            return -search(opponent, own, -beta, -alpha, empties, parity, true);
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        if (ttMove != TranspositionTable.NO_MOVE && (playable & (1L << ttMove)) != 0) {
+            // The table move cuts most nodes off on its own, so it is searched before the others are generated.
+            long flips = FlipTables.computeFlips(own, opponent, ttMove);
+            best = -search(opponent & ~flips, own | flips | (1L << ttMove), -beta, -alpha, empties - 1,
+                    parity ^ QUADRANT_OF[ttMove], false);
+            if (stopped)
+                return 0;
+            bestMove = ttMove;
+            alpha = Math.max(alpha, best);
+            playable &= ~(1L << ttMove);
+        }
+
+        if (alpha < beta && playable != 0) {
+            long[] flipsOf = moveFlips[empties];
+            for (long m = playable; m != 0; m &= m - 1) {
+                int square = Long.numberOfTrailingZeros(m);
+                flipsOf[square] = FlipTables.computeFlips(own, opponent, square);
+            }
+            int cutoff = empties >= ETC_EMPTIES ? enhancedCutoff(own, opponent, playable, flipsOf, beta) : -INFINITY;
+            if (cutoff >= beta) {
+                best = cutoff;
+            } else {
+                int count = orderMoves(own, opponent, playable, empties, parity);
+                int[] list = moves[empties];
+                for (int i = 0; i < count; i++) {
+                    int square = list[i];
+                    long flips = flipsOf[square];
+                    long childOwn = opponent & ~flips;
+                    long childOpponent = own | flips | (1L << square);
+                    int childParity = parity ^ QUADRANT_OF[square];
+                    int score;
+                    if (best == -INFINITY || beta - alpha == 1) {
+                        score = -search(childOwn, childOpponent, -beta, -alpha, empties - 1, childParity, false);
+                    } else {
+                        score = -search(childOwn, childOpponent, -alpha - 1, -alpha, empties - 1, childParity,
+                                false);
+                        if (score > alpha && score < beta && !stopped)
+                            score = -search(childOwn, childOpponent, -beta, -score, empties - 1, childParity,
+                                    false);
+                    }
+                    if (stopped)
+                        return 0;
+                    if (score > best) {
+                        best = score;
+                        bestMove = square;
+                        if (score > alpha) {
+                            alpha = score;
+                            if (alpha >= beta)
+                                break;
+                        }
+                    }
+                }
+            }
+        }
+        if (empties >= TABLE_EMPTIES) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            // A node that failed low has no best move; keep the one found by an earlier search for ordering.
+            if (bound == TranspositionTable.UPPER && ttMove != TranspositionTable.NO_MOVE)
+                bestMove = ttMove;
+            table.store(hash, empties, bound, best, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * The search for nodes with too few empties to be worth sorting or storing. Instead of generating the moves,
+     * the empty squares are tried in parity order, odd quadrants first, and only those next to an opponent Disc are
+     * tested. Most of these nodes are cut off by their first move.
+     */
+    private int searchParity(long own, long opponent, int alpha, int beta, int empties, int parity,
+                             boolean passed) {
+        if (++nodes % CLOCK_CHECK_INTERVAL == 0
+                && (stopRequested || deadline != 0 && System.nanoTime() - deadline >= 0))
+            stopped = true;
+        if (stopped)
+            return 0;
+
+        long empty = ~(own | opponent);
+        long odd = 0;
+        for (int q = 0; q < QUADRANTS.length; q++) {
+            if ((parity & (1 << q)) != 0)
+                odd |= QUADRANTS[q];
+        }
+        int best = -INFINITY;
+        for (long ordered = empty & odd, rest = empty & ~odd; (ordered | rest) != 0; ) {
+            int square;
+            if (ordered != 0) {
+                square = Long.numberOfTrailingZeros(ordered);
+                ordered &= ordered - 1;
+            } else {
+                square = Long.numberOfTrailingZeros(rest);
+                rest &= rest - 1;
+            }
+            long flips;
+            if ((NEIGHBOURS[square] & opponent) == 0 || (flips = FlipTables.computeFlips(own, opponent, square)) == 0)
+                continue;
+            int score = -search(opponent & ~flips, own | flips | (1L << square), -beta, -Math.max(alpha, best),
+                    empties - 1, parity ^ QUADRANT_OF[square], false);
+            if (stopped)
+                return 0;
+            if (score > best) {
+                best = score;
+                if (score >= beta)
+                    return score;
+            }
+        }
+        if (best == -INFINITY) {
+            if (passed)
+                return finalScore(own, opponent);
+            return -searchParity(opponent, own, -beta, -alpha, empties, parity, true);
+        }
+        return best;
+    }
+
+    /**
+     * Looks up every child of a node in the transposition table. A child whose score is known to be at most
+     * {@code -beta} proves the node fails high without searching anything.
+     * @param flipsOf the flips of every playable square
+     * @return a score of at least beta if a child proves a cutoff, else -INFINITY
+     */
+    private int enhancedCutoff(long own, long opponent, long playable, long[] flipsOf, int beta) {
+        for (long m = playable; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            long flips = flipsOf[square];
+            long entry = table.probe(hash(opponent & ~flips, own | flips | (1L << square)));
+            if (entry != 0 && TranspositionTable.bound(entry) != TranspositionTable.LOWER
+                    && -TranspositionTable.score(entry) >= beta)
+                return -TranspositionTable.score(entry);
+        }
+        return -INFINITY;
+    }
+
+    /**
+     * Fills the move list for a node. With {@link #SHALLOW_SORT_EMPTIES} or more empties the moves are sorted by a
+     * shallow search of the position after the move. With fewer they are sorted fastest-first: by the opponent's
+     * mobility after the move, corners counting twice, then by the empty squares next to our Discs, where the
+     * opponent may move later, with a bonus for holding corners and for moving into a quadrant with an odd number of
+     * empties.
+     * @return the number of moves written to moves[empties]
+     */
+    private int orderMoves(long own, long opponent, long playable, int empties, int parity) {
+        int[] list = moves[empties];
+        int count = 0;
+        int[] keys = moveKeys[empties];
+        long[] flipsOf = moveFlips[empties];
+        for (long m = playable; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            long flips = flipsOf[square];
+            long childOwn = opponent & ~flips;
+            long childOpponent = own | flips | (1L << square);
+            int key;
+            if (empties >= SHALLOW_SORT_EMPTIES) {
+                key = shallowSearch(childOwn, childOpponent, SHALLOW_SORT_DEPTH, -INFINITY * 64, INFINITY * 64);
+            } else {
+                long replies = BitBoard.generateMoves(childOwn, childOpponent);
+                long frontier = around(childOpponent) & ~(childOwn | childOpponent);
+                key = (Long.bitCount(replies) + Long.bitCount(replies & CORNERS)) * 8
+                        + Long.bitCount(frontier) - 4 * Long.bitCount(childOpponent & CORNERS)
+                        - ((parity & QUADRANT_OF[square]) != 0 ? 2 : 0);
+            }
+            int i = count++;
+            while (i > 0 && keys[i - 1] > key) {
+                keys[i] = keys[i - 1];
+                list[i] = list[i - 1];
+                i--;
+            }
+            keys[i] = key;
+            list[i] = square;
+        }
+        return count;
+    }
+
+    /**
+     * A fixed-depth alpha-beta search with {@link #mobilityScore(long, long)} at the leaves, used only to order
+     * moves near the root, where a better order saves far more nodes than it costs.
+     * @return the estimated score for the player to move
+     */
+    private static int shallowSearch(long own, long opponent, int depth, int alpha, int beta) {
+        if (depth == 0)
+            return mobilityScore(own, opponent);
+        long playable = BitBoard.generateMoves(own, opponent);
+        if (playable == 0) {
+            if (BitBoard.generateMoves(opponent, own) == 0)
+                return finalScore(own, opponent) * 64;
+            return -shallowSearch(opponent, own, depth - 1, -beta, -alpha);
+        }
+        int best = -INFINITY * 64;
+        for (; playable != 0; playable &= playable - 1) {
+            int square = Long.numberOfTrailingZeros(playable);
+            long flips = FlipTables.computeFlips(own, opponent, square);
+            int score = -shallowSearch(opponent & ~flips, own | flips | (1L << square), depth - 1, -beta, -alpha);
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta)
+                        break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A quick estimate of a position for move ordering: mobility with corner moves counting twice, corners held,
+     * and the empty squares next to the opponent's Discs against those next to our own.
+     * @return the estimate for the player to move, in units of about 1/8 of a move
+     */
+    private static int mobilityScore(long own, long opponent) {
+        long empty = ~(own | opponent);
+        long mine = BitBoard.generateMoves(own, opponent);
+        long theirs = BitBoard.generateMoves(opponent, own);
+        return 8 * (Long.bitCount(mine) + Long.bitCount(mine & CORNERS) - Long.bitCount(theirs)
+                - Long.bitCount(theirs & CORNERS))
+                + 16 * (Long.bitCount(own & CORNERS) - Long.bitCount(opponent & CORNERS))
+                + Long.bitCount(around(opponent) & empty) - Long.bitCount(around(own) & empty);
+    }
+
+    /**
+     * Collects the last empty squares in parity order and hands them to the routine for their number.
+     */
+    private int solveShallow(long own, long opponent, int alpha, int beta, int empties, int parity) {
+        long empty = ~(own | opponent);
+        long odd = 0;
+        for (int q = 0; q < QUADRANTS.length; q++) {
+            if ((parity & (1 << q)) != 0)
+                odd |= QUADRANTS[q];
+        }
+        long ordered = empty & odd;
+        int x1 = next(ordered, empty);
+        empty &= ~(1L << x1);
+        int x2 = next(ordered, empty);
+        empty &= ~(1L << x2);
+        int x3 = next(ordered, empty);
+        empty &= ~(1L << x3);
+        int x4 = next(ordered, empty);
+        switch (empties) {
+            case 4:
+                return solve4(own, opponent, alpha, beta, x1, x2, x3, x4, false);
+            case 3:
+                return solve3(own, opponent, alpha, beta, x1, x2, x3, false);
+            case 2:
+                return solve2(own, opponent, alpha, beta, x1, x2, false);
+            case 1:
+                return solve1(own, opponent, x1);
+            default:
+                nodes++;
+                return finalScore(own, opponent);
+        }
+    }
+
+    /**
+     * @return the lowest remaining square in an odd quadrant, else the lowest remaining square
+     */
+    private static int next(long odd, long empty) {
+        long preferred = odd & empty;
+        return Long.numberOfTrailingZeros(preferred != 0 ? preferred : empty);
+    }
+
+    private int solve4(long own, long opponent, int alpha, int beta, int x1, int x2, int x3, int x4,
+                       boolean passed) {
+        nodes++;
+        int best = -INFINITY;
+        long flips;
+        if ((NEIGHBOURS[x1] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x1)) != 0) {
+            best = -solve3(opponent & ~flips, own | flips | (1L << x1), -beta, -alpha, x2, x3, x4, false);
+            if (best >= beta)
+                return best;
+            alpha = Math.max(alpha, best);
+        }
+        if ((NEIGHBOURS[x2] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x2)) != 0) {
+            int score = -solve3(opponent & ~flips, own | flips | (1L << x2), -beta, -alpha, x1, x3, x4, false);
+            if (score >= beta)
+                return score;
+            best = Math.max(best, score);
+            alpha = Math.max(alpha, score);
+        }
+        if ((NEIGHBOURS[x3] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x3)) != 0) {
+            int score = -solve3(opponent & ~flips, own | flips | (1L << x3), -beta, -alpha, x1, x2, x4, false);
+            if (score >= beta)
+                return score;
+            best = Math.max(best, score);
+            alpha = Math.max(alpha, score);
+        }
+        if ((NEIGHBOURS[x4] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x4)) != 0) {
+            int score = -solve3(opponent & ~flips, own | flips | (1L << x4), -beta, -alpha, x1, x2, x3, false);
+            best = Math.max(best, score);
+        }
+        if (best == -INFINITY)
+            best = passed ? finalScore(own, opponent)
+                    : -solve4(opponent, own, -beta, -alpha, x1, x2, x3, x4, true);
+        return best;
+    }
+
+    private int solve3(long own, long opponent, int alpha, int beta, int x1, int x2, int x3, boolean passed) {
+        nodes++;
+        int best = -INFINITY;
+        long flips;
+        if ((NEIGHBOURS[x1] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x1)) != 0) {
+            best = -solve2(opponent & ~flips, own | flips | (1L << x1), -beta, -alpha, x2, x3, false);
+            if (best >= beta)
+                return best;
+            alpha = Math.max(alpha, best);
+        }
+        if ((NEIGHBOURS[x2] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x2)) != 0) {
+            int score = -solve2(opponent & ~flips, own | flips | (1L << x2), -beta, -alpha, x1, x3, false);
+            if (score >= beta)
+                return score;
+            best = Math.max(best, score);
+            alpha = Math.max(alpha, score);
+        }
+        if ((NEIGHBOURS[x3] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x3)) != 0) {
+            int score = -solve2(opponent & ~flips, own | flips | (1L << x3), -beta, -alpha, x1, x2, false);
+            best = Math.max(best, score);
+        }
+        if (best == -INFINITY)
+            best = passed ? finalScore(own, opponent) : -solve3(opponent, own, -beta, -alpha, x1, x2, x3, true);
+        return best;
+    }
+
+    private int solve2(long own, long opponent, int alpha, int beta, int x1, int x2, boolean passed) {
+        nodes++;
+        int best = -INFINITY;
+        long flips;
+        if ((NEIGHBOURS[x1] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x1)) != 0) {
+            best = -solve1(opponent & ~flips, own | flips | (1L << x1), x2);
+            if (best >= beta)
+                return best;
+        }
+        if ((NEIGHBOURS[x2] & opponent) != 0 && (flips = FlipTables.computeFlips(own, opponent, x2)) != 0) {
+            best = Math.max(best, -solve1(opponent & ~flips, own | flips | (1L << x2), x1));
+        }
+        if (best == -INFINITY)
+            best = passed ? finalScore(own, opponent) : -solve2(opponent, own, -beta, -alpha, x1, x2, true);
+        return best;
+    }
+
+    /**
+     * Scores the last empty square: the player to move takes it if they can, else the opponent does, else the game
+     * ends with the square empty.
+     */
+    private int solve1(long own, long opponent, int x) {
+        nodes++;
+        long flips = FlipTables.computeFlips(own, opponent, x);
+        if (flips != 0)
+            return 2 * (Long.bitCount(own | flips) + 1) - 64;
+        flips = FlipTables.computeFlips(opponent, own, x);
+        if (flips != 0)
+            return 64 - 2 * (Long.bitCount(opponent | flips) + 1);
+        return finalScore(own, opponent);
+    }
+
+    /**
+     * @return the final disc difference for the owner of {@code own}, with the empty squares going to the winner
+     */
+    static int finalScore(long own, long opponent) {
+        int ownCount = Long.bitCount(own);
+        int opponentCount = Long.bitCount(opponent);
+        int empties = 64 - ownCount - opponentCount;
+        int difference = ownCount - opponentCount;
+        return difference > 0 ? difference + empties : difference < 0 ? difference - empties : 0;
+    }
+
+    /**
+     * Finds Discs that can never be flipped again. A Disc is stable if, along each of the four lines through it,
+     * the line is full or the Disc is next to the edge or to another stable Disc of the same color. Starting from no
+     * stable Discs, this is applied until nothing changes, which finds stable corners, the edges anchored on them and
+     * Discs in full lines. The result is a subset of the truly stable Discs.
+     * @param discs the Discs to check
+     * @param occupied all Discs on the board
+     * @return the stable subset of discs
+     */
+    static long stableDiscs(long discs, long occupied) {
+        long rows = occupied & occupied >>> 4;
+        rows &= rows >>> 2;
+        rows &= rows >>> 1;
+        long fullHorizontal = (rows & 0x0101010101010101L) * 0xFF;
+        long columns = occupied & occupied >>> 32;
+        columns &= columns >>> 16;
+        columns &= columns >>> 8;
+        long fullVertical = (columns & 0xFF) * 0x0101010101010101L;
+        long fullDiagonal7 = fullLines(occupied, 7, LINE_ENDS_7);
+        long fullDiagonal9 = fullLines(occupied, 9, LINE_ENDS_9);
+
+        long firstY = 0x0101010101010101L;
+        long lastY = 0x8080808080808080L;
+        long firstX = 0xFFL;
+        long lastX = 0xFFL << 56;
+        long stable = 0;
+        while (true) {
+            long horizontal = fullHorizontal | firstY | lastY | (stable << 1) | (stable >>> 1);
+            long vertical = fullVertical | firstX | lastX | (stable << 8) | (stable >>> 8);
+            long diagonal9 = fullDiagonal9 | firstX | firstY | lastX | lastY
+                    | ((stable << 9) & ~firstY) | ((stable >>> 9) & ~lastY);
+            long diagonal7 = fullDiagonal7 | firstX | firstY | lastX | lastY
+                    | ((stable << 7) & ~lastY) | ((stable >>> 7) & ~firstY);
+            long next = discs & horizontal & vertical & diagonal9 & diagonal7;
+            if (next == stable)
+                return stable;
+            stable = next;
+        }
+    }
+
+    /**
+     * Finds the full lines along a diagonal direction by doubling: a square is first marked if it and its neighbour
+     * towards either end are occupied, then if that holds for the square 2 and then 4 steps on, each step skipping
+     * the squares whose end of the line is already covered.
+     * @param occupied all Discs on the board
+     * @param shift 7 or 9, the change of the bit index per step along the diagonal
+     * @param ends the squares with fewer than 1, 2 and 4 steps left to the high end of their line, then to the low
+     * end
+     * @return the squares of the full lines
+     */
+    private static long fullLines(long occupied, int shift, long[] ends) {
+        long up = occupied & (ends[0] | occupied >>> shift);
+        up &= ends[1] | up >>> 2 * shift;
+        up &= ends[2] | up >>> 4 * shift;
+        long down = occupied & (ends[3] | occupied << shift);
+        down &= ends[4] | down << 2 * shift;
+        down &= ends[5] | down << 4 * shift;
+        return up & down;
+    }
+
+    /**
+     * @return the squares next to any of the given squares
+     */
+    private static long around(long mask) {
+        long left = 0xFEFEFEFEFEFEFEFEL;
+        long right = 0x7F7F7F7F7F7F7F7FL;
+        long horizontal = mask | (mask << 1 & left) | (mask >>> 1 & right);
+        return (horizontal | horizontal << 8 | horizontal >>> 8) & ~mask;
+    }
+
+    /**
+     * @return a bit per quadrant, set if the quadrant holds an odd number of the given empty squares
+     */
+    private static int parity(long empty) {
+        int parity = 0;
+        for (int q = 0; q < QUADRANTS.length; q++) {
+            parity |= (Long.bitCount(empty & QUADRANTS[q]) & 1) << q;
+        }
+        return parity;
+    }
+
+    /**
+     * A hash of the two masks for the transposition table. The solver works on raw masks without a BitBoard, so the
+     * hash is computed from them instead of being kept incrementally.
+     */
+    private static long hash(long own, long opponent) {
+        long hash = own * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opponent * 0xC2B2AE3D27D4EB4FL, 31);
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Follows the best moves stored in the transposition table from the root, playing a legal move wherever the
+     * table has none.
+     */
+    private int[] principalVariation(long own, long opponent, int empties) {
+        int[] line = new int[2 * empties];
+        int length = 0;
+        boolean passed = false;
+        while (length < line.length) {
+            long playable = BitBoard.generateMoves(own, opponent);
+            if (playable == 0) {
+                if (passed)
+                    break;
+                passed = true;
+                line[length++] = SearchResult.PASS;
+                long swap = own;
+                own = opponent;
+                opponent = swap;
+                continue;
+            }
+            passed = false;
+            long entry = table.probe(hash(own, opponent));
+            int square = entry != 0 ? TranspositionTable.move(entry) : TranspositionTable.NO_MOVE;
+            if (square == TranspositionTable.NO_MOVE || (playable & (1L << square)) == 0) {
+                if (length > 0)
+                    break;
+                square = bestMove(own, opponent, playable);
+            }
+            line[length++] = square;
+            long flips = FlipTables.computeFlips(own, opponent, square);
+            long next = own | flips | (1L << square);
+            own = opponent & ~flips;
+            opponent = next;
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    /**
+     * Finds the best root move by solving each move, for positions too small for the transposition table.
+     */
+    private int bestMove(long own, long opponent, long playable) {
+        int best = -INFINITY;
+        int bestSquare = Long.numberOfTrailingZeros(playable);
+        long empty = ~(own | opponent);
+        for (long m = playable; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            long flips = FlipTables.computeFlips(own, opponent, square);
+            long childEmpty = empty & ~(1L << square);
+            int score = -search(opponent & ~flips, own | flips | (1L << square), -INFINITY, INFINITY,
+                    Long.bitCount(childEmpty), parity(childEmpty), false);
+            if (score > best) {
+                best = score;
+                bestSquare = square;
+            }
+        }
+        return bestSquare;
+    }
+
+    public static void main(String[] args) {
+        int empties = 20;
+        int positions = 10;
+        boolean winLossDraw = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-positions":
+                    positions = Integer.parseInt(args[++i]);
+                    break;
+                case "-wld":
+                    winLossDraw = true;
+                    break;
+                default:
+                    empties = Integer.parseInt(args[i]);
+            }
+        }
+
+        EndgameSolver solver = new EndgameSolver(0, 64);
+        SplittableRandom random = new SplittableRandom(2410);
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (int solved = 0; solved < positions; ) {
+            BitBoard board = randomPosition(random, empties);
+            if (board == null)
+                continue;
+            SearchResult result = winLossDraw ? solver.solveWinLossDraw(board) : solver.solve(board);
+            totalNodes += result.getNodes();
+            totalNanos += result.getElapsedNanos();
+            solved++;
+            System.out.printf("%s  move %2d score %+3d  %10d nodes %8.1f ms%n", board, result.getBestSquare(),
+                    result.getScore(), result.getNodes(), result.getElapsedNanos() / 1e6);
+        }
+        System.out.printf("%d positions with %d empties: %.1f ms average, %d nodes/sec%n", positions, empties,
+                totalNanos / 1e6 / positions, totalNanos == 0 ? 0 : totalNodes * 1_000_000_000L / totalNanos);
+    }
+
+    /**
+     * Plays random moves from the start position until the given number of empties is left.
+     * @return the position, or null if the game ended first
+     */
+    static BitBoard randomPosition(SplittableRandom random, int empties) {
+        BitBoard board = new BitBoard();
+        while (Long.bitCount(~(board.getOwn() | board.getOpponent())) > empties) {
+            long playable = board.getPlayableMask();
+            if (playable == 0) {
+                if (BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0)
+                    return null;
+                board.pass();
+                continue;
+            }
+            for (int skip = random.nextInt(Long.bitCount(playable)); skip > 0; skip--) {
+                playable &= playable - 1;
+            }
+            board.makeMove(Long.numberOfTrailingZeros(playable));
+        }
+        return board.getPlayableMask() == 0 ? null : board;
+    }
+}
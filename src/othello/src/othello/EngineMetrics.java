@@ -0,0 +1,340 @@
+package othello;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EngineMetrics collects counters from every search in the JVM so that a monitoring thread can poll them cheaply.
+ * <p></p>
+ * {@link AlphaBetaPlayer} adds its nodes, transposition table probes and hits, beta cutoffs and the time of each
+ * iterative deepening iteration once per completed iteration, and the allocation and garbage collection done while
+ * choosing each move once per search. The counters are {@link LongAdder}s, so searches on several threads do not
+ * contend, and {@link #snapshot()} sums them into an immutable {@link Snapshot}. Two snapshots subtracted with
+ * {@link Snapshot#since(Snapshot)} give the rates over the time between them.<p></p>
+ * Counting in {@link Board#getPlayableMask()} and sampling allocation and collector statistics are only done with the
+ * system property {@code othello.metrics} set to true. The property is read once into {@link #ENABLED}, a constant
+ * the JIT compiler folds, so with metrics off the check costs nothing in the move generation loop.<p></p>
+ * The same data is emitted as Java Flight Recorder events while a recording has them enabled.
+ * @see SearchIterationEvent
+ * @see MoveSearchEvent
+ */
+public final class EngineMetrics {
+
+    /**
+     * Whether the costlier counters are collected, from the system property {@code othello.metrics}.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("othello.metrics");
+
+    private static final LongAdder searches = new LongAdder();
+    private static final LongAdder searchNanos = new LongAdder();
+    private static final LongAdder iterations = new LongAdder();
+    private static final LongAdder iterationNanos = new LongAdder();
+    private static final LongAdder nodes = new LongAdder();
+    private static final LongAdder interiorNodes = new LongAdder();
+    private static final LongAdder children = new LongAdder();
+    private static final LongAdder ttProbes = new LongAdder();
+    private static final LongAdder ttHits = new LongAdder();
+    private static final LongAdder cutoffs = new LongAdder();
+    private static final LongAdder firstMoveCutoffs = new LongAdder();
+    private static final LongAdder moveGenerations = new LongAdder();
+    private static final LongAdder allocatedBytes = new LongAdder();
+    private static final LongAdder gcCount = new LongAdder();
+    private static final LongAdder gcMillis = new LongAdder();
+
+    private EngineMetrics() {
+    }
+
+    /**
+     * Counts one move generation by {@link Board}. Callers check {@link #ENABLED} first.
+     */
+    static void countMoveGeneration() {
+        moveGenerations.increment();
+    }
+
+    /**
+     * Adds the counters of one completed iterative deepening iteration.
+     */
+    static void addIteration(long nanos, long iterationNodes, long iterationInteriorNodes, long iterationChildren,
+                             long probes, long hits, long iterationCutoffs, long iterationFirstMoveCutoffs) {
+        iterations.increment();
+        iterationNanos.add(nanos);
+        nodes.add(iterationNodes);
+        interiorNodes.add(iterationInteriorNodes);
+        children.add(iterationChildren);
+        ttProbes.add(probes);
+        ttHits.add(hits);
+        cutoffs.add(iterationCutoffs);
+        firstMoveCutoffs.add(iterationFirstMoveCutoffs);
+    }
+
+    /**
+     * Adds one finished search, with the allocation and collector statistics measured around it, or -1 for those
+     * that were not sampled.
+     */
+    static void addSearch(long nanos, long bytes, long collections, long collectionMillis) {
+        searches.increment();
+        searchNanos.add(nanos);
+        if (bytes > 0)
+            allocatedBytes.add(bytes);
+        if (collections > 0)
+            gcCount.add(collections);
+        if (collectionMillis > 0)
+            gcMillis.add(collectionMillis);
+    }
+
+    /**
+     * @return the bytes allocated so far by the calling thread, or -1 if the JVM does not measure it
+     */
+    static long threadAllocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof ThreadMXBean && ((ThreadMXBean) threads).isThreadAllocatedMemoryEnabled())
+            return ((ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    /**
+     * @return the number of garbage collections so far, over all collectors
+     */
+    static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return the time spent in garbage collection so far in milliseconds, over all collectors
+     */
+    static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Sums the counters. Searches running at the same time may be partly included.
+     * @return the totals since the JVM started or since the last {@link #reset()}
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(System.nanoTime(), searches.sum(), searchNanos.sum(), iterations.sum(),
+                iterationNanos.sum(), nodes.sum(), interiorNodes.sum(), children.sum(), ttProbes.sum(), ttHits.sum(),
+                cutoffs.sum(), firstMoveCutoffs.sum(), moveGenerations.sum(), allocatedBytes.sum(), gcCount.sum(),
+                gcMillis.sum());
+    }
+
+    /**
+     * Sets every counter back to zero. Prefer {@link Snapshot#since(Snapshot)} when several readers poll.
+     */
+    public static void reset() {
+        for (LongAdder adder : new LongAdder[]{searches, searchNanos, iterations, iterationNanos, nodes,
+                interiorNodes, children, ttProbes, ttHits, cutoffs, firstMoveCutoffs, moveGenerations, allocatedBytes,
+                gcCount, gcMillis}) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * The values of the counters at one moment, or the difference between two such moments.
+     */
+    public static final class Snapshot {
+        private final long nanoTime;
+        private final long searches;
+        private final long searchNanos;
+        private final long iterations;
+        private final long iterationNanos;
+        private final long nodes;
+        private final long interiorNodes;
+        private final long children;
+        private final long ttProbes;
+        private final long ttHits;
+        private final long cutoffs;
+        private final long firstMoveCutoffs;
+        private final long moveGenerations;
+        private final long allocatedBytes;
+        private final long gcCount;
+        private final long gcMillis;
+
+        Snapshot(long nanoTime, long searches, long searchNanos, long iterations, long iterationNanos, long nodes,
+                 long interiorNodes, long children, long ttProbes, long ttHits, long cutoffs, long firstMoveCutoffs,
+                 long moveGenerations, long allocatedBytes, long gcCount, long gcMillis) {
+            this.nanoTime = nanoTime;
+            this.searches = searches;
+            this.searchNanos = searchNanos;
+            this.iterations = iterations;
+            this.iterationNanos = iterationNanos;
+            this.nodes = nodes;
+            this.interiorNodes = interiorNodes;
+            this.children = children;
+            this.ttProbes = ttProbes;
+            this.ttHits = ttHits;
+            this.cutoffs = cutoffs;
+            this.firstMoveCutoffs = firstMoveCutoffs;
+            this.moveGenerations = moveGenerations;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        /**
+         * @param earlier a snapshot taken before this one
+         * @return the counts between the two snapshots; {@link #getNanoTime()} becomes the time between them
+         */
+        public Snapshot since(Snapshot earlier) {
+            return new Snapshot(nanoTime - earlier.nanoTime, searches - earlier.searches,
+                    searchNanos - earlier.searchNanos, iterations - earlier.iterations,
+                    iterationNanos - earlier.iterationNanos, nodes - earlier.nodes,
+                    interiorNodes - earlier.interiorNodes, children - earlier.children, ttProbes - earlier.ttProbes,
+                    ttHits - earlier.ttHits, cutoffs - earlier.cutoffs, firstMoveCutoffs - earlier.firstMoveCutoffs,
+                    moveGenerations - earlier.moveGenerations, allocatedBytes - earlier.allocatedBytes,
+                    gcCount - earlier.gcCount, gcMillis - earlier.gcMillis);
+        }
+
+        /**
+         * @return the System.nanoTime value the snapshot was taken at, or the time covered by a difference
+         */
+        public long getNanoTime() {
+            return nanoTime;
+        }
+
+        /**
+         * @return the number of finished searches, one per move chosen by search
+         */
+        public long getSearches() {
+            return searches;
+        }
+
+        /**
+         * @return the number of completed iterative deepening iterations
+         */
+        public long getIterations() {
+            return iterations;
+        }
+
+        /**
+         * @return the number of nodes visited in completed iterations
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return the number of transposition table probes in completed iterations
+         */
+        public long getTableProbes() {
+            return ttProbes;
+        }
+
+        /**
+         * @return the number of transposition table probes that found their position
+         */
+        public long getTableHits() {
+            return ttHits;
+        }
+
+        /**
+         * @return the number of beta cutoffs
+         */
+        public long getCutoffs() {
+            return cutoffs;
+        }
+
+        /**
+         * @return the number of beta cutoffs caused by the first move searched
+         */
+        public long getFirstMoveCutoffs() {
+            return firstMoveCutoffs;
+        }
+
+        /**
+         * @return the number of moves generated through {@link Board}, counted only when {@link #ENABLED}
+         */
+        public long getMoveGenerations() {
+            return moveGenerations;
+        }
+
+        /**
+         * @return the bytes allocated by searching threads during searches, counted only when {@link #ENABLED}
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return the garbage collections that happened during searches, counted only when {@link #ENABLED}
+         */
+        public long getCollections() {
+            return gcCount;
+        }
+
+        /**
+         * @return the milliseconds of garbage collection during searches, counted only when {@link #ENABLED}
+         */
+        public long getCollectionMillis() {
+            return gcMillis;
+        }
+
+        /**
+         * @return the nodes visited per second of search time in completed iterations
+         */
+        public double getNodesPerSecond() {
+            return iterationNanos == 0 ? 0 : nodes * 1e9 / iterationNanos;
+        }
+
+        /**
+         * @return the average number of legal moves at the interior nodes that were expanded
+         */
+        public double getAverageBranchingFactor() {
+            return interiorNodes == 0 ? 0 : (double) children / interiorNodes;
+        }
+
+        /**
+         * @return the share of transposition table probes that hit
+         */
+        public double getTableHitRate() {
+            return ttProbes == 0 ? 0 : (double) ttHits / ttProbes;
+        }
+
+        /**
+         * @return the share of beta cutoffs caused by the first move, a measure of move ordering quality
+         */
+        public double getFirstMoveCutoffRate() {
+            return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+        }
+
+        /**
+         * @return the average time of a completed iteration in milliseconds
+         */
+        public double getAverageIterationMillis() {
+            return iterations == 0 ? 0 : iterationNanos / 1e6 / iterations;
+        }
+
+        /**
+         * @return the average time of a search in milliseconds
+         */
+        public double getAverageSearchMillis() {
+            return searches == 0 ? 0 : searchNanos / 1e6 / searches;
+        }
+
+        /**
+         * @return the average number of bytes allocated per search
+         */
+        public double getAllocatedBytesPerSearch() {
+            return searches == 0 ? 0 : (double) allocatedBytes / searches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d searches, %d iterations, %d nodes (%.0f nodes/s, branching %.2f), "
+                            + "tt hits %.1f%%, first-move cutoffs %.1f%%, %.2f ms/iteration, %.0f bytes/search, "
+                            + "%d GCs (%d ms)", searches, iterations, nodes, getNodesPerSecond(),
+                    getAverageBranchingFactor(), 100 * getTableHitRate(), 100 * getFirstMoveCutoffRate(),
+                    getAverageIterationMillis(), getAllocatedBytesPerSearch(), gcCount, gcMillis);
+        }
+    }
+}
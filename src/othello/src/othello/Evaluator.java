@@ -0,0 +1,19 @@
+package othello;
+
+/**
+ * An Evaluator gives a static score to a position without searching it. Scores are always from the point of view of
+ * the player to move: positive values are good for the owner of the {@code own} mask. A score of 100 is roughly worth
+ * one Disc, and implementations must stay well inside {@link AlphaBetaPlayer#WIN} so that finished games always
+ * outrank heuristic scores.
+ * @see AlphaBetaPlayer
+ */
+public interface Evaluator {
+
+    /**
+     * Scores a position for the player to move.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @return the heuristic value of the position for the player to move
+     */
+    int evaluate(long own, long opponent);
+}
@@ -0,0 +1,285 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.zip.CRC32;
+
+/**
+ * FlipTables finds the Discs a move flips by table lookup instead of by shifting masks. The row, the column and the
+ * two diagonals through the move square are each reduced to an 8-bit pattern of the mover's Discs, an 8-bit pattern
+ * of the opponent's Discs and the position of the move within the line. Together they index a table of the Discs
+ * flipped on that line, precomputed for every combination, and the four line results are spread back onto the board.
+ * <p></p>
+ * Gathering a line is a shift for a row, and for a column or diagonal a mask and a multiplication that adds the
+ * squares into the top byte without carries, as in {@link PatternEvaluator#key(int, long)}. A diagonal's bits end up
+ * ordered by column, so the position of the move on every line but a column is its column.<p></p>
+ * The table has 8 * 256 * 256 entries of one byte. Building it takes longer than loading it, so it is kept in a
+ * binary cache file: {@link #load()} reads the file if it holds tables of the current {@link #VERSION} with a matching
+ * checksum, and otherwise builds the tables and writes the file for the next start. The file is written next to its
+ * final name and moved into place, so a JVM that starts while another writes it never reads half a file. The cache
+ * is at the path in the system property {@code othello.flipTables}, or in the directory .othello of the user's home
+ * directory. A cache that cannot be written only costs the next start the time to build the tables again.<p></p>
+ * The checksum finds damage, not tampering, so the tables are only read from a regular file owned by the user
+ * running the JVM. Another user cannot make the engine play with wrong tables by planting a file, for instance in a
+ * shared directory the property points to.<p></p>
+ * File layout, little-endian like {@link WeightTable}: the int {@link #MAGIC}, the int {@link #VERSION}, the int
+ * number of table bytes, the CRC-32 of the table bytes as an int, then the table bytes.<p></p>
+ * Usage: {@code FlipTables [file]} rebuilds the cache file and prints how long building and loading take.
+ * @see BitBoard#computeFlips(long, long, int)
+ */
+public final class FlipTables {
+
+    /**
+     * The first four bytes of a cache file, "OTFL".
+     */
+    public static final int MAGIC = 0x4F54464C;
+
+    /**
+     * The cache file layout version this class reads and writes. It must change whenever the table contents do.
+     */
+    public static final int VERSION = 1;
+
+    private static final int SIZE = 8 * 256 * 256;
+    private static final int HEADER_BYTES = 16;
+
+    private static final long COLUMN = 0x0101010101010101L;
+    private static final long COLUMN_GATHER = 0x0102040810204080L;
+    private static final long ROWS = 0x0101010101010101L;
+
+    /**
+     * The Discs flipped on one line, at (position * 256 + own) * 256 + opponent.
+     */
+    private static final byte[] FLIPS = load();
+
+    /**
+     * The diagonal (x - y constant) and anti-diagonal (x + y constant) through every square.
+     */
+    private static final long[] DIAGONALS = new long[64];
+    private static final long[] ANTI_DIAGONALS = new long[64];
+
+    /**
+     * The bits of a column pattern spread to column 0 of the board: bit i to bit 8 * i.
+     */
+    private static final long[] COLUMN_SPREAD = new long[256];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int x = square >>> 3;
+            int y = square & 7;
+            for (int other = 0; other < 64; other++) {
+                int otherX = other >>> 3;
+                int otherY = other & 7;
+                if (otherX - otherY == x - y)
+                    DIAGONALS[square] |= 1L << other;
+                if (otherX + otherY == x + y)
+                    ANTI_DIAGONALS[square] |= 1L << other;
+            }
+        }
+        for (int pattern = 0; pattern < 256; pattern++) {
+            for (int i = 0; i < 8; i++) {
+                if ((pattern & 1 << i) != 0)
+                    COLUMN_SPREAD[pattern] |= 1L << (8 * i);
+            }
+        }
+    }
+
+    private FlipTables() {
+    }
+
+    /**
+     * Finds the Discs a move flips, the same as {@link BitBoard#computeFlips(long, long, int)}.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @param square the bit index of the empty tile played
+     * @return a mask of the opponent's Discs the move flips, 0 if the move is not legal
+     */
+    public static long computeFlips(long own, long opponent, int square) {
+        int x = square >>> 3;
+        int y = square & 7;
+
+        int rowShift = x << 3;
+        long flips = (long) (FLIPS[index(y, (int) (own >>> rowShift) & 0xFF, (int) (opponent >>> rowShift) & 0xFF)]
+                & 0xFF) << rowShift;
+
+        int column = FLIPS[index(x, column(own, y), column(opponent, y))] & 0xFF;
+        flips |= COLUMN_SPREAD[column] << y;
+
+        long diagonal = DIAGONALS[square];
+        int diagonalFlips = FLIPS[index(y, line(own, diagonal), line(opponent, diagonal))] & 0xFF;
+        flips |= (diagonalFlips * ROWS) & diagonal;
+
+        long antiDiagonal = ANTI_DIAGONALS[square];
+        int antiDiagonalFlips = FLIPS[index(y, line(own, antiDiagonal), line(opponent, antiDiagonal))] & 0xFF;
+        return flips | (antiDiagonalFlips * ROWS) & antiDiagonal;
+    }
+
+    private static int index(int position, int own, int opponent) {
+        return (position << 16) | (own << 8) | opponent;
+    }
+
+    /**
+     * @return the Discs of column y as 8 bits, row x in bit x
+     */
+    private static int column(long mask, int y) {
+        return (int) ((((mask >>> y) & COLUMN) * COLUMN_GATHER) >>> 56);
+    }
+
+    /**
+     * @return the Discs of a line with at most one square per row as 8 bits, column y in bit y
+     */
+    private static int line(long mask, long line) {
+        return (int) (((mask & line) * ROWS) >>> 56);
+    }
+
+    /**
+     * Computes the flip table by walking both ways along a line of 8 squares for every entry.
+     * @return the table, indexed as {@link #FLIPS}
+     */
+    static byte[] build() {
+        byte[] table = new byte[SIZE];
+        for (int position = 0; position < 8; position++) {
+            int move = 1 << position;
+            for (int own = 0; own < 256; own++) {
+                if ((own & move) != 0)
+                    continue;
+                for (int opponent = 0; opponent < 256; opponent++) {
+                    if ((opponent & (own | move)) != 0)
+                        continue;
+                    int flips = 0;
+                    for (int step = -1; step <= 1; step += 2) {
+                        int run = 0;
+                        int i = position + step;
+                        while (i >= 0 && i < 8 && (opponent & 1 << i) != 0) {
+                            run |= 1 << i;
+                            i += step;
+                        }
+                        if (i >= 0 && i < 8 && (own & 1 << i) != 0)
+                            flips |= run;
+                    }
+                    table[index(position, own, opponent)] = (byte) flips;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return the cache file, from the system property othello.flipTables or else in the user's home directory
+     */
+    static Path cacheFile() {
+        String file = System.getProperty("othello.flipTables");
+        return file != null ? Paths.get(file)
+                : Paths.get(System.getProperty("user.home"), ".othello", "flips-v" + VERSION + ".bin");
+    }
+
+    /**
+     * Reads the tables from the cache file, or builds them and tries to write the file.
+     */
+    private static byte[] load() {
+        Path file = cacheFile();
+        try {
+            byte[] cached = read(file);
+            if (cached != null)
+                return cached;
+        } catch (IOException e) {
+            // an unreadable cache is rebuilt like a missing one
+        }
+        byte[] table = build();
+        try {
+            write(file, table);
+        } catch (IOException e) {
+            // the next start builds the tables again
+        }
+        return table;
+    }
+
+    /**
+     * @param file a cache file
+     * @return the tables in it, or null if it does not exist, is not owned by the current user, or holds another
+     * version or damaged tables
+     * @throws IOException if the file cannot be read
+     */
+    static byte[] read(Path file) throws IOException {
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) || !ownedByCurrentUser(file)
+                || Files.size(file) != HEADER_BYTES + SIZE)
+            return null;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read the whole file
+            }
+        }
+        if (buffer.position() != buffer.capacity() || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != SIZE)
+            return null;
+        byte[] table = new byte[SIZE];
+        buffer.position(HEADER_BYTES);
+        buffer.get(table);
+        CRC32 crc = new CRC32();
+        crc.update(table);
+        return (int) crc.getValue() == buffer.getInt(12) ? table : null;
+    }
+
+    /**
+     * @return whether the file belongs to the user running the JVM, or true on a file system without owners
+     * @throws IOException if the owner cannot be read
+     */
+    private static boolean ownedByCurrentUser(Path file) throws IOException {
+        UserPrincipal owner;
+        try {
+            owner = Files.getOwner(file, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException e) {
+            return true;
+        }
+        return owner.equals(file.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name")));
+    }
+
+    /**
+     * Writes a cache file, replacing any file already there and creating its directory if needed.
+     * @param file the cache file
+     * @param table the tables
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path file, byte[] table) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(table);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + table.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(table.length).putInt((int) crc.getValue()).put(table).flip();
+        Path directory = Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Paths.get(args[0]) : cacheFile();
+        long start = System.nanoTime();
+        byte[] table = build();
+        long built = System.nanoTime();
+        write(file, table);
+        long loadStart = System.nanoTime();
+        if (read(file) == null)
+            throw new IOException(file + " could not be read back");
+        long loaded = System.nanoTime();
+        System.out.printf("built in %.1f ms, loaded %s in %.1f ms%n", (built - start) / 1e6, file,
+                (loaded - loadStart) / 1e6);
+    }
+}
@@ -3,32 +3,40 @@ package othello;
 import java.awt.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.border.BevelBorder;
-import java.util.ArrayList;
 
 /**
  * The purpose of GUI is to create a graphical representation of
- * a game of Othello. It is a container for a boardPanel that is a representation
+ * a game of Othello. It is a container for a BoardView that is a representation
  * of the board. Also holds panels and labels to give the player information about
  * player turn and the score of the game
+ * <p>
+ * The computer can take the White Discs. Its moves are searched by an AsyncMoveProvider on a background thread, so
+ * the window stays responsive while it thinks and shows the search's progress; the computer ponders on the
+ * human's time.
+ * <p>
+ * New games can be started on boards from 8x8 to 16x16. The computer only plays on 8x8 boards, since its search
+ * works on 64-bit masks.
  *
  * @author Steven Ferguson + Benjamin Savage
  */
 public class GUI extends JFrame {
 
     private static final long serialVersionUID = 9185851023736830551L;
-    private ImageIcon[] discIcons = {new ImageIcon(("src/images/Black100.png")),
-            new ImageIcon(("src/images/White100.png"))};
     private Board board = new Board();
     private JPanel mainPanel;
-    private JPanel boardPanel = new JPanel();
+    private BoardView boardView = new BoardView(board);
     private JLabel lblGameState = new JLabel("Black Turn");
-    private JLabel lblBlkScore = new JLabel(board.getDiscCount()[0] + "");
-    private JLabel lblWhiteScore = new JLabel(board.getDiscCount()[1] + "");
+    private JLabel lblBlkScore = new JLabel(board.getBlackCount() + "");
+    private JLabel lblWhiteScore = new JLabel(board.getWhiteCount() + "");
+    private JCheckBox chkComputer = new JCheckBox("Computer plays White");
+    private JComboBox<String> cmbSize = new JComboBox<>(new String[]{"8x8", "10x10", "12x12", "14x14", "16x16"});
+    private final AsyncMoveProvider computer = new AsyncMoveProvider(new PositionalEvaluator(),
+            AlphaBetaPlayer.MAX_DEPTH, 1000, 32, EventQueue::invokeLater);
+    private boolean thinking;
 
 
     /**
-     * Launch the application. Sets the frame size to be fixed.
+     * Launch the application. The frame can be resized; the board scales to fit.
      */
     public static void main(String[] args) {
 
@@ -37,7 +45,6 @@ public class GUI extends JFrame {
                 try {
                     GUI frame = new GUI();
                     frame.setVisible(true);
-                    frame.setResizable(false);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -62,8 +69,7 @@ public class GUI extends JFrame {
         JPanel controlPanel = initControlPanel();
         mainPanel.add(controlPanel, BorderLayout.NORTH);
 
-        JPanel boardPanel = initBoardPanel();
-        mainPanel.add(boardPanel, BorderLayout.CENTER);
+        mainPanel.add(initBoardView(), BorderLayout.CENTER);
 
         JPanel blkPanel = createBlkPanel();
         mainPanel.add(blkPanel, BorderLayout.WEST);
@@ -115,89 +121,83 @@ public class GUI extends JFrame {
     }
 
     /**
-     * Creates a board of 64 JButtons, representing a game board. Buttons are
-     * disabled by default. If the coordinate for a button has been assigned a Color
-     * value, that button is enabled and an appropriate disc icon is set on that
-     * button. Also updates the lblGameState and disc count labels.
-     *
-     * <p>
-     * On click the buttons paint an icon if the JButton coordinate is a playable
-     * one.
+     * Creates the BoardView that draws the board. Clicking a playable tile places a disc there. The view repaints
+     * only the squares the move changed, and the labels are updated by a listener on the board.
      *
      * @return visual representation of the board
      */
-    private JPanel initBoardPanel() {
-        boardPanel.removeAll();
-        boardPanel.setBorder(new EmptyBorder(4, 4, 4, 4));
-        boardPanel.setBackground(new Color(65, 156, 124));
-        boardPanel.setLayout(new GridLayout(8, 8, 4, 4));
-
-        ArrayList<Coordinate> playableTiles = board.getPlayableTiles();
-        for (int row = 0; row < board.getTiles().length; row++) {
-            for (int col = 0; col < board.getTiles()[row].length; col++) {
-                JButton btnTile = new JButton();
-                btnTile.setEnabled(false);
-                btnTile.setOpaque(true);
-                btnTile.setBorder(new BevelBorder(BevelBorder.LOWERED, null, null, null, null));
-                btnTile.setBackground(new Color(65, 156, 124));
-
-                if (board.getTiles()[row][col] != null) {
-
-                    btnTile.setBorder(new BevelBorder(BevelBorder.LOWERED, null, null, null, null));
-
-                    if (board.getTiles()[row][col].getColor() == Color.BLACK) {
-                        btnTile.setIcon(discIcons[0]);
-                        btnTile.setEnabled(true);
-                    } else {
-                        btnTile.setIcon(discIcons[1]);
-                    }
-                    btnTile.setEnabled(true);
-                }
+    private BoardView initBoardView() {
+        boardView.setBorder(new EmptyBorder(4, 4, 4, 4));
+        boardView.setMoveListener(coordinate -> {
+            if (!thinking)
+                board.placeDisc(coordinate);
+        });
+        board.addBoardListener(this::discPlaced);
+        return boardView;
+    }
 
-                if (playableTiles.contains(new Coordinate(row, col))) {
-                    btnTile.setBorder(new BevelBorder(BevelBorder.RAISED, null, Color.YELLOW, null, Color.YELLOW));
-                    btnTile.setContentAreaFilled(false);
-                    btnTile.setBorderPainted(true);
-                    btnTile.setEnabled(true);
-                }
+    /**
+     * Updates the labels after a move, using the disc counts sent by the board.
+     * @see BoardListener
+     */
+    private void discPlaced(Board board, int square, long[] flipped, int blackCount, int whiteCount) {
+        updateGameState(blackCount, whiteCount);
+        playComputerMove();
+    }
 
-                int finalRow = row;
-                int finalCol = col;
-                btnTile.addActionListener(e -> {
-                    Coordinate cord = new Coordinate(finalRow, finalCol);
-                    if (playableTiles.contains(cord)) {
-                        board.placeDisc(cord);
-
-                        lblBlkScore.setText(board.getDiscCount()[0] + "");
-                        lblWhiteScore.setText(board.getDiscCount()[1] + "");
-                        if (board.getPlayerTurn() == Color.BLACK)
-                            lblGameState.setText("Black Turn");
-                        else
-                            lblGameState.setText("White Turn");
-                        boardPanel.repaint();
-                        boardPanel.revalidate();
-                        initBoardPanel();
-                    }
-
-                });
-
-                boardPanel.add(btnTile);
-            }
-        }
+    /**
+     * Asks the computer for a move if it is White's turn and the computer plays White. The search runs in the
+     * background; its progress is shown in the turn label and the move is placed when the search is done, after
+     * which the computer ponders on the expected reply.
+     */
+    private void playComputerMove() {
+        if (!chkComputer.isSelected() || board.getSize() != 8 || board.getPlayerTurn() != Color.WHITE
+                || board.getPlayableMask() == 0)
+            return;
+        thinking = true;
+        Board thinkingBoard = board;
+        computer.requestMove(new BitBoard(board), this::showProgress).thenAccept(result -> {
+            thinking = false;
+            if (board != thinkingBoard || result.getBestSquare() == SearchResult.PASS)
+                return;
+            board.placeDisc(result.getBestMove());
+            computer.ponder(new BitBoard(board), result);
+        });
+    }
+
+    /**
+     * Shows the best move found so far by the computer.
+     */
+    private void showProgress(SearchResult progress) {
+        if (progress.getBestSquare() != SearchResult.PASS)
+            lblGameState.setText("White thinking: depth " + progress.getDepth() + ", best "
+                    + BitBoard.squareName(progress.getBestSquare()) + ", score " + progress.getScore());
+    }
 
-        if (playableTiles.isEmpty()) {
-            int[] discCount = board.getDiscCount();
+    /**
+     * Sets the turn and disc count labels, and announces the winner when no moves are left.
+     * @param blackCount the number of Black Discs on the board
+     * @param whiteCount the number of White Discs on the board
+     */
+    private void updateGameState(int blackCount, int whiteCount) {
+        lblBlkScore.setText(blackCount + "");
+        lblWhiteScore.setText(whiteCount + "");
+        if (board.getPlayerTurn() == Color.BLACK)
+            lblGameState.setText("Black Turn");
+        else
+            lblGameState.setText("White Turn");
+
+        if (!board.hasPlayableTile()) {
             JOptionPane.showMessageDialog(mainPanel, "GAME OVER\n" +
-                    (discCount[0] > discCount[1] ? "Black " : "White ") + "Wins!");
+                    (blackCount > whiteCount ? "Black " : "White ") + "Wins!");
         }
-        return boardPanel;
     }
 
     /**
      * Instantiates a control panel of type JPanel.
      * <p>
      * Contains a New Game button that when pressed resets the Turn label
-     * and resets the disc count array.
+     * and resets the disc count array, on a board of the size chosen next to it.
      *
      * @return controlPanel
      */
@@ -211,18 +211,37 @@ public class GUI extends JFrame {
             controlPanel.add(lblTitle, BorderLayout.CENTER);
         }
         {
+            JPanel newGamePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+            cmbSize.setFocusable(false);
+            newGamePanel.add(cmbSize);
             JButton btnNewGame = new JButton("New Game");
             btnNewGame.setFocusPainted(false);
             btnNewGame.addActionListener(e -> {
-                board = new Board();
-                initBoardPanel();
-                lblGameState.setText("Black Turn");
-                lblBlkScore.setText(board.getDiscCount()[0] + "");
-                lblWhiteScore.setText(board.getDiscCount()[1] + "");
-                mainPanel.repaint();
-                mainPanel.revalidate();
+                computer.cancel();
+                thinking = false;
+                int size = 8 + 2 * cmbSize.getSelectedIndex();
+                board = new Board(size);
+                // the view listens first, as in the first game, so a move is drawn before the game state dialogs
+                boardView.setBoard(board);
+                board.addBoardListener(this::discPlaced);
+                chkComputer.setEnabled(size == 8);
+                updateGameState(board.getBlackCount(), board.getWhiteCount());
+            });
+            newGamePanel.add(btnNewGame);
+            controlPanel.add(newGamePanel, BorderLayout.EAST);
+        }
+        {
+            chkComputer.setFocusPainted(false);
+            chkComputer.addActionListener(e -> {
+                if (chkComputer.isSelected()) {
+                    playComputerMove();
+                } else {
+                    computer.cancel();
+                    thinking = false;
+                    updateGameState(board.getBlackCount(), board.getWhiteCount());
+                }
             });
-            controlPanel.add(btnNewGame, BorderLayout.EAST);
+            controlPanel.add(chkComputer, BorderLayout.WEST);
         }
         {
             lblGameState.setBorder(new EmptyBorder(2, 0, 2, 5));
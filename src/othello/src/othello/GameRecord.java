@@ -0,0 +1,171 @@
+package othello;
+
+import java.util.Arrays;
+
+/**
+ * GameRecord is a played game stored as compactly as possible: the bit index of each move in one byte, at most
+ * {@link #MAX_MOVES} of them, and the final number of Black Discs. Passes are not stored, since a player passes
+ * exactly when they have no playable tile; replaying the moves inserts them again.<p></p>
+ * In a file, written by {@link GameRecordWriter}, a record takes {@code 2 + moves} bytes: the number of moves, the
+ * Black Disc count and the moves. The Black Disc count follows the WTHOR convention: in a finished game the empty
+ * squares are counted for the winner, so a Black count of 32 is always a draw.<p></p>
+ * Instances are immutable.
+ * @see GameReplay
+ * @see GameRecordReader
+ * @see WthorImporter
+ */
+public class GameRecord {
+
+    /**
+     * The most moves a game can have: one per empty square of the start position.
+     */
+    public static final int MAX_MOVES = 60;
+
+    private final byte[] moves;
+    private final int blackDiscs;
+
+    /**
+     * Creates a record without checking that its moves are legal, for readers of trusted files.
+     * @param moves the bit indices of the moves, without passes
+     * @param blackDiscs the final number of Black Discs
+     */
+    GameRecord(byte[] moves, int blackDiscs) {
+        this.moves = moves;
+        this.blackDiscs = blackDiscs;
+    }
+
+    /**
+     * Creates a record from the moves of a game played from the start position, checking that every move is legal.
+     * The game does not have to be finished; the Black Disc count is then the number of Black Discs after the last
+     * move.
+     * @param squares the bit indices of the moves, with or without {@link SearchResult#PASS} entries for passes
+     * @return the record
+     * @throws IllegalArgumentException if a move is not playable or the game has too many moves
+     */
+    public static GameRecord of(int[] squares) {
+        byte[] moves = new byte[Math.min(squares.length, MAX_MOVES)];
+        int length = 0;
+        for (int square : squares) {
+            if (square == SearchResult.PASS)
+                continue;
+            if (length == MAX_MOVES)
+                throw new IllegalArgumentException("a game has at most " + MAX_MOVES + " moves");
+            moves[length++] = (byte) square;
+        }
+        moves = Arrays.copyOf(moves, length);
+        GameReplay replay = new GameReplay(new GameRecord(moves, 0));
+        while (replay.hasNext()) {
+            replay.next();
+        }
+        return new GameRecord(moves, replay.getBlackDiscs());
+    }
+
+    /**
+     * Reads a game written in the usual notation, such as {@code f5d6c3d3c4}, with or without spaces between the
+     * moves.
+     * @param notation the moves of the game
+     * @return the record
+     * @throws IllegalArgumentException if a square name is not understood or a move is not playable
+     * @see BitBoard#parseSquare(String)
+     */
+    public static GameRecord parse(String notation) {
+        String moves = notation.replaceAll("\\s", "");
+        if (moves.length() % 2 != 0)
+            throw new IllegalArgumentException("expected pairs of characters: " + notation);
+        int[] squares = new int[moves.length() / 2];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = BitBoard.parseSquare(moves.substring(2 * i, 2 * i + 2));
+        }
+        return of(squares);
+    }
+
+    /**
+     * @return the number of moves, not counting passes
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * @param index the number of the move, starting at 0
+     * @return the bit index of the move
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * @return the bit indices of all moves, not counting passes
+     */
+    public int[] getMoves() {
+        int[] squares = new int[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            squares[i] = moves[i];
+        }
+        return squares;
+    }
+
+    /**
+     * @return the number of Black Discs at the end of the record, with the empty squares of a finished game counted
+     * for the winner
+     */
+    public int getBlackDiscs() {
+        return blackDiscs;
+    }
+
+    /**
+     * Replays the first moves of the game.
+     * @param plies the number of moves to play, passes not counted
+     * @return the position after those moves, with any pass that follows them already made
+     * @throws IllegalArgumentException if the record holds a move that is not playable
+     */
+    public BitBoard toBitBoard(int plies) {
+        GameReplay replay = new GameReplay(this);
+        for (int i = 0; i < plies && replay.hasNext(); i++) {
+            replay.next();
+        }
+        return replay.getPosition();
+    }
+
+    /**
+     * @param plies the number of moves to play, passes not counted
+     * @return a Board holding the position after those moves
+     * @see #toBitBoard(int)
+     */
+    public Board toBoard(int plies) {
+        BitBoard position = toBitBoard(plies);
+        return new Board(position.getBlack(), position.getWhite(), position.getPlayerTurn());
+    }
+
+    /**
+     * Writes the moves in the usual notation, such as {@code f5d6c3}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(2 * moves.length);
+        for (byte move : moves) {
+            text.append(BitBoard.squareName(move));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GameRecord that = (GameRecord) o;
+        return blackDiscs == that.blackDiscs && Arrays.equals(moves, that.moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(moves) + blackDiscs;
+    }
+
+    /**
+     * @return the stored moves, not a copy, for writers
+     */
+    byte[] moveBytes() {
+        return moves;
+    }
+}
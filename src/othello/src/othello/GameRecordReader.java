@@ -0,0 +1,92 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GameRecordReader streams the {@link GameRecord}s of a file written by {@link GameRecordWriter}. The file is read
+ * through a FileChannel into one fixed direct buffer, refilled as the records are used up, so a file of millions of
+ * games is read in constant memory.
+ * @see GameReplay
+ */
+public class GameRecordReader implements AutoCloseable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(GameRecordWriter.BUFFER_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private boolean endOfFile;
+
+    /**
+     * Opens a record file and checks its header.
+     * @param file the file to read
+     * @throws IOException if the file cannot be read or is not a record file
+     */
+    public GameRecordReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.flip();
+        try {
+            if (!fill(GameRecordWriter.HEADER_BYTES) || buffer.getInt() != GameRecordWriter.MAGIC)
+                throw new IOException(file + " is not a game record file");
+            int version = buffer.getInt();
+            if (version != GameRecordWriter.VERSION)
+                throw new IOException(file + " has record version " + version + ", expected "
+                        + GameRecordWriter.VERSION);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     * @return the record, or null at the end of the file
+     * @throws IOException if the file cannot be read or ends in the middle of a record
+     */
+    public GameRecord read() throws IOException {
+        if (!fill(2)) {
+            if (buffer.hasRemaining())
+                throw new IOException(file + " ends in the middle of a record");
+            return null;
+        }
+        int length = buffer.get() & 0xFF;
+        int blackDiscs = buffer.get() & 0xFF;
+        if (length > GameRecord.MAX_MOVES || blackDiscs > 64)
+            throw new IOException(file + " holds a damaged record");
+        if (!fill(length))
+            throw new IOException(file + " ends in the middle of a record");
+        byte[] moves = new byte[length];
+        buffer.get(moves);
+        return new GameRecord(moves, blackDiscs);
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of unread bytes, reading more of the file if needed.
+     * @return false if the file ends first
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes)
+            return true;
+        if (endOfFile)
+            return false;
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
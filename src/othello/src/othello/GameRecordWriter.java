@@ -0,0 +1,96 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GameRecordWriter streams {@link GameRecord}s to a file. Records are collected in one fixed direct buffer and written
+ * through a FileChannel whenever it fills up, so writing millions of games takes the same memory as writing one.<p></p>
+ * A record file starts with the int {@link #MAGIC} and the int {@link #VERSION}, little-endian, followed by the
+ * records back to back in the layout described in GameRecord. The number of records is not stored, so a file can be
+ * appended to and read while it grows.<p></p>
+ * The records are only guaranteed to be in the file after {@link #flush()} or {@link #close()}.
+ * @see GameRecordReader
+ */
+public class GameRecordWriter implements AutoCloseable {
+
+    /**
+     * The first four bytes of a record file, "OTGR".
+     */
+    public static final int MAGIC = 0x4F544752;
+
+    /**
+     * The file layout version this class writes and GameRecordReader reads.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the file header.
+     */
+    static final int HEADER_BYTES = 8;
+
+    /**
+     * The size of the buffer records are collected in before they are written.
+     */
+    static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long count;
+
+    /**
+     * Creates or replaces a record file.
+     * @param file the file to write
+     * @throws IOException if the file cannot be created
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    /**
+     * Adds a record to the file.
+     * @param record the game to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(GameRecord record) throws IOException {
+        byte[] moves = record.moveBytes();
+        if (buffer.remaining() < 2 + moves.length)
+            flush();
+        buffer.put((byte) moves.length).put((byte) record.getBlackDiscs()).put(moves);
+        count++;
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes the collected records to the file.
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package othello;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+
+/**
+ * GameReplay plays the moves of a {@link GameRecord} one after the other on a {@link BitBoard}, inserting the passes
+ * the record leaves out. After every move the position is available as a BitBoard, or as a {@link Board} for code
+ * that works on the grid.<p></p>
+ * Replaying costs one move generation and one flip computation per move. A replay can be reset to another record,
+ * so going through a large game collection only allocates one BitBoard per game.<p></p>
+ * Usage: {@code GameReplay file} replays every game of a record file, checks its final Disc count and reports the
+ * replay speed.
+ * @see GameRecord
+ * @see GameRecordReader
+ */
+public class GameReplay {
+
+    private static final long START_BLACK = 1L << BitBoard.square(4, 3) | 1L << BitBoard.square(3, 4);
+    private static final long START_WHITE = 1L << BitBoard.square(3, 3) | 1L << BitBoard.square(4, 4);
+
+    private GameRecord record;
+    private BitBoard board;
+    private int ply;
+
+    /**
+     * @param record the game to replay, from its start position
+     */
+    public GameReplay(GameRecord record) {
+        reset(record);
+    }
+
+    /**
+     * Starts replaying another game from the start position.
+     * @param record the game to replay
+     */
+    public void reset(GameRecord record) {
+        this.record = record;
+        this.board = new BitBoard(START_BLACK, START_WHITE, Color.BLACK);
+        this.ply = 0;
+    }
+
+    /**
+     * @return whether the record has moves that have not been played yet
+     */
+    public boolean hasNext() {
+        return ply < record.getMoveCount();
+    }
+
+    /**
+     * Plays the next move of the record. If the player to move after it has no playable tile but the other player
+     * does, the pass is made as well.
+     * @return the bit index of the move played
+     * @throws IllegalArgumentException if the move is not playable, which means the record is damaged
+     * @throws NoSuchElementException if every move has been played
+     */
+    public int next() {
+        if (!hasNext())
+            throw new NoSuchElementException("the game has " + record.getMoveCount() + " moves");
+        int square = record.getMove(ply);
+        if (square < 0 || square > 63 || (board.getPlayableMask() & (1L << square)) == 0)
+            throw new IllegalArgumentException("move " + (ply + 1) + " (" + square + ") is not playable in " + board);
+        board.makeMove(square);
+        ply++;
+        if (board.getPlayableMask() == 0 && BitBoard.generateMoves(board.getOpponent(), board.getOwn()) != 0)
+            board.pass();
+        return square;
+    }
+
+    /**
+     * @return the number of moves played so far, passes not counted
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return the current position. It is the replay's own BitBoard, which changes with every call of
+     * {@link #next()}; copy it to keep it.
+     */
+    public BitBoard getPosition() {
+        return board;
+    }
+
+    /**
+     * @return a new Board holding the current position
+     */
+    public Board toBoard() {
+        return new Board(board.getBlack(), board.getWhite(), board.getPlayerTurn());
+    }
+
+    /**
+     * @return whether neither player can move in the current position
+     */
+    public boolean isGameOver() {
+        return board.getPlayableMask() == 0 && BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0;
+    }
+
+    /**
+     * @return the number of Black Discs in the current position, with the empty squares counted for the winner if
+     * the game is over
+     */
+    public int getBlackDiscs() {
+        int black = Long.bitCount(board.getBlack());
+        int white = Long.bitCount(board.getWhite());
+        if (!isGameOver() || black == white)
+            return black;
+        return black > white ? 64 - white : black;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "games.rec");
+        long start = System.nanoTime();
+        long games = 0;
+        long moves = 0;
+        long mismatches = 0;
+        GameReplay replay = null;
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            GameRecord record;
+            while ((record = reader.read()) != null) {
+                if (replay == null) {
+                    replay = new GameReplay(record);
+                } else {
+                    replay.reset(record);
+                }
+                while (replay.hasNext()) {
+                    replay.next();
+                }
+                if (replay.getBlackDiscs() != record.getBlackDiscs())
+                    mismatches++;
+                games++;
+                moves += record.getMoveCount();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("replayed %d games, %d moves in %.2f s: %.0f games/sec, %.0f moves/sec, %d with a different "
+                + "final count%n", games, moves, seconds, games / seconds, moves / seconds, mismatches);
+    }
+}
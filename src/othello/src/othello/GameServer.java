@@ -0,0 +1,409 @@
+package othello;
+
+import java.awt.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GameServer hosts many games of Othello at once for players and bots that connect over TCP, without the GUI.<p></p>
+ * Every live game is one {@link Board} in a concurrent table keyed by game number. Requests for a game lock only
+ * that game, so games never wait for each other and there is no global lock. Games that receive no request for the
+ * idle time are evicted by a background task.<p></p>
+ * Connections are served by a few worker threads, each running an NIO Selector over its share of the sockets, so
+ * thousands of connections need only as many threads as there are workers. An acceptor thread hands new connections
+ * to the workers in turn. Clients may send several requests without waiting for the answers; they are answered in
+ * order.<p></p>
+ * The protocol is line based, with one request per line and one answer line per request starting with OK or ERR:
+ * <ul>
+ * <li>{@code NEW} starts a game and answers {@code OK id}.</li>
+ * <li>{@code MOVE id f5} places a Disc for the player to move and answers {@code OK turn black white}, where turn is
+ * X or O for the player to move next, or - when the game is over. A player without a playable tile passes
+ * automatically.</li>
+ * <li>{@code MOVES id} answers the playable tiles, such as {@code OK d3 c4 f5 e6}.</li>
+ * <li>{@code BOARD id} answers the position in the format of {@link BitBoard#toString()}.</li>
+ * <li>{@code END id} removes the game.</li>
+ * <li>{@code STATS} answers {@code OK games moves}, the number of live games and of moves played since the start.</li>
+ * </ul>
+ * Usage: {@code GameServer [-port n] [-workers n] [-idle seconds]} serves on localhost until stopped.
+ * @see LoadGenerator
+ */
+public class GameServer implements AutoCloseable {
+
+    /**
+     * The port the server listens on unless told otherwise.
+     */
+    public static final int DEFAULT_PORT = 7070;
+
+    /**
+     * The longest request line accepted. Longer lines close the connection.
+     */
+    private static final int MAX_LINE = 256;
+
+    /**
+     * The most answer bytes kept for a client that does not read them. A client that falls further behind is
+     * disconnected.
+     */
+    private static final int MAX_PENDING_OUTPUT = 1 << 20;
+
+    /**
+     * A live game. Requests synchronize on it, so each game handles one request at a time.
+     */
+    private static final class Game {
+        final Board board = new Board();
+        volatile long lastUsed = System.nanoTime();
+    }
+
+    /**
+     * The buffers of one client connection, only used by the worker that owns it.
+     */
+    private static final class Connection {
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        ByteBuffer out = ByteBuffer.allocate(4096);
+    }
+
+    private final ServerSocketChannel server;
+    private final Worker[] workers;
+    private final Thread acceptor;
+    private final ScheduledExecutorService evictor;
+    private final Map<Long, Game> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final LongAdder moves = new LongAdder();
+    private final long idleNanos;
+    private volatile boolean running = true;
+
+    /**
+     * Opens the server socket on the loopback address and starts serving.
+     * @param port the port to listen on, or 0 for any free port
+     * @param workers the number of selector threads, at least 1
+     * @param idleMillis the time after its last request at which a game is evicted
+     * @throws IOException if the socket cannot be opened
+     */
+    public GameServer(int port, int workers, long idleMillis) throws IOException {
+        if (workers < 1)
+            throw new IllegalArgumentException("workers must be at least 1");
+        this.idleNanos = idleMillis * 1_000_000L;
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+
+        this.workers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Worker(i);
+            this.workers[i].start();
+        }
+        this.acceptor = new Thread(this::accept, "game-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-server-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(10, idleMillis / 4);
+        evictor.scheduleAtFixedRate(this::evictIdleGames, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * @return the number of live games
+     */
+    public int getGameCount() {
+        return games.size();
+    }
+
+    /**
+     * Stops accepting connections, closes every connection and stops all threads.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        evictor.shutdownNow();
+        server.close();
+        for (Worker worker : workers) {
+            worker.selector.wakeup();
+        }
+        try {
+            for (Worker worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Accepts connections until the server is closed and hands them to the workers in turn.
+     */
+    private void accept() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+                workers[next++ % workers.length].add(channel);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!running)
+                    return;
+            }
+        }
+    }
+
+    private void evictIdleGames() {
+        long now = System.nanoTime();
+        games.values().removeIf(game -> now - game.lastUsed > idleNanos);
+    }
+
+    /**
+     * Answers one request line.
+     * @param line the request without its line end
+     * @return the answer without its line end
+     */
+    String handle(String line) {
+        String[] words = line.trim().split("\\s+");
+        String command = words[0].toUpperCase();
+        if (command.equals("NEW")) {
+            long id = nextId.getAndIncrement();
+            games.put(id, new Game());
+            return "OK " + id;
+        }
+        if (command.equals("STATS"))
+            return "OK " + games.size() + " " + moves.sum();
+        if (!command.equals("MOVE") && !command.equals("MOVES") && !command.equals("BOARD") && !command.equals("END"))
+            return "ERR unknown command " + words[0];
+        if (words.length != (command.equals("MOVE") ? 3 : 2))
+            return "ERR wrong number of arguments for " + command;
+
+        Game game;
+        try {
+            game = games.get(Long.parseLong(words[1]));
+        } catch (NumberFormatException e) {
+            return "ERR bad game id " + words[1];
+        }
+        if (game == null)
+            return "ERR no game " + words[1];
+        if (command.equals("END")) {
+            games.remove(Long.parseLong(words[1]));
+            return "OK";
+        }
+        int square = 0;
+        if (command.equals("MOVE")) {
+            try {
+                square = BitBoard.parseSquare(words[2]);
+            } catch (IllegalArgumentException e) {
+                return "ERR bad square " + words[2];
+            }
+        }
+
+        synchronized (game) {
+            game.lastUsed = System.nanoTime();
+            Board board = game.board;
+            switch (command) {
+                case "MOVES":
+                    StringBuilder answer = new StringBuilder("OK");
+                    for (long m = board.getPlayableMask(); m != 0; m &= m - 1) {
+                        answer.append(' ').append(BitBoard.squareName(Long.numberOfTrailingZeros(m)));
+                    }
+                    return answer.toString();
+                case "BOARD":
+                    return "OK " + new BitBoard(board);
+                default:
+                    if (board.isGameOver())
+                        return "ERR game over";
+                    if ((board.getPlayableMask() & (1L << square)) == 0)
+                        return "ERR illegal move " + words[2];
+                    board.placeDisc(Coordinate.of(square));
+                    if (board.getPlayableMask() == 0 && !board.isGameOver())
+                        board.pass();
+                    moves.increment();
+                    String turn = board.isGameOver() ? "-" : board.getPlayerTurn() == Color.BLACK ? "X" : "O";
+                    return "OK " + turn + " " + board.getBlackCount() + " " + board.getWhiteCount();
+            }
+        }
+    }
+
+    /**
+     * A selector thread serving a share of the connections.
+     */
+    private final class Worker extends Thread {
+
+        final Selector selector;
+        final Queue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+
+        Worker(int number) throws IOException {
+            super("game-server-worker-" + number);
+            setDaemon(true);
+            this.selector = Selector.open();
+        }
+
+        void add(SocketChannel channel) {
+            added.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = added.poll()) != null) {
+                        channel.register(selector, SelectionKey.OP_READ, new Connection());
+                    }
+                    for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext(); ) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try {
+                            if (key.isReadable())
+                                read(key);
+                            if (key.isValid() && key.isWritable())
+                                write(key);
+                        } catch (IOException e) {
+                            closeConnection(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // the selector failed; the connections of this worker are closed below
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeConnection(key);
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+
+        /**
+         * Reads what the client sent and answers every complete line.
+         */
+        private void read(SelectionKey key) throws IOException {
+            Connection connection = (Connection) key.attachment();
+            SocketChannel channel = (SocketChannel) key.channel();
+            if (channel.read(connection.in) < 0) {
+                closeConnection(key);
+                return;
+            }
+            ByteBuffer in = connection.in;
+            in.flip();
+            int start = in.position();
+            for (int i = start; i < in.limit(); i++) {
+                if (in.get(i) != '\n')
+                    continue;
+                int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+                byte[] request = new byte[end - start];
+                in.get(start, request);
+                String line = new String(request, StandardCharsets.US_ASCII);
+                if (!line.isBlank())
+                    respond(connection, handle(line));
+                start = i + 1;
+            }
+            in.position(start);
+            in.compact();
+            if (!in.hasRemaining()) {
+                respond(connection, "ERR line too long");
+                write(key);
+                closeConnection(key);
+                return;
+            }
+            write(key);
+        }
+
+        private void respond(Connection connection, String answer) throws IOException {
+            byte[] bytes = (answer + "\n").getBytes(StandardCharsets.US_ASCII);
+            if (connection.out.remaining() < bytes.length) {
+                int needed = connection.out.position() + bytes.length;
+                if (needed > MAX_PENDING_OUTPUT)
+                    throw new IOException("client does not read its answers");
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, 2 * connection.out.capacity()));
+                connection.out.flip();
+                larger.put(connection.out);
+                connection.out = larger;
+            }
+            connection.out.put(bytes);
+        }
+
+        /**
+         * Sends as much of the pending answers as the socket takes, and waits for it to become writable if some are
+         * left.
+         */
+        private void write(SelectionKey key) throws IOException {
+            Connection connection = (Connection) key.attachment();
+            ByteBuffer out = connection.out;
+            out.flip();
+            ((SocketChannel) key.channel()).write(out);
+            key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            out.compact();
+        }
+
+        private void closeConnection(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // the connection is gone either way
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = DEFAULT_PORT;
+        int workers = Runtime.getRuntime().availableProcessors();
+        long idleSeconds = 300;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "-workers":
+                    workers = Integer.parseInt(args[++i]);
+                    break;
+                case "-idle":
+                    idleSeconds = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        GameServer server = new GameServer(port, workers, idleSeconds * 1000);
+        System.out.printf("serving games on localhost:%d with %d workers%n", server.getPort(), workers);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+                // the process is ending
+            }
+        }));
+        Thread.currentThread().join();
+    }
+}
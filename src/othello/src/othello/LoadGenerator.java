@@ -0,0 +1,234 @@
+package othello;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * LoadGenerator measures how many moves a {@link GameServer} sustains and how long each one takes. It opens a number
+ * of connections, starts a number of games on each and plays random moves in them in turn, one request at a time per
+ * connection, until the time is up. Every connection keeps its own BitBoard of each game to choose moves, like a bot
+ * would, and starts a new game when one ends.<p></p>
+ * The latency of a move is the time from sending the MOVE request to reading its answer. The results are the median
+ * and 99th percentile latency and the number of moves per second over all connections.<p></p>
+ * Usage: {@code LoadGenerator [-host name] [-port n] [-connections n] [-games n] [-seconds n]}, where -games is the
+ * number of live games per connection. Without -port, a server is started in the same JVM on a free port.
+ * @see GameServer
+ */
+public class LoadGenerator {
+
+    /**
+     * The outcome of a load run.
+     */
+    public static final class Report {
+        private final long moves;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        Report(long moves, long elapsedNanos, long[] sortedLatencies) {
+            this.moves = moves;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        /**
+         * @return the number of moves played
+         */
+        public long getMoves() {
+            return moves;
+        }
+
+        /**
+         * @return the number of moves played per second of the run
+         */
+        public double getMovesPerSecond() {
+            return moves * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @param percentile a number between 0 and 100
+         * @return the move latency below which the given percentage of moves stayed, in microseconds
+         */
+        public double getLatencyMicros(double percentile) {
+            if (sortedLatencies.length == 0)
+                return 0;
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, index))] / 1e3;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d moves in %.1f s: %.0f moves/sec, p50 %.0f us, p99 %.0f us", moves,
+                    elapsedNanos / 1e9, getMovesPerSecond(), getLatencyMicros(50), getLatencyMicros(99));
+        }
+    }
+
+    /**
+     * Runs the load.
+     * @param host the server's host name
+     * @param port the server's port
+     * @param connections the number of connections, each served by its own thread
+     * @param gamesPerConnection the number of live games on each connection
+     * @param millis how long to play
+     * @return the measured throughput and latencies
+     * @throws IOException if a connection fails or the server answers a move with an error
+     */
+    public static Report run(String host, int port, int connections, int gamesPerConnection, long millis)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000L;
+        List<Future<long[]>> clients = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            long seed = i;
+            clients.add(pool.submit(() -> play(host, port, gamesPerConnection, deadline, seed)));
+        }
+        List<long[]> latencies = new ArrayList<>();
+        try {
+            for (Future<long[]> client : clients) {
+                latencies.add(client.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException("client failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = new long[latencies.stream().mapToInt(l -> l.length).sum()];
+        int length = 0;
+        for (long[] l : latencies) {
+            System.arraycopy(l, 0, all, length, l.length);
+            length += l.length;
+        }
+        Arrays.sort(all);
+        return new Report(all.length, elapsed, all);
+    }
+
+    /**
+     * Plays on one connection until the deadline.
+     * @return the latency of every move in nanoseconds
+     */
+    private static long[] play(String host, int port, int games, long deadline, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] latencies = new long[1024];
+        int count = 0;
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            long[] ids = new long[games];
+            BitBoard[] boards = new BitBoard[games];
+            for (int g = 0; g < games; g++) {
+                ids[g] = Long.parseLong(call(reader, writer, "NEW").substring(3));
+                boards[g] = new BitBoard();
+            }
+            while (System.nanoTime() - deadline < 0) {
+                for (int g = 0; g < games; g++) {
+                    BitBoard board = boards[g];
+                    long playable = board.getPlayableMask();
+                    if (playable == 0) {
+                        call(reader, writer, "END " + ids[g]);
+                        ids[g] = Long.parseLong(call(reader, writer, "NEW").substring(3));
+                        boards[g] = new BitBoard();
+                        continue;
+                    }
+                    for (int skip = random.nextInt(Long.bitCount(playable)); skip > 0; skip--) {
+                        playable &= playable - 1;
+                    }
+                    int square = Long.numberOfTrailingZeros(playable);
+                    long sent = System.nanoTime();
+                    call(reader, writer, "MOVE " + ids[g] + " " + BitBoard.squareName(square));
+                    if (count == latencies.length)
+                        latencies = Arrays.copyOf(latencies, 2 * count);
+                    latencies[count++] = System.nanoTime() - sent;
+                    board.makeMove(square);
+                    if (board.getPlayableMask() == 0
+                            && BitBoard.generateMoves(board.getOpponent(), board.getOwn()) != 0)
+                        board.pass();
+                }
+            }
+            for (long id : ids) {
+                call(reader, writer, "END " + id);
+            }
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /**
+     * Sends one request and reads its answer.
+     * @throws IOException if the connection fails or the server answers with an error
+     */
+    private static String call(BufferedReader reader, Writer writer, String request) throws IOException {
+        writer.write(request);
+        writer.write('\n');
+        writer.flush();
+        String answer = reader.readLine();
+        if (answer == null)
+            throw new IOException("server closed the connection");
+        if (!answer.startsWith("OK"))
+            throw new IOException(request + ": " + answer);
+        return answer;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = "localhost";
+        int port = 0;
+        int connections = 16;
+        int games = 128;
+        int seconds = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-host":
+                    host = args[++i];
+                    break;
+                case "-port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "-connections":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        GameServer server = null;
+        if (port == 0) {
+            server = new GameServer(0, Runtime.getRuntime().availableProcessors(), 60_000);
+            port = server.getPort();
+        }
+        System.out.printf("%d connections with %d games each against %s:%d for %d s%n", connections, games, host,
+                port, seconds);
+        try {
+            System.out.println(run(host, port, connections, games, seconds * 1000L));
+        } finally {
+            if (server != null)
+                server.close();
+        }
+    }
+}
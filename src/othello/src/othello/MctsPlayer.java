@@ -0,0 +1,463 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MctsPlayer is a computer opponent that chooses moves with Monte Carlo tree search (UCT) instead of an evaluation
+ * function, which makes it useful where no good evaluator exists.<p></p>
+ * Every iteration walks down the tree from the root, picking the child with the best upper confidence bound, expands
+ * the leaf once it has been visited {@link #EXPAND_VISITS} times, plays the game out with random moves and adds the
+ * result to every node on the path. The move played is the root child with the most visits.<p></p>
+ * The tree lives in arrays preallocated for a fixed number of nodes: the position, the move and the first child of
+ * every node, and atomic visit and win counters. A playout only shifts masks with {@link BitBoard#generateMoves(long,
+ * long)} and {@link BitBoard#computeFlips(long, long, int)}, so iterations allocate nothing. The tree is kept between
+ * moves: when the next search starts from a child or grandchild of the previous root, that node becomes the root and
+ * its statistics are reused. The tree is rebuilt when the position is not found or when it is three quarters full.
+ * <p></p>
+ * Several threads search the same tree. A thread counts its visit on every node of its path on the way down, before
+ * the playout result is known, which works as a virtual loss: other threads see a worse win rate and choose other
+ * branches until the result arrives. A node is expanded by the thread that claims it with a compare-and-set; the
+ * others play out from it in the meantime. As in {@link ParallelSearch}, the caller's thread searches too and the
+ * others run on a ForkJoinPool owned by this object, which must be closed when no longer needed. With one thread and
+ * a playout budget instead of a time limit the search is deterministic.
+ * @see Player
+ * @see ParallelSearch
+ */
+public class MctsPlayer implements Player, AutoCloseable {
+
+    /**
+     * The number of visits after which a leaf is expanded, so single playouts do not each use up a node.
+     */
+    static final int EXPAND_VISITS = 2;
+
+    /**
+     * The weight of the exploration term of the upper confidence bound, for results between 0 and 1.
+     */
+    private static final double EXPLORATION = 1.0;
+
+    /**
+     * The value of {@link #firstChild} for a node that has not been expanded, and for one being expanded.
+     */
+    private static final int UNEXPANDED = -1;
+    private static final int EXPANDING = -2;
+
+    /**
+     * The longest path through the tree: one node per move and pass, plus the root.
+     */
+    private static final int MAX_PATH = 130;
+
+    private final long timeLimitMillis;
+    private final long maxPlayouts;
+    private final int capacity;
+
+    /**
+     * The tree. Node i holds the position after move[i] from the point of view of the player to move, the index of
+     * its first child and its number of children, and the visits and half-point wins of the player who moved into it.
+     */
+    private final long[] own;
+    private final long[] opponent;
+    private final byte[] move;
+    private final byte[] childCount;
+    private final AtomicIntegerArray firstChild;
+    private final AtomicIntegerArray visits;
+    private final AtomicIntegerArray wins;
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private volatile boolean full;
+    private int root;
+
+    private final SplittableRandom[] randoms;
+    private final ForkJoinPool pool;
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private volatile long playoutLimit;
+    private volatile long deadline;
+    private volatile boolean stopRequested;
+    private SearchResult lastResult;
+
+    /**
+     * @param threads the number of search threads, at least 1
+     * @param timeLimitMillis the wall-clock time each move may take, or 0 for no limit
+     * @param maxPlayouts the number of playouts each move may take, or 0 for no limit
+     * @param maxNodes the number of tree nodes to preallocate, about 40 bytes each
+     * @param seed the seed of the random playouts
+     * @throws IllegalArgumentException if neither a time limit nor a playout limit is given
+     */
+    public MctsPlayer(int threads, long timeLimitMillis, long maxPlayouts, int maxNodes, long seed) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        if (timeLimitMillis <= 0 && maxPlayouts <= 0)
+            throw new IllegalArgumentException("a time or playout limit is needed");
+        if (maxNodes < 1024)
+            throw new IllegalArgumentException("at least 1024 nodes are needed");
+        this.timeLimitMillis = timeLimitMillis;
+        this.maxPlayouts = maxPlayouts;
+        this.capacity = maxNodes;
+        own = new long[maxNodes];
+        opponent = new long[maxNodes];
+        move = new byte[maxNodes];
+        childCount = new byte[maxNodes];
+        firstChild = new AtomicIntegerArray(maxNodes);
+        visits = new AtomicIntegerArray(maxNodes);
+        wins = new AtomicIntegerArray(maxNodes);
+        randoms = new SplittableRandom[threads];
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < threads; i++) {
+            randoms[i] = seeds.split();
+        }
+        pool = threads > 1 ? new ForkJoinPool(threads - 1) : null;
+    }
+
+    /**
+     * Chooses a move for the player whose turn it is on the given board.
+     * @param board the current game
+     * @return the chosen move, or null if the player to move has no playable tiles
+     */
+    public Coordinate chooseMove(Board board) {
+        return search(new BitBoard(board)).getBestMove();
+    }
+
+    @Override
+    public int selectMove(BitBoard board) {
+        return search(board).getBestSquare();
+    }
+
+    /**
+     * Searches the given position on all threads within this player's limits.<p></p>
+     * The score of the result is the expected outcome of the best move for the player to move in permille, 1000 for a
+     * certain win and 500 for an even game, and its node count is the number of playouts. The depth is the length of
+     * the most visited line, which is also the principal variation.
+     * @param board the position to search
+     * @return the root child with the most visits
+     */
+    public SearchResult search(BitBoard board) {
+        long start = System.nanoTime();
+        if (board.getPlayableMask() == 0)
+            return new SearchResult(SearchResult.PASS, 0, 0, 0, System.nanoTime() - start, new int[0]);
+        prepareRoot(board.getOwn(), board.getOpponent());
+
+        stopRequested = false;
+        started.set(0);
+        completed.set(0);
+        playoutLimit = maxPlayouts > 0 ? maxPlayouts : Long.MAX_VALUE;
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000L : 0;
+        ArrayList<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < randoms.length; i++) {
+            SplittableRandom random = randoms[i];
+            helpers.add(pool.submit(() -> run(random)));
+        }
+        run(randoms[0]);
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("helper search failed", e.getCause());
+            }
+        }
+
+        long playouts = completed.get();
+        int[] line = principalVariation();
+        int best = mostVisitedChild(root);
+        int n = visits.get(best);
+        int score = n == 0 ? 500 : (int) (500L * wins.get(best) / n);
+        lastResult = new SearchResult(move[best], score, line.length, playouts, System.nanoTime() - start, line);
+        return lastResult;
+    }
+
+    /**
+     * Asks a running search to finish. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return the result of the last search, whose node count and nodes per second are its playouts, or null
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * @return the number of search threads, including the caller's
+     */
+    public int getThreads() {
+        return randoms.length;
+    }
+
+    /**
+     * @return the number of tree nodes in use, including those left over from earlier moves
+     */
+    public int getNodeCount() {
+        return Math.min(nextNode.get(), capacity);
+    }
+
+    /**
+     * @return the number of visits of the current root, which includes those of earlier moves when the tree was reused
+     */
+    int getRootVisits() {
+        return visits.get(root);
+    }
+
+    /**
+     * Shuts down the helper threads.
+     */
+    @Override
+    public void close() {
+        if (pool != null)
+            pool.shutdownNow();
+    }
+
+    /**
+     * Makes the node holding the given position the root, reusing it if it is the root, a child or a grandchild of
+     * the previous root, or rebuilding the tree otherwise. The root is always expanded.
+     */
+    private void prepareRoot(long rootOwn, long rootOpponent) {
+        if (nextNode.get() > 0 && nextNode.get() < capacity / 4 * 3) {
+            int found = find(root, rootOwn, rootOpponent, 2);
+            if (found >= 0 && (firstChild.get(found) >= 0 || expand(found))) {
+                root = found;
+                return;
+            }
+        }
+        nextNode.set(1);
+        full = false;
+        root = 0;
+        initNode(0, rootOwn, rootOpponent, SearchResult.PASS);
+        expand(0);
+    }
+
+    private int find(int node, long nodeOwn, long nodeOpponent, int plies) {
+        if (own[node] == nodeOwn && opponent[node] == nodeOpponent)
+            return node;
+        int first = firstChild.get(node);
+        if (plies == 0 || first < 0)
+            return -1;
+        for (int child = first; child < first + childCount[node]; child++) {
+            int found = find(child, nodeOwn, nodeOpponent, plies - 1);
+            if (found >= 0)
+                return found;
+        }
+        return -1;
+    }
+
+    private void initNode(int node, long nodeOwn, long nodeOpponent, int square) {
+        own[node] = nodeOwn;
+        opponent[node] = nodeOpponent;
+        move[node] = (byte) square;
+        childCount[node] = 0;
+        visits.set(node, 0);
+        wins.set(node, 0);
+        firstChild.set(node, UNEXPANDED);
+    }
+
+    /**
+     * Runs iterations until the playout limit, the deadline or a stop request.
+     */
+    private void run(SplittableRandom random) {
+        int[] path = new int[MAX_PATH];
+        long count = 0;
+        while (!stopRequested && (deadline == 0 || System.nanoTime() - deadline < 0)
+                && started.getAndIncrement() < playoutLimit) {
+            iterate(path, random);
+            count++;
+        }
+        completed.addAndGet(count);
+    }
+
+    /**
+     * One iteration: selection with virtual loss, expansion, a random playout and backpropagation.
+     */
+    private void iterate(int[] path, SplittableRandom random) {
+        int node = root;
+        int length = 0;
+        path[length++] = node;
+        visits.incrementAndGet(node);
+        while (true) {
+            int first = firstChild.get(node);
+            if (first < 0) {
+                if (first == EXPANDING || visits.get(node) < EXPAND_VISITS || !expand(node))
+                    break;
+                first = firstChild.get(node);
+            }
+            int count = childCount[node];
+            if (count == 0)
+                break;
+            node = select(node, first, count);
+            visits.incrementAndGet(node);
+            path[length++] = node;
+        }
+
+        int reward = 2 - playout(own[node], opponent[node], random);
+        for (int i = length - 1; i >= 0; i--) {
+            wins.addAndGet(path[i], reward);
+            reward = 2 - reward;
+        }
+    }
+
+    /**
+     * Adds the children of a leaf: one per legal move, a single pass child when only the opponent can move, or none
+     * when the game is over. Only the thread that claims the node expands it.
+     * @return whether the node now has its children
+     */
+    private boolean expand(int node) {
+        if (full || !firstChild.compareAndSet(node, UNEXPANDED, EXPANDING))
+            return false;
+        long nodeOwn = own[node];
+        long nodeOpponent = opponent[node];
+        long moves = BitBoard.generateMoves(nodeOwn, nodeOpponent);
+        int count = moves != 0 ? Long.bitCount(moves) : BitBoard.generateMoves(nodeOpponent, nodeOwn) != 0 ? 1 : 0;
+        int first = count == 0 ? 0 : nextNode.getAndAdd(count);
+        if (first + count > capacity) {
+            full = true;
+            firstChild.set(node, UNEXPANDED);
+            return false;
+        }
+        if (moves == 0 && count == 1) {
+            initNode(first, nodeOpponent, nodeOwn, SearchResult.PASS);
+        }
+        int child = first;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flips = BitBoard.computeFlips(nodeOwn, nodeOpponent, square);
+            initNode(child++, nodeOpponent & ~flips, nodeOwn | flips | (1L << square), square);
+        }
+        childCount[node] = (byte) count;
+        firstChild.set(node, first);
+        return true;
+    }
+
+    /**
+     * @return the child with the highest upper confidence bound, or the first one not visited yet
+     */
+    private int select(int parent, int first, int count) {
+        double logVisits = Math.log(Math.max(1, visits.get(parent)));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + count; child++) {
+            int n = visits.get(child);
+            if (n == 0)
+                return child;
+            double value = wins.get(child) / (2.0 * n) + EXPLORATION * Math.sqrt(logVisits / n);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays random moves until neither player can move.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @param random the source of the moves
+     * @return the result for the player to move in half points: 2 for a win, 1 for a draw, 0 for a loss
+     */
+    static int playout(long own, long opponent, SplittableRandom random) {
+        boolean swapped = false;
+        while (true) {
+            long moves = BitBoard.generateMoves(own, opponent);
+            if (moves == 0) {
+                if (BitBoard.generateMoves(opponent, own) == 0)
+                    break;
+            } else {
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                int square = Long.numberOfTrailingZeros(moves);
+                long flips = BitBoard.computeFlips(own, opponent, square);
+                own |= flips | (1L << square);
+                opponent &= ~flips;
+            }
+            long mover = own;
+            own = opponent;
+            opponent = mover;
+            swapped = !swapped;
+        }
+        int difference = Long.bitCount(own) - Long.bitCount(opponent);
+        if (swapped)
+            difference = -difference;
+        return difference > 0 ? 2 : difference == 0 ? 1 : 0;
+    }
+
+    private int mostVisitedChild(int node) {
+        int first = firstChild.get(node);
+        int best = first;
+        for (int child = first; child < first + childCount[node]; child++) {
+            if (visits.get(child) > visits.get(best))
+                best = child;
+        }
+        return best;
+    }
+
+    /**
+     * @return the moves of the line of most visited children from the root
+     */
+    private int[] principalVariation() {
+        int[] line = new int[MAX_PATH];
+        int length = 0;
+        int node = root;
+        while (firstChild.get(node) >= 0 && childCount[node] > 0) {
+            node = mostVisitedChild(node);
+            if (visits.get(node) == 0)
+                break;
+            line[length++] = move[node];
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    /**
+     * Measures playouts per second and playing strength for growing numbers of threads. Each thread count is played
+     * against a single-threaded MctsPlayer with the same time per move, so a rising score shows that the extra
+     * threads make the player stronger.<p></p>
+     * Usage: {@code MctsPlayer [-time ms] [-games n] [-threads max]}
+     */
+    public static void main(String[] args) throws Exception {
+        int time = 100;
+        int games = 20;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-time":
+                    time = Integer.parseInt(args[++i]);
+                    break;
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    maxThreads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        int moveTime = time;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            int searchThreads = threads;
+            try (MctsPlayer player = new MctsPlayer(searchThreads, 1000, 0, 1 << 22, 1)) {
+                player.search(new BitBoard());
+                SearchResult result = player.search(new BitBoard());
+                System.out.printf("%d threads: %,d playouts/sec", searchThreads, result.getNodesPerSecond());
+            }
+            if (games > 0) {
+                AtomicLong seeds = new AtomicLong();
+                TournamentResult match = new Tournament("mcts" + searchThreads,
+                        () -> new MctsPlayer(searchThreads, moveTime, 0, 1 << 20, seeds.incrementAndGet()),
+                        "mcts1", () -> new MctsPlayer(1, moveTime, 0, 1 << 20, seeds.incrementAndGet()),
+                        Tournament.openings(4), 1).run(games, null);
+                System.out.print(", against 1 thread: " + match);
+            }
+            System.out.println();
+        }
+    }
+}
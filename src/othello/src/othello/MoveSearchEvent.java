@@ -0,0 +1,48 @@
+package othello;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one search of {@link AlphaBetaPlayer}, from the position to the chosen move. Its
+ * duration is the time of the search, and it carries the memory the searching thread allocated and the garbage
+ * collections that ran in the meantime.
+ * @see EngineMetrics
+ * @see SearchIterationEvent
+ */
+@Name("othello.MoveSearch")
+@Label("Move Search")
+@Category({"Othello", "Search"})
+@Description("The search for one move")
+@StackTrace(false)
+class MoveSearchEvent extends jdk.jfr.Event {
+
+    @Label("Empties")
+    int empties;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    int score;
+
+    @Label("Best Move")
+    String bestMove;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Nodes per Second")
+    long nodesPerSecond;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Garbage Collections")
+    long collections;
+}
@@ -0,0 +1,237 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * OpeningBook looks up the value of early positions that were played or searched before, so a player does not have
+ * to search the first moves of every game from scratch.<p></p>
+ * Positions are stored in canonical form: of the 8 symmetric images of a position, the one with the smallest
+ * {@code own} mask and then the smallest {@code opponent} mask, compared as unsigned numbers. A position and its
+ * rotations and reflections therefore share one entry, which makes the book 8 times smaller for the same coverage
+ * and lets it answer for a symmetric line it has never seen.<p></p>
+ * The book file is memory-mapped read-only and searched in place: the entries are sorted by their canonical masks
+ * and a lookup is a binary search over the mapped buffer. Nothing is read into the heap, opening a book costs
+ * almost nothing and a lookup, at well under a microsecond, is cheap enough to make at every node of the first
+ * plies.<p></p>
+ * File layout, little-endian like {@link WeightTable}: the int {@link #MAGIC}, the int {@link #VERSION}, the number
+ * of entries and the number of plies the book covers, followed by the entries of {@link #ENTRY_BYTES} bytes each:
+ * the canonical own and opponent masks as longs, the number of games through the position as an int, the score as a
+ * short and two unused bytes.
+ * @see OpeningBookBuilder
+ */
+public class OpeningBook {
+
+    /**
+     * The first four bytes of a book file, "OTBK".
+     */
+    public static final int MAGIC = 0x4F54424B;
+
+    /**
+     * The file layout version this class reads and writes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of one entry in the file.
+     */
+    static final int ENTRY_BYTES = 24;
+
+    /**
+     * The size of the file header.
+     */
+    static final int HEADER_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final int maxPlies;
+
+    /**
+     * @param entries the sorted entries
+     * @param maxPlies the number of plies from the start position the book covers
+     */
+    private OpeningBook(ByteBuffer entries, int maxPlies) {
+        this.entries = entries;
+        this.size = entries.limit() / ENTRY_BYTES;
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Maps a book file into memory. The file is not read; entries are paged in as lookups touch them.
+     * @param file the book file
+     * @return the mapped book
+     * @throws IOException if the file cannot be mapped or does not hold a book
+     */
+    public static OpeningBook map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not an opening book");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has opening book version " + buffer.getInt(4) + ", expected " + VERSION);
+        int size = buffer.getInt(8);
+        if (size < 0 || buffer.limit() != HEADER_BYTES + (long) size * ENTRY_BYTES)
+            throw new IOException(file + " should hold " + size + " entries but has " + buffer.limit() + " bytes");
+        buffer.position(HEADER_BYTES);
+        return new OpeningBook(buffer.slice().order(ByteOrder.LITTLE_ENDIAN), buffer.getInt(12));
+    }
+
+    /**
+     * Writes a book file.
+     * @param file the file to create or replace
+     * @param maxPlies the number of plies from the start position the book covers
+     * @param own the canonical own masks, sorted as described in the class comment
+     * @param opponent the canonical opponent masks, in the same order
+     * @param games the number of games through each position
+     * @param scores the score of each position for the player to move
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path file, int maxPlies, long[] own, long[] opponent, int[] games, short[] scores)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + own.length * ENTRY_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(own.length).putInt(maxPlies);
+        for (int i = 0; i < own.length; i++) {
+            buffer.putLong(own[i]).putLong(opponent[i]).putInt(games[i]).putShort(scores[i]).putShort((short) 0);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * @return the number of positions in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of plies from the start position the book covers
+     */
+    public int getMaxPlies() {
+        return maxPlies;
+    }
+
+    /**
+     * Finds a position or any of its symmetric images in the book.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @return the index of the entry, for {@link #getScore(int)} and {@link #getGames(int)}, or -1 if the position
+     * is not in the book
+     */
+    public int find(long own, long opponent) {
+        int symmetry = canonicalSymmetry(own, opponent);
+        long canonicalOwn = BitBoard.transform(own, symmetry);
+        long canonicalOpponent = BitBoard.transform(opponent, symmetry);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = middle * ENTRY_BYTES;
+            int order = Long.compareUnsigned(entries.getLong(offset), canonicalOwn);
+            if (order == 0)
+                order = Long.compareUnsigned(entries.getLong(offset + 8), canonicalOpponent);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the symmetry that turns a position into its canonical form.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @return the symmetry to pass to {@link BitBoard#transform(long, int)} for both masks
+     */
+    static int canonicalSymmetry(long own, long opponent) {
+        int best = 0;
+        long bestOwn = own;
+        long bestOpponent = opponent;
+        for (int symmetry = 1; symmetry < BitBoard.SYMMETRIES; symmetry++) {
+            long o = BitBoard.transform(own, symmetry);
+            int order = Long.compareUnsigned(o, bestOwn);
+            if (order > 0)
+                continue;
+            long p = BitBoard.transform(opponent, symmetry);
+            if (order < 0 || Long.compareUnsigned(p, bestOpponent) < 0) {
+                best = symmetry;
+                bestOwn = o;
+                bestOpponent = p;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param index an index returned by {@link #find(long, long)}
+     * @return the expected final disc difference for the player to move
+     */
+    public int getScore(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 20);
+    }
+
+    /**
+     * @param index an index returned by {@link #find(long, long)}
+     * @return the number of games the book was built from that went through the position
+     */
+    public int getGames(int index) {
+        return entries.getInt(index * ENTRY_BYTES + 16);
+    }
+
+    /**
+     * Chooses the book move with the best score for the player to move. Only moves that lead to a position played in
+     * at least {@code minGames} games are considered, so a single lucky game does not decide the move.
+     * @param board the current position; it is not changed
+     * @param minGames the number of games a position needs to be trusted
+     * @return the best book move with its score as final disc difference and depth 0, or null if no move leads to a
+     * trusted book position
+     */
+    public SearchResult probe(BitBoard board, int minGames) {
+        long start = System.nanoTime();
+        long own = board.getOwn();
+        long opponent = board.getOpponent();
+        if (Long.bitCount(own | opponent) - 3 > maxPlies)
+            return null;
+        int bestSquare = SearchResult.PASS;
+        int bestScore = Integer.MIN_VALUE;
+        int lookups = 0;
+        for (long m = BitBoard.generateMoves(own, opponent); m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            long flips = BitBoard.computeFlips(own, opponent, square);
+            long childOwn = opponent & ~flips;
+            long childOpponent = own | flips | (1L << square);
+            // positions in which the player to move must pass are stored after the pass
+            boolean pass = BitBoard.generateMoves(childOwn, childOpponent) == 0;
+            int index = pass ? find(childOpponent, childOwn) : find(childOwn, childOpponent);
+            lookups++;
+            if (index < 0 || getGames(index) < minGames)
+                continue;
+            int score = pass ? getScore(index) : -getScore(index);
+            if (score > bestScore) {
+                bestScore = score;
+                bestSquare = square;
+            }
+        }
+        if (bestSquare == SearchResult.PASS)
+            return null;
+        return new SearchResult(bestSquare, bestScore, 0, lookups, System.nanoTime() - start, new int[]{bestSquare});
+    }
+}
@@ -0,0 +1,330 @@
+package othello;
+
+import java.awt.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * OpeningBookBuilder grows an {@link OpeningBook} from finished games, either played by engines against each other or
+ * imported from a game collection.<p></p>
+ * Every position of the first {@code maxPlies} plies of a game is recorded in canonical form together with the
+ * number of games through it and the sum of their final disc differences. When the book is written, each position
+ * gets a negamax value: the best value of its moves that lead to a position played at least {@code minGames} times,
+ * or the average result of its own games if there is no such move. The averages of the least explored positions are
+ * thus backed up along the best lines instead of being mixed with results of moves nobody should play.<p></p>
+ * The builder keeps the positions in memory while games are added; only the written book is memory-mapped.<p></p>
+ * Usage: {@code OpeningBookBuilder [-games n] [-random n] [-plies n] [-min n] [-player spec] [-in file]
+ * [-records file] [-out file]} plays {@code -games} self-play games, each starting with {@code -random} random moves
+ * for variety, adds the games of a text file in which every line lists the moves of one game such as
+ * {@code f5d6c3d3c4} and those of a record file, and writes the book.
+ * @see OpeningBook
+ * @see Tournament#parsePlayer(String)
+ */
+public class OpeningBookBuilder {
+
+    /**
+     * The number of plies a book covers unless told otherwise.
+     */
+    public static final int DEFAULT_MAX_PLIES = 15;
+
+    /**
+     * A canonical position and what is known about it.
+     */
+    private static final class Node {
+        final long own;
+        final long opponent;
+        int games;
+        long resultSum;
+        boolean valued;
+        int value;
+
+        Node(long own, long opponent) {
+            this.own = own;
+            this.opponent = opponent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Node that = (Node) o;
+            return own == that.own && opponent == that.opponent;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(own * 0x9E3779B97F4A7C15L ^ opponent);
+        }
+    }
+
+    private final int maxPlies;
+    private final Map<Node, Node> nodes = new HashMap<>();
+
+    /**
+     * @param maxPlies the number of plies from the start position to record
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        if (maxPlies < 0 || maxPlies > 60)
+            throw new IllegalArgumentException("maxPlies must be between 0 and 60");
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * @return the number of distinct positions recorded so far
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Records a game played from the start position. Passes may be given as {@link SearchResult#PASS} or left out.
+     * @param moves the bit indices of the moves in the order they were played
+     * @return true if the game was recorded, false if it does not reach the end of the game
+     * @throws IllegalArgumentException if a move is not playable
+     */
+    public boolean addGame(int[] moves) {
+        BitBoard board = new BitBoard();
+        List<Node> line = new ArrayList<>();
+        List<Boolean> blackToMove = new ArrayList<>();
+        int i = 0;
+        while (true) {
+            long playable = board.getPlayableMask();
+            if (playable == 0) {
+                if (BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0)
+                    break;
+                board.pass();
+                if (i < moves.length && moves[i] == SearchResult.PASS)
+                    i++;
+                continue;
+            }
+            if (i == moves.length)
+                return false;
+            if (Long.bitCount(board.getOwn() | board.getOpponent()) - 4 <= maxPlies) {
+                line.add(canonical(board.getOwn(), board.getOpponent()));
+                blackToMove.add(board.getPlayerTurn() == Color.BLACK);
+            }
+            int square = moves[i++];
+            if (square < 0 || square > 63 || (playable & (1L << square)) == 0)
+                throw new IllegalArgumentException("move " + i + " is not playable in " + board);
+            board.makeMove(square);
+        }
+
+        int[] discs = board.getDiscCount();
+        int empties = 64 - discs[0] - discs[1];
+        int difference = discs[0] - discs[1];
+        int blackResult = difference > 0 ? difference + empties : difference < 0 ? difference - empties : 0;
+        for (int n = 0; n < line.size(); n++) {
+            Node node = nodes.computeIfAbsent(line.get(n), key -> key);
+            node.games++;
+            node.resultSum += blackToMove.get(n) ? blackResult : -blackResult;
+        }
+        return true;
+    }
+
+    /**
+     * Plays games between two engines and records them. Each game starts with a number of random moves, so the games
+     * explore different openings even when the engines are deterministic.
+     * @param black the player with the Black Discs
+     * @param white the player with the White Discs
+     * @param games the number of games to play
+     * @param randomPlies the number of random moves at the start of each game
+     * @param random the source of the random moves
+     */
+    public void addSelfPlay(Player black, Player white, int games, int randomPlies, SplittableRandom random) {
+        int[] moves = new int[120];
+        for (int game = 0; game < games; game++) {
+            BitBoard board = new BitBoard();
+            int length = 0;
+            while (true) {
+                long playable = board.getPlayableMask();
+                if (playable == 0) {
+                    if (BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0)
+                        break;
+                    board.pass();
+                    moves[length++] = SearchResult.PASS;
+                    continue;
+                }
+                int square;
+                if (length < randomPlies) {
+                    for (int skip = random.nextInt(Long.bitCount(playable)); skip > 0; skip--) {
+                        playable &= playable - 1;
+                    }
+                    square = Long.numberOfTrailingZeros(playable);
+                } else {
+                    Player mover = board.getPlayerTurn() == Color.BLACK ? black : white;
+                    square = mover.selectMove(board);
+                }
+                board.makeMove(square);
+                moves[length++] = square;
+            }
+            addGame(Arrays.copyOf(moves, length));
+        }
+    }
+
+    /**
+     * Records the games of a text file. Each line holds the moves of one game in the usual notation, such as
+     * {@code f5d6c3d3c4}, optionally separated by spaces. Empty lines and lines starting with # are skipped, as are
+     * games that do not reach the end.
+     * @param file the game collection
+     * @return the number of games recorded
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line holds an unknown square or an illegal move
+     * @see GameRecord#parse(String)
+     */
+    public int addGames(Path file) throws IOException {
+        int recorded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                if (text.isBlank() || text.trim().startsWith("#"))
+                    continue;
+                if (addGame(GameRecord.parse(text).getMoves()))
+                    recorded++;
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Records the games of a record file, such as one imported from a WTHOR database. Games that do not reach the
+     * end are skipped.
+     * @param file the record file
+     * @return the number of games recorded
+     * @throws IOException if the file cannot be read or is not a record file
+     * @see GameRecordReader
+     */
+    public long addRecords(Path file) throws IOException {
+        long recorded = 0;
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            GameRecord record;
+            while ((record = reader.read()) != null) {
+                if (addGame(record.getMoves()))
+                    recorded++;
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Computes the value of every position and writes the book, sorted by canonical position.
+     * @param file the file to create or replace
+     * @param minGames the number of games a move needs before its value replaces the average of its parent
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file, int minGames) throws IOException {
+        Node[] sorted = nodes.values().toArray(new Node[0]);
+        Arrays.sort(sorted, (a, b) -> {
+            int order = Long.compareUnsigned(a.own, b.own);
+            return order != 0 ? order : Long.compareUnsigned(a.opponent, b.opponent);
+        });
+        for (Node node : nodes.values()) {
+            node.valued = false;
+        }
+        long[] own = new long[sorted.length];
+        long[] opponent = new long[sorted.length];
+        int[] games = new int[sorted.length];
+        short[] scores = new short[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            own[i] = sorted[i].own;
+            opponent[i] = sorted[i].opponent;
+            games[i] = sorted[i].games;
+            scores[i] = (short) value(sorted[i], minGames);
+        }
+        OpeningBook.write(file, maxPlies, own, opponent, games, scores);
+    }
+
+    /**
+     * The negamax value of a recorded position, computed once per write.
+     */
+    private int value(Node node, int minGames) {
+        if (node.valued)
+            return node.value;
+        int best = Integer.MIN_VALUE;
+        for (long m = BitBoard.generateMoves(node.own, node.opponent); m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            long flips = BitBoard.computeFlips(node.own, node.opponent, square);
+            long childOwn = node.opponent & ~flips;
+            long childOpponent = node.own | flips | (1L << square);
+            // positions in which the player to move must pass are recorded after the pass
+            boolean pass = BitBoard.generateMoves(childOwn, childOpponent) == 0;
+            Node child = pass ? find(childOpponent, childOwn) : find(childOwn, childOpponent);
+            if (child != null && child.games >= minGames)
+                best = Math.max(best, pass ? value(child, minGames) : -value(child, minGames));
+        }
+        node.value = best != Integer.MIN_VALUE ? best : Math.round((float) node.resultSum / node.games);
+        node.valued = true;
+        return node.value;
+    }
+
+    private Node find(long own, long opponent) {
+        return nodes.get(canonical(own, opponent));
+    }
+
+    private static Node canonical(long own, long opponent) {
+        int symmetry = OpeningBook.canonicalSymmetry(own, opponent);
+        return new Node(BitBoard.transform(own, symmetry), BitBoard.transform(opponent, symmetry));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = 1000;
+        int randomPlies = 8;
+        int plies = DEFAULT_MAX_PLIES;
+        int minGames = 2;
+        String player = "alphabeta:depth=4";
+        Path input = null;
+        Path records = null;
+        Path output = Paths.get("book.bin");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-random":
+                    randomPlies = Integer.parseInt(args[++i]);
+                    break;
+                case "-plies":
+                    plies = Integer.parseInt(args[++i]);
+                    break;
+                case "-min":
+                    minGames = Integer.parseInt(args[++i]);
+                    break;
+                case "-player":
+                    player = args[++i];
+                    break;
+                case "-in":
+                    input = Paths.get(args[++i]);
+                    break;
+                case "-records":
+                    records = Paths.get(args[++i]);
+                    break;
+                case "-out":
+                    output = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        long start = System.nanoTime();
+        if (input != null)
+            System.out.printf("imported %d games from %s%n", builder.addGames(input), input);
+        if (records != null)
+            System.out.printf("imported %d games from %s%n", builder.addRecords(records), records);
+        Supplier<Player> players = Tournament.parsePlayer(player);
+        builder.addSelfPlay(players.get(), players.get(), games, randomPlies, new SplittableRandom(2410));
+        builder.write(output, minGames);
+        System.out.printf("wrote %d positions to %s in %.1f s%n", builder.size(), output,
+                (System.nanoTime() - start) / 1e9);
+    }
+}
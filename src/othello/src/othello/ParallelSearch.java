@@ -0,0 +1,135 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * ParallelSearch spreads an alpha-beta search over several cores with Lazy SMP: every thread runs its own
+ * {@link AlphaBetaPlayer} on the same position and all of them share one {@link TranspositionTable}. The helper
+ * threads do not split the tree explicitly; they fill the shared table with results that the main thread then finds
+ * instead of searching. Odd helpers start one iteration deeper than the main thread so the threads drift apart
+ * instead of searching the same nodes in lockstep.<p></p>
+ * The main thread runs on the caller and decides the result. When it finishes, the helpers are told to stop. With a
+ * single thread no helpers are started and the result is the same as a plain AlphaBetaPlayer with a table, so fixed
+ * depth searches are deterministic.<p></p>
+ * Helpers run on a ForkJoinPool owned by this object, which must be closed when no longer needed.
+ * @see Player
+ * @see AlphaBetaPlayer
+ * @see TranspositionTable
+ */
+public class ParallelSearch implements Player, AutoCloseable {
+
+    private final int maxDepth;
+    private final long timeLimitMillis;
+    private final TranspositionTable table;
+    private final AlphaBetaPlayer[] players;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param evaluator scores leaf positions; it is shared by all threads and must be thread safe
+     * @param maxDepth the deepest iteration to search, between 1 and AlphaBetaPlayer.MAX_DEPTH
+     * @param timeLimitMillis the wall-clock time each move may take, or 0 for no limit
+     * @param threads the number of search threads, at least 1
+     * @param tableMegabytes the size of the shared transposition table
+     */
+    public ParallelSearch(Evaluator evaluator, int maxDepth, long timeLimitMillis, int threads, int tableMegabytes) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        this.maxDepth = maxDepth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.table = new TranspositionTable(tableMegabytes);
+        this.players = new AlphaBetaPlayer[threads];
+        for (int i = 0; i < threads; i++) {
+            players[i] = new AlphaBetaPlayer(evaluator, maxDepth, timeLimitMillis, table);
+        }
+        this.pool = threads > 1 ? new ForkJoinPool(threads - 1) : null;
+    }
+
+    /**
+     * Chooses a move for the player whose turn it is on the given board, within this search's depth and time limits.
+     * @param board the current game
+     * @return the chosen move, or null if the player to move has no playable tiles
+     */
+    public Coordinate chooseMove(Board board) {
+        return search(new BitBoard(board), maxDepth, timeLimitMillis).getBestMove();
+    }
+
+    @Override
+    public int selectMove(BitBoard board) {
+        return search(board, maxDepth, timeLimitMillis).getBestSquare();
+    }
+
+    /**
+     * Searches the given position on all threads.
+     * @param board the position to search
+     * @param maxDepth the deepest iteration the main thread searches
+     * @param timeLimitMillis the wall-clock time the search may take, or 0 for no limit
+     * @return the main thread's result, with the node count of all threads combined
+     */
+    public SearchResult search(BitBoard board, int maxDepth, long timeLimitMillis) {
+        long start = System.nanoTime();
+        long deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000L : 0;
+        table.newSearch();
+
+        ArrayList<Future<SearchResult>> helpers = new ArrayList<>();
+        for (int i = 1; i < players.length; i++) {
+            AlphaBetaPlayer helper = players[i];
+            int firstDepth = 1 + (i & 1);
+            helper.resetStop();
+            helpers.add(pool.submit(() -> helper.iterate(board, firstDepth, AlphaBetaPlayer.MAX_DEPTH, deadline)));
+        }
+
+        players[0].resetStop();
+        SearchResult main = players[0].iterate(board, 1, maxDepth, deadline);
+
+        long nodes = main.getNodes();
+        for (int i = 1; i < players.length; i++) {
+            players[i].stop();
+        }
+        for (Future<SearchResult> helper : helpers) {
+            try {
+                nodes += helper.get().getNodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("helper search failed", e.getCause());
+            }
+        }
+        return new SearchResult(main.getBestSquare(), main.getScore(), main.getDepth(), nodes,
+                System.nanoTime() - start, main.getPrincipalVariation());
+    }
+
+    /**
+     * Stops a running search on all threads. Safe to call from any thread.
+     */
+    public void stop() {
+        for (AlphaBetaPlayer player : players) {
+            player.stop();
+        }
+    }
+
+    /**
+     * @return the number of search threads, including the caller's
+     */
+    public int getThreads() {
+        return players.length;
+    }
+
+    /**
+     * @return the transposition table shared by all threads
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Shuts down the helper threads.
+     */
+    @Override
+    public void close() {
+        if (pool != null)
+            pool.shutdownNow();
+    }
+}
@@ -0,0 +1,415 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * PatternEvaluator scores a position by looking up every edge, corner region, line and diagonal of the board in a
+ * table of learned weights, plus a weight for the mobility difference. This is the evaluation used by the strongest
+ * classic Othello programs: a pattern sees how the Discs along an edge or around a corner work together, which a
+ * weight per square cannot.<p></p>
+ * Each pattern is a fixed list of squares. Its index is a base 3 number with one digit per square: 0 empty, 1 a Disc
+ * of the player to move, 2 a Disc of the opponent. The index is computed straight from the Disc masks: the pattern's
+ * bits are gathered from each mask with a few shifts, or a multiplication for diagonals, and a 1024-entry table turns
+ * the bits into base 3. To apply a pattern at each of its symmetric places, the masks are transformed instead of the
+ * pattern, so all places share one table and one gathering routine. The game is split into {@link #PHASES}
+ * phases by the number of Discs on the board, and every phase has its own set of tables, because a Disc on an edge
+ * means something different in the opening than near the end.<p></p>
+ * The weights come from a {@link WeightTable}, which is memory-mapped and may be shared between threads and
+ * processes. {@link #writeSeedWeights(Path)} creates a starting table derived from {@link PositionalEvaluator} until
+ * tuned weights are available.
+ * @see Evaluator
+ * @see WeightTable
+ */
+public class PatternEvaluator implements Evaluator {
+
+    /**
+     * The number of game phases, each with its own weights.
+     * @see #phase(long, long)
+     */
+    public static final int PHASES = 6;
+
+    /**
+     * Mobility differences beyond this are counted as this.
+     */
+    static final int MOBILITY_RANGE = 32;
+
+    static final int EDGE_2X = 0;
+    static final int CORNER_3X3 = 1;
+    static final int CORNER_2X5 = 2;
+    static final int LINE_2 = 3;
+    static final int LINE_3 = 4;
+    static final int LINE_4 = 5;
+    static final int DIAGONAL_8 = 6;
+
+    /**
+     * The squares of each pattern in its base place on the board, least significant digit first. The order must
+     * match {@link #key(int, long)}.
+     */
+    static final int[][] PATTERNS = {
+            concat(row(0), new int[]{BitBoard.square(1, 1), BitBoard.square(1, 6)}),
+            rectangle(3, 3),
+            rectangle(2, 5),
+            row(1),
+            row(2),
+            row(3),
+            diagonal(0),
+            diagonal(1),
+            diagonal(2),
+            diagonal(3),
+            diagonal(4)
+    };
+
+    /**
+     * The symmetries the board is transformed by to bring each place of a pattern to its base place. Symmetries that
+     * would only read the same squares in another order are left out.
+     * @see BitBoard#transform(long, int)
+     */
+    private static final int[][] PATTERN_SYMMETRIES = {
+            {0, 2, 4, 6},
+            {0, 1, 2, 3},
+            {0, 1, 2, 3, 4, 5, 6, 7},
+            {0, 2, 4, 6},
+            {0, 2, 4, 6},
+            {0, 2, 4, 6},
+            {0, 1},
+            {0, 1, 2, 3},
+            {0, 1, 2, 3},
+            {0, 1, 2, 3},
+            {0, 1, 2, 3}
+    };
+
+    /**
+     * The patterns read from the board transformed by each symmetry, the inverse of PATTERN_SYMMETRIES.
+     */
+    private static final int[][] SYMMETRY_PATTERNS = new int[BitBoard.SYMMETRIES][];
+
+    static {
+        for (int symmetry = 0; symmetry < BitBoard.SYMMETRIES; symmetry++) {
+            int count = 0;
+            int[] patterns = new int[PATTERNS.length];
+            for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+                for (int applied : PATTERN_SYMMETRIES[pattern]) {
+                    if (applied == symmetry)
+                        patterns[count++] = pattern;
+                }
+            }
+            SYMMETRY_PATTERNS[symmetry] = Arrays.copyOf(patterns, count);
+        }
+    }
+
+    /**
+     * The squares (i, i + offset) of each diagonal pattern, indexed by offset.
+     */
+    private static final long[] DIAGONALS = new long[5];
+
+    static {
+        for (int offset = 0; offset < DIAGONALS.length; offset++) {
+            for (int square : diagonal(offset)) {
+                DIAGONALS[offset] |= 1L << square;
+            }
+        }
+    }
+
+    /**
+     * BASE_3[bits] is the base 3 number whose digit i is bit i of bits.
+     */
+    private static final int[] BASE_3 = new int[1 << 10];
+
+    static {
+        for (int bits = 1; bits < BASE_3.length; bits++) {
+            int lowest = Integer.numberOfTrailingZeros(bits);
+            int power = 1;
+            for (int i = 0; i < lowest; i++) {
+                power *= 3;
+            }
+            BASE_3[bits] = BASE_3[bits & (bits - 1)] + power;
+        }
+    }
+
+    /**
+     * The table number of the mobility weights, which follow the pattern tables.
+     */
+    static final int MOBILITY = PATTERNS.length;
+
+    /**
+     * The number of weights in each table: 3 to the power of the pattern length, then the mobility table.
+     */
+    static final int[] TABLE_SIZES = tableSizes();
+
+    /**
+     * The number of weights in one phase, and the position of every table's first weight within the phase.
+     */
+    static final int PHASE_SIZE;
+    private static final int[] TABLE_OFFSETS = new int[TABLE_SIZES.length];
+
+    static {
+        int size = 0;
+        for (int table = 0; table < TABLE_SIZES.length; table++) {
+            TABLE_OFFSETS[table] = size;
+            size += TABLE_SIZES[table];
+        }
+        PHASE_SIZE = size;
+    }
+
+    /**
+     * The number of weights {@link #evaluate(long, long)} adds up: one per pattern place, and the mobility weight.
+     */
+    static final int FEATURES = featureCount();
+
+    private final WeightTable weights;
+
+    /**
+     * The position in the weight table of every table's first weight, by phase.
+     */
+    private final int[][] offsets = new int[PHASES][TABLE_SIZES.length];
+
+    /**
+     * @param weights the weights to score with; their layout must match this evaluator's patterns
+     * @throws IllegalArgumentException if the table has a different number of phases or different table sizes
+     */
+    public PatternEvaluator(WeightTable weights) {
+        if (weights.getPhases() != PHASES || weights.getTables() != TABLE_SIZES.length)
+            throw new IllegalArgumentException("weight table layout does not match the patterns");
+        for (int table = 0; table < TABLE_SIZES.length; table++) {
+            if (weights.getSize(table) != TABLE_SIZES[table])
+                throw new IllegalArgumentException("weight table " + table + " has " + weights.getSize(table)
+                        + " weights, expected " + TABLE_SIZES[table]);
+        }
+        this.weights = weights;
+        for (int phase = 0; phase < PHASES; phase++) {
+            for (int table = 0; table < TABLE_SIZES.length; table++) {
+                offsets[phase][table] = weights.offset(phase, table);
+            }
+        }
+    }
+
+    @Override
+    public int evaluate(long own, long opponent) {
+        int[] offset = offsets[phase(own, opponent)];
+        int score = 0;
+        for (int symmetry = 0; symmetry < BitBoard.SYMMETRIES; symmetry++) {
+            long transformedOwn = BitBoard.transform(own, symmetry);
+            long transformedOpponent = BitBoard.transform(opponent, symmetry);
+            for (int pattern : SYMMETRY_PATTERNS[symmetry]) {
+                score += weights.get(offset[pattern] + index(pattern, transformedOwn, transformedOpponent));
+            }
+        }
+        return score + weights.get(offset[MOBILITY] + mobilityIndex(own, opponent));
+    }
+
+    /**
+     * Lists the weights {@link #evaluate(long, long)} adds up for a position, so that a tuner can fit them. The score
+     * of the position is the sum of the weights at the listed positions.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @param features receives {@link #FEATURES} positions of weights in file order
+     * @param from the position in features to write the first one to
+     * @see WeightTuner
+     */
+    static void features(long own, long opponent, int[] features, int from) {
+        int base = phase(own, opponent) * PHASE_SIZE;
+        for (int symmetry = 0; symmetry < BitBoard.SYMMETRIES; symmetry++) {
+            long transformedOwn = BitBoard.transform(own, symmetry);
+            long transformedOpponent = BitBoard.transform(opponent, symmetry);
+            for (int pattern : SYMMETRY_PATTERNS[symmetry]) {
+                features[from++] = base + TABLE_OFFSETS[pattern] + index(pattern, transformedOwn, transformedOpponent);
+            }
+        }
+        features[from] = base + TABLE_OFFSETS[MOBILITY] + mobilityIndex(own, opponent);
+    }
+
+    /**
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @return the game phase, from 0 with 4 Discs on the board to PHASES - 1 with 64
+     */
+    static int phase(long own, long opponent) {
+        return (Long.bitCount(own | opponent) - 4) * PHASES / 61;
+    }
+
+    /**
+     * Reads a pattern in its base place.
+     * @param pattern the pattern number
+     * @param own the Discs of the player to move, already transformed to bring the place to the base place
+     * @param opponent the Discs of the other player, transformed the same way
+     * @return the index into the pattern's table
+     */
+    static int index(int pattern, long own, long opponent) {
+        return BASE_3[key(pattern, own)] + 2 * BASE_3[key(pattern, opponent)];
+    }
+
+    /**
+     * Gathers the bits of a pattern's squares from a mask, the first square of {@link #PATTERNS} in the lowest bit.
+     * Diagonals hold at most one square per column, so multiplying by 0x0101010101010101 adds all rows into the top
+     * byte without carries.
+     * @param pattern the pattern number
+     * @param mask the Discs to read
+     * @return the pattern's squares as a number of up to 10 bits
+     */
+    static int key(int pattern, long mask) {
+        switch (pattern) {
+            case EDGE_2X:
+                return (int) (mask & 0xFF) | (int) (mask >>> 9 & 1) << 8 | (int) (mask >>> 14 & 1) << 9;
+            case CORNER_3X3:
+                return (int) (mask & 7) | (int) (mask >>> 8 & 7) << 3 | (int) (mask >>> 16 & 7) << 6;
+            case CORNER_2X5:
+                return (int) (mask & 31) | (int) (mask >>> 8 & 31) << 5;
+            case LINE_2:
+                return (int) (mask >>> 8 & 0xFF);
+            case LINE_3:
+                return (int) (mask >>> 16 & 0xFF);
+            case LINE_4:
+                return (int) (mask >>> 24 & 0xFF);
+            default:
+                int offset = pattern - DIAGONAL_8;
+                return (int) (((mask & DIAGONALS[offset]) * 0x0101010101010101L) >>> (56 + offset));
+        }
+    }
+
+    /**
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @return the index into the mobility table: the clamped difference in playable tiles plus MOBILITY_RANGE
+     */
+    static int mobilityIndex(long own, long opponent) {
+        int mobility = Long.bitCount(BitBoard.generateMoves(own, opponent))
+                - Long.bitCount(BitBoard.generateMoves(opponent, own));
+        return Math.max(-MOBILITY_RANGE, Math.min(MOBILITY_RANGE, mobility)) + MOBILITY_RANGE;
+    }
+
+    /**
+     * Derives starting weights from {@link PositionalEvaluator}: a pattern configuration is worth the sum of its
+     * square weights, each divided by the number of pattern places covering that square, and the mobility table is
+     * linear. Every phase gets the same weights, so a seeded PatternEvaluator scores like a PositionalEvaluator up to
+     * rounding.
+     * @return the weights of every phase in file order
+     */
+    static short[] seedWeights() {
+        int[] coverage = new int[64];
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+            for (int symmetry : PATTERN_SYMMETRIES[pattern]) {
+                for (int square = 0; square < 64; square++) {
+                    if ((BitBoard.transform(1L << square, symmetry) & patternMask(pattern)) != 0)
+                        coverage[square]++;
+                }
+            }
+        }
+        // Sums are kept as exact multiples of 1 / scale, so mirrored configurations round to the same weight
+        long scale = 1;
+        for (int count : coverage) {
+            scale = scale / gcd(scale, count) * count;
+        }
+        int phaseSize = PHASE_SIZE;
+        short[] weights = new short[PHASES * phaseSize];
+        int offset = 0;
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+            int[] squares = PATTERNS[pattern];
+            for (int index = 0; index < TABLE_SIZES[pattern]; index++) {
+                long value = 0;
+                int rest = index;
+                for (int i = 0; i < squares.length; i++) {
+                    int digit = rest % 3;
+                    rest /= 3;
+                    long weight = PositionalEvaluator.SQUARE_WEIGHTS[squares[i]] * (scale / coverage[squares[i]]);
+                    value += digit == 1 ? weight : digit == 2 ? -weight : 0;
+                }
+                weights[offset + index] = (short) Math.round((double) value / scale);
+            }
+            offset += TABLE_SIZES[pattern];
+        }
+        for (int mobility = -MOBILITY_RANGE; mobility <= MOBILITY_RANGE; mobility++) {
+            weights[offset + mobility + MOBILITY_RANGE] = (short) (PositionalEvaluator.MOBILITY_WEIGHT * mobility);
+        }
+        for (int phase = 1; phase < PHASES; phase++) {
+            System.arraycopy(weights, 0, weights, phase * phaseSize, phaseSize);
+        }
+        return weights;
+    }
+
+    /**
+     * Writes a weight file holding the starting weights.
+     * @param file the file to create or replace
+     * @throws IOException if the file cannot be written
+     * @see #seedWeights()
+     */
+    public static void writeSeedWeights(Path file) throws IOException {
+        WeightTable.write(file, PHASES, TABLE_SIZES, seedWeights());
+    }
+
+    private static long patternMask(int pattern) {
+        long mask = 0;
+        for (int square : PATTERNS[pattern]) {
+            mask |= 1L << square;
+        }
+        return mask;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private static int featureCount() {
+        int count = 1;
+        for (int[] symmetries : PATTERN_SYMMETRIES) {
+            count += symmetries.length;
+        }
+        return count;
+    }
+
+    private static int[] tableSizes() {
+        int[] sizes = new int[PATTERNS.length + 1];
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+            int size = 1;
+            for (int i = 0; i < PATTERNS[pattern].length; i++) {
+                size *= 3;
+            }
+            sizes[pattern] = size;
+        }
+        sizes[MOBILITY] = 2 * MOBILITY_RANGE + 1;
+        return sizes;
+    }
+
+    /**
+     * @return the squares of row x
+     */
+    private static int[] row(int x) {
+        int[] squares = new int[8];
+        for (int y = 0; y < 8; y++) {
+            squares[y] = BitBoard.square(x, y);
+        }
+        return squares;
+    }
+
+    /**
+     * @return the squares (i, i + offset) on or above the main diagonal
+     */
+    private static int[] diagonal(int offset) {
+        int[] squares = new int[8 - offset];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = BitBoard.square(i, i + offset);
+        }
+        return squares;
+    }
+
+    /**
+     * @return the squares of the given number of rows and columns in the corner at (0, 0)
+     */
+    private static int[] rectangle(int rows, int columns) {
+        int[] squares = new int[rows * columns];
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                squares[x * columns + y] = BitBoard.square(x, y);
+            }
+        }
+        return squares;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] squares = new int[first.length + second.length];
+        System.arraycopy(first, 0, squares, 0, first.length);
+        System.arraycopy(second, 0, squares, first.length, second.length);
+        return squares;
+    }
+}
@@ -0,0 +1,145 @@
+package othello;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Perft counts the leaf nodes of the game tree to a fixed depth, the same way chess engines test their move
+ * generators. Comparing the counts from the start position with the published numbers checks the move generator and
+ * flipping for correctness, and the time it takes measures their raw throughput.<p></p>
+ * A pass counts as a ply. A finished game counts as a single leaf, whatever depth is left. In bulk mode the last ply
+ * is not played out; the number of playable tiles is counted instead. The root moves can be split across several
+ * threads.<p></p>
+ * Usage: {@code Perft [depth] [-threads n] [-nobulk] [-position "<64 squares> <X|O>"]}
+ * @see BitBoard#generateMoves(long, long)
+ * @see BitBoard#computeFlips(long, long, int)
+ */
+public class Perft {
+
+    /**
+     * The published perft counts from the start position, indexed by depth.
+     */
+    static final long[] START_POSITION_COUNTS = {1, 4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288, 24571284,
+            212258800L, 1939886636L};
+
+    private final int threads;
+    private final boolean bulk;
+
+    /**
+     * @param threads the number of threads to split the root moves across, at least 1
+     * @param bulk whether to count the playable tiles at the last ply instead of playing them
+     */
+    public Perft(int threads, boolean bulk) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        this.threads = threads;
+        this.bulk = bulk;
+    }
+
+    /**
+     * Counts the leaf nodes below a position.
+     * @param board the position to count from
+     * @param depth the number of plies to play
+     * @return the number of leaf nodes
+     */
+    public long count(BitBoard board, int depth) {
+        long own = board.getOwn();
+        long opponent = board.getOpponent();
+        long moves = BitBoard.generateMoves(own, opponent);
+        if (threads == 1 || depth < 2 || moves == 0)
+            return perft(own, opponent, depth);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<Long>> subtrees = new ArrayList<>();
+            for (; moves != 0; moves &= moves - 1) {
+                int square = Long.numberOfTrailingZeros(moves);
+                long flips = BitBoard.computeFlips(own, opponent, square);
+                long childOwn = opponent & ~flips;
+                long childOpponent = own | flips | (1L << square);
+                subtrees.add(pool.submit(() -> perft(childOwn, childOpponent, depth - 1)));
+            }
+            long nodes = 0;
+            for (Future<Long> subtree : subtrees) {
+                nodes += subtree.get();
+            }
+            return nodes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("perft interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("perft failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The recursive single-threaded count.
+     * @param own the Discs of the player to move
+     * @param opponent the Discs of the other player
+     * @param depth the number of plies left
+     * @return the number of leaf nodes
+     */
+    private long perft(long own, long opponent, int depth) {
+        if (depth == 0)
+            return 1;
+        long moves = BitBoard.generateMoves(own, opponent);
+        if (moves == 0) {
+            if (BitBoard.generateMoves(opponent, own) == 0)
+                return 1;
+            return perft(opponent, own, depth - 1);
+        }
+        if (bulk && depth == 1)
+            return Long.bitCount(moves);
+
+        long nodes = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flips = BitBoard.computeFlips(own, opponent, square);
+            nodes += perft(opponent & ~flips, own | flips | (1L << square), depth - 1);
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        int maxDepth = 11;
+        int threads = 1;
+        boolean bulk = true;
+        BitBoard board = new BitBoard();
+        boolean startPosition = true;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-nobulk":
+                    bulk = false;
+                    break;
+                case "-position":
+                    board = BitBoard.parse(args[++i]);
+                    startPosition = false;
+                    break;
+                default:
+                    maxDepth = Integer.parseInt(args[i]);
+            }
+        }
+
+        Perft perft = new Perft(threads, bulk);
+        System.out.printf("%5s %16s %12s %14s%n", "depth", "nodes", "time (ms)", "nodes/sec");
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long start = System.nanoTime();
+            long nodes = perft.count(board, depth);
+            long elapsed = System.nanoTime() - start;
+            String check = "";
+            if (startPosition && depth < START_POSITION_COUNTS.length)
+                check = nodes == START_POSITION_COUNTS[depth] ? "  ok" : "  MISMATCH, expected "
+                        + START_POSITION_COUNTS[depth];
+            System.out.printf("%5d %16d %12.1f %14d%s%n", depth, nodes, elapsed / 1e6,
+                    elapsed == 0 ? 0 : nodes * 1_000_000_000L / elapsed, check);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package othello;
+
+/**
+ * A Player chooses moves in a game of Othello without user interaction. Implementations may keep state between
+ * moves, so a Player instance should only be used by one game at a time.
+ * @see Tournament
+ */
+public interface Player {
+
+    /**
+     * Chooses a move for the player whose turn it is. The board is left unchanged.
+     * @param board the current position, in which the player to move has at least one playable tile
+     * @return the bit index of the chosen move
+     * @see BitBoard#square(int, int)
+     */
+    int selectMove(BitBoard board);
+}
@@ -0,0 +1,225 @@
+package othello;
+
+import java.awt.*;
+
+/**
+ * Position is an immutable snapshot of a game of Othello: the Discs of both players and whose turn it is, in two
+ * longs and a boolean. Unlike the Disc array of {@link Board} it cannot change once made, so threads, caches and the
+ * GUI can share one Position without copying or locking.<p></p>
+ * The Discs are kept from the point of view of the player to move, as in {@link BitBoard}, so a successor is derived
+ * with one flip computation and a new object of the same small size; the receiver is never changed. Positions are
+ * equal when they hold the same Discs and the same player to move, and {@link #hashCode()} mixes all bits of both
+ * masks so they spread well in hash maps.
+ * @see Board
+ * @see BitBoard
+ */
+public final class Position {
+
+    /**
+     * The starting position of a game, with Black to move.
+     */
+    public static final Position START = of(new Board());
+
+    private final long own;
+    private final long opponent;
+    private final boolean blackToMove;
+
+    private Position(long own, long opponent, boolean blackToMove) {
+        this.own = own;
+        this.opponent = opponent;
+        this.blackToMove = blackToMove;
+    }
+
+    /**
+     * @param black the squares holding Black Discs, as bit x * 8 + y for tile (x, y)
+     * @param white the squares holding White Discs
+     * @param playerTurn the player to move, either Color.BLACK or Color.WHITE
+     * @return the position
+     * @throws IllegalArgumentException if a square holds both colors
+     */
+    public static Position of(long black, long white, Color playerTurn) {
+        if ((black & white) != 0)
+            throw new IllegalArgumentException("a square cannot hold a Black and a White Disc");
+        return playerTurn == Color.BLACK ? new Position(black, white, true) : new Position(white, black, false);
+    }
+
+    /**
+     * @param board the board to take a snapshot of
+     * @return the board's current position
+     */
+    public static Position of(Board board) {
+        return of(board.getBlack(), board.getWhite(), board.getPlayerTurn());
+    }
+
+    /**
+     * @param board the board to take a snapshot of
+     * @return the board's current position
+     */
+    public static Position of(BitBoard board) {
+        return new Position(board.getOwn(), board.getOpponent(), board.getPlayerTurn() == Color.BLACK);
+    }
+
+    /**
+     * Reads a position in the format of {@link #toString()}.
+     * @param text the position to read
+     * @return the position
+     * @throws IllegalArgumentException if the text is not in this format
+     * @see BitBoard#parse(String)
+     */
+    public static Position parse(String text) {
+        return of(BitBoard.parse(text));
+    }
+
+    /**
+     * @return the Discs of the player to move
+     */
+    public long getOwn() {
+        return own;
+    }
+
+    /**
+     * @return the Discs of the player waiting for their turn
+     */
+    public long getOpponent() {
+        return opponent;
+    }
+
+    /**
+     * @return a mask with bit x * 8 + y set for every Black Disc at (x, y)
+     */
+    public long getBlack() {
+        return blackToMove ? own : opponent;
+    }
+
+    /**
+     * @return a mask with bit x * 8 + y set for every White Disc at (x, y)
+     */
+    public long getWhite() {
+        return blackToMove ? opponent : own;
+    }
+
+    /**
+     * @return Color.BLACK or Color.WHITE, whichever is to move
+     */
+    public Color getPlayerTurn() {
+        return blackToMove ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * @param square the bit index of a tile
+     * @return the color of the Disc on the tile, or null if it is empty
+     */
+    public Color getColor(int square) {
+        long bit = 1L << square;
+        return (getBlack() & bit) != 0 ? Color.BLACK : (getWhite() & bit) != 0 ? Color.WHITE : null;
+    }
+
+    /**
+     * @return the number of Black Discs
+     */
+    public int getBlackCount() {
+        return Long.bitCount(getBlack());
+    }
+
+    /**
+     * @return the number of White Discs
+     */
+    public int getWhiteCount() {
+        return Long.bitCount(getWhite());
+    }
+
+    /**
+     * @return the number of empty tiles
+     */
+    public int getEmpties() {
+        return 64 - Long.bitCount(own | opponent);
+    }
+
+    /**
+     * @return a mask of every tile the player to move can play
+     * @see BitBoard#generateMoves(long, long)
+     */
+    public long getPlayableMask() {
+        return BitBoard.generateMoves(own, opponent);
+    }
+
+    /**
+     * @return whether neither player can move
+     */
+    public boolean isGameOver() {
+        return BitBoard.generateMoves(own, opponent) == 0 && BitBoard.generateMoves(opponent, own) == 0;
+    }
+
+    /**
+     * Derives the position after the player to move places a Disc. This position is left unchanged.
+     * @param square the bit index of the tile to play
+     * @return the position after the move, with the other player to move
+     * @throws IllegalArgumentException if the move is not legal
+     */
+    public Position play(int square) {
+        long flips = BitBoard.computeFlips(own, opponent, square);
+        if (flips == 0 || ((own | opponent) & (1L << square)) != 0)
+            throw new IllegalArgumentException("illegal move " + BitBoard.squareName(square));
+        return new Position(opponent & ~flips, own | flips | (1L << square), !blackToMove);
+    }
+
+    /**
+     * Derives the position in which the other player is to move, which the rules allow only when the player to move
+     * has no playable tile.
+     * @return the same Discs with the other player to move
+     * @throws IllegalStateException if the player to move has a playable tile
+     */
+    public Position pass() {
+        if (getPlayableMask() != 0)
+            throw new IllegalStateException("cannot pass while a tile is playable");
+        return new Position(opponent, own, !blackToMove);
+    }
+
+    /**
+     * Computes the Zobrist hash, the same as {@link BitBoard#getHash()} of the same position. It is not cached, so
+     * callers probing a {@link TranspositionTable} often should keep it.
+     * @return the Zobrist hash of the position
+     */
+    public long getZobristHash() {
+        return Zobrist.hash(getBlack(), getWhite(), getPlayerTurn());
+    }
+
+    /**
+     * @return a new Board holding this position, which the caller may change freely
+     */
+    public Board toBoard() {
+        return new Board(getBlack(), getWhite(), getPlayerTurn());
+    }
+
+    /**
+     * @return a new BitBoard holding this position, which the caller may change freely
+     */
+    public BitBoard toBitBoard() {
+        return new BitBoard(own, opponent, getPlayerTurn());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Position))
+            return false;
+        Position other = (Position) o;
+        return own == other.own && opponent == other.opponent && blackToMove == other.blackToMove;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = (own * 0x9E3779B97F4A7C15L + opponent) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        return (int) (h ^ h >>> 32) ^ (blackToMove ? 1 : 0);
+    }
+
+    /**
+     * @return the position in the format of {@link BitBoard#toString()}
+     */
+    @Override
+    public String toString() {
+        return toBitBoard().toString();
+    }
+}
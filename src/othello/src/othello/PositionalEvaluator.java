@@ -0,0 +1,43 @@
+package othello;
+
+/**
+ * PositionalEvaluator scores a position from a fixed weight for every square plus the difference in mobility between
+ * the two players. Corners are worth the most and the squares next to an empty corner are penalised, since they
+ * usually hand the corner to the opponent.
+ * @see Evaluator
+ */
+public class PositionalEvaluator implements Evaluator {
+
+    /**
+     * The value of a Disc on each square, indexed by bit index (x * 8 + y).
+     */
+    static final int[] SQUARE_WEIGHTS = {
+            400, -80, 40, 20, 20, 40, -80, 400,
+            -80, -160, -10, -10, -10, -10, -160, -80,
+            40, -10, 10, 5, 5, 10, -10, 40,
+            20, -10, 5, 0, 0, 5, -10, 20,
+            20, -10, 5, 0, 0, 5, -10, 20,
+            40, -10, 10, 5, 5, 10, -10, 40,
+            -80, -160, -10, -10, -10, -10, -160, -80,
+            400, -80, 40, 20, 20, 40, -80, 400
+    };
+
+    /**
+     * The value of each extra playable tile the player to move has over the opponent.
+     */
+    static final int MOBILITY_WEIGHT = 30;
+
+    @Override
+    public int evaluate(long own, long opponent) {
+        int score = 0;
+        for (long discs = own; discs != 0; discs &= discs - 1) {
+            score += SQUARE_WEIGHTS[Long.numberOfTrailingZeros(discs)];
+        }
+        for (long discs = opponent; discs != 0; discs &= discs - 1) {
+            score -= SQUARE_WEIGHTS[Long.numberOfTrailingZeros(discs)];
+        }
+        int mobility = Long.bitCount(BitBoard.generateMoves(own, opponent))
+                - Long.bitCount(BitBoard.generateMoves(opponent, own));
+        return score + MOBILITY_WEIGHT * mobility;
+    }
+}
@@ -0,0 +1,28 @@
+package othello;
+
+import java.util.SplittableRandom;
+
+/**
+ * RandomPlayer picks one of the playable tiles uniformly at random. It is the weakest possible opponent and a useful
+ * baseline for tournaments.
+ * @see Player
+ */
+public class RandomPlayer implements Player {
+
+    private final SplittableRandom random;
+
+    /**
+     * @param seed the seed of the random number source, so games can be replayed
+     */
+    public RandomPlayer(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int selectMove(BitBoard board) {
+        long moves = board.getPlayableMask();
+        for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--)
+            moves &= moves - 1;
+        return Long.numberOfTrailingZeros(moves);
+    }
+}
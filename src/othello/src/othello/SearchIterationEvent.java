@@ -0,0 +1,49 @@
+package othello;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one completed iterative deepening iteration of {@link AlphaBetaPlayer}. Its
+ * duration is the time of the iteration. When no recording enables the event, creating and committing it is left to
+ * the JIT compiler to remove.
+ * @see EngineMetrics
+ * @see MoveSearchEvent
+ */
+@Name("othello.SearchIteration")
+@Label("Search Iteration")
+@Category({"Othello", "Search"})
+@Description("One completed iteration of iterative deepening")
+@StackTrace(false)
+class SearchIterationEvent extends jdk.jfr.Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    int score;
+
+    @Label("Best Move")
+    String bestMove;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Average Branching Factor")
+    double branchingFactor;
+
+    @Label("Table Probes")
+    long tableProbes;
+
+    @Label("Table Hits")
+    long tableHits;
+
+    @Label("Cutoffs")
+    long cutoffs;
+
+    @Label("First Move Cutoffs")
+    long firstMoveCutoffs;
+}
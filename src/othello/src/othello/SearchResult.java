@@ -0,0 +1,102 @@
+package othello;
+
+/**
+ * SearchResult holds the outcome of a search: the best move found, its score, the principal variation and how much
+ * work it took to find them. Instances are immutable.
+ * @see AlphaBetaPlayer#search(BitBoard, int, long)
+ */
+public class SearchResult {
+
+    /**
+     * The value stored in a principal variation for a pass and returned by {@link #getBestSquare()} when the player
+     * to move has no playable tiles.
+     */
+    public static final int PASS = -1;
+
+    private final int bestSquare;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final int[] principalVariation;
+
+    /**
+     * @param bestSquare the bit index of the best move, or PASS
+     * @param score the score of the best move for the player to move
+     * @param depth the deepest fully completed iteration
+     * @param nodes the number of nodes visited, including those of unfinished iterations
+     * @param elapsedNanos the wall-clock time the search took
+     * @param principalVariation the expected line of play starting with the best move
+     */
+    public SearchResult(int bestSquare, int score, int depth, long nodes, long elapsedNanos,
+                        int[] principalVariation) {
+        this.bestSquare = bestSquare;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.principalVariation = principalVariation.clone();
+    }
+
+    /**
+     * @return the bit index of the best move, or PASS if there is nothing to play
+     * @see BitBoard#square(int, int)
+     */
+    public int getBestSquare() {
+        return bestSquare;
+    }
+
+    /**
+     * @return the best move as a Coordinate, or null if there is nothing to play
+     */
+    public Coordinate getBestMove() {
+        return bestSquare == PASS ? null : Coordinate.of(bestSquare);
+    }
+
+    /**
+     * @return the score of the best move from the point of view of the player to move
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the depth of the last iteration that completed
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the number of nodes visited by the search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the wall-clock time the search took in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the search throughput in nodes per second
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * @return a copy of the principal variation, with passes stored as PASS
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + " score " + score + " nodes " + nodes + " nps " + getNodesPerSecond();
+    }
+}
@@ -0,0 +1,303 @@
+package othello;
+
+import java.awt.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Tournament plays a match between two players without the GUI, to measure whether an engine change makes it
+ * stronger.<p></p>
+ * Games start from a set of opening positions. Every opening is played twice with the colors swapped, so neither
+ * player profits from a lopsided opening. The games are spread over a fixed number of worker threads. Each worker
+ * has its own pair of players and takes the next game number from a shared counter, so memory use depends on the
+ * number of threads and not on the number of games. Each finished game is written to the output file straight
+ * away.<p></p>
+ * Usage: {@code Tournament [-games n] [-threads n] [-plies n] [-a spec] [-b spec] [-out file]}, where a player spec
+ * is {@code random}, {@code alphabeta:depth=6,time=0,tt=16}, {@code parallel:depth=8,threads=4,tt=64} or
+ * {@code mcts:threads=4,time=100,playouts=0,nodes=1000000}.
+ * @see Player
+ * @see TournamentResult
+ */
+public class Tournament {
+
+    private final String nameA;
+    private final String nameB;
+    private final Supplier<Player> playerA;
+    private final Supplier<Player> playerB;
+    private final List<BitBoard> openings;
+    private final int threads;
+
+    /**
+     * @param nameA the name of the first player in the output file
+     * @param playerA creates a fresh instance of the first player for each worker thread
+     * @param nameB the name of the second player in the output file
+     * @param playerB creates a fresh instance of the second player for each worker thread
+     * @param openings the positions games start from
+     * @param threads the number of games played at the same time
+     */
+    public Tournament(String nameA, Supplier<Player> playerA, String nameB, Supplier<Player> playerB,
+                      List<BitBoard> openings, int threads) {
+        if (openings.isEmpty())
+            throw new IllegalArgumentException("at least one opening is needed");
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        this.nameA = nameA;
+        this.nameB = nameB;
+        this.playerA = playerA;
+        this.playerB = playerB;
+        this.openings = openings;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays the given number of games. Game g starts from opening (g / 2) modulo the number of openings, and the
+     * first player has Black in even games and White in odd games.<p></p>
+     * If a game fails, no further games are started, and the output file is closed only after every worker has
+     * finished the game it was playing.
+     * @param games the number of games to play
+     * @param output the CSV file the games are written to as they finish, or null for none
+     * @return the score of the first player against the second
+     * @throws IOException if the output file cannot be written
+     * @throws InterruptedException if the calling thread is interrupted before every game has finished
+     * @throws IllegalStateException if a game fails
+     */
+    public TournamentResult run(int games, Path output) throws IOException, InterruptedException {
+        TournamentResult result = new TournamentResult();
+        AtomicInteger nextGame = new AtomicInteger();
+        try (BufferedWriter writer = output == null ? null : Files.newBufferedWriter(output)) {
+            if (writer != null)
+                writer.write("game,opening,black,white,black_discs,white_discs\n");
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                ArrayList<Future<?>> workers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    workers.add(pool.submit(() -> {
+                        Player a = playerA.get();
+                        Player b = playerB.get();
+                        try {
+                            int game;
+                            while ((game = nextGame.getAndIncrement()) < games) {
+                                int opening = (game / 2) % openings.size();
+                                boolean aIsBlack = game % 2 == 0;
+                                int[] discs = play(aIsBlack ? a : b, aIsBlack ? b : a, openings.get(opening));
+                                result.add(aIsBlack ? discs[0] - discs[1] : discs[1] - discs[0]);
+                                if (writer != null)
+                                    write(writer, game + "," + opening + "," + (aIsBlack ? nameA : nameB) + ","
+                                            + (aIsBlack ? nameB : nameA) + "," + discs[0] + "," + discs[1] + "\n");
+                            }
+                        } finally {
+                            close(a);
+                            close(b);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } finally {
+                nextGame.set(games);
+                pool.shutdownNow();
+                awaitWorkers(pool);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IllegalStateException("game failed", e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * Waits until every worker has finished the game it was playing, so none writes to a closed output file. An
+     * interrupt while waiting is kept for the caller, which then sees the InterruptedException it caused.
+     */
+    private static void awaitWorkers(ExecutorService pool) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.SECONDS))
+                    break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Plays one game to the end.
+     * @param black the player with the Black Discs
+     * @param white the player with the White Discs
+     * @param opening the position the game starts from
+     * @return the final number of Black and White Discs
+     */
+    static int[] play(Player black, Player white, BitBoard opening) {
+        BitBoard board = new BitBoard(opening.getOwn(), opening.getOpponent(), opening.getPlayerTurn());
+        while (true) {
+            long moves = board.getPlayableMask();
+            if (moves == 0) {
+                if (BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0)
+                    break;
+                board.pass();
+                continue;
+            }
+            Player mover = board.getPlayerTurn() == Color.BLACK ? black : white;
+            int square = mover.selectMove(board);
+            if (square < 0 || square > 63 || (moves & (1L << square)) == 0)
+                throw new IllegalStateException("illegal move " + square + " in " + board);
+            board.makeMove(square);
+        }
+        return board.getDiscCount();
+    }
+
+    /**
+     * Releases the resources of a player that holds any, such as the threads of a ParallelSearch.
+     */
+    private static void close(Player player) throws Exception {
+        if (player instanceof AutoCloseable)
+            ((AutoCloseable) player).close();
+    }
+
+    private static void write(BufferedWriter writer, String line) {
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Lists every distinct position reached after playing the given number of plies from the start position. Lines
+     * in which a player runs out of moves early are left out.
+     * @param plies the number of moves played
+     * @return the positions in a fixed order, without duplicates
+     */
+    public static List<BitBoard> openings(int plies) {
+        Map<Long, BitBoard> positions = new LinkedHashMap<>();
+        collect(new BitBoard(), plies, positions);
+        return new ArrayList<>(positions.values());
+    }
+
+    private static void collect(BitBoard board, int plies, Map<Long, BitBoard> positions) {
+        long moves = board.getPlayableMask();
+        if (plies == 0 || moves == 0) {
+            if (moves != 0)
+                positions.putIfAbsent(board.getHash(),
+                        new BitBoard(board.getOwn(), board.getOpponent(), board.getPlayerTurn()));
+            return;
+        }
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flips = board.makeMove(square);
+            collect(board, plies - 1, positions);
+            board.undoMove(square, flips);
+        }
+    }
+
+    /**
+     * Creates players from a spec such as {@code alphabeta:depth=6,time=0,tt=16}. Each call of the returned
+     * supplier creates a new, independent player.
+     * @param spec the player type, optionally followed by a colon and comma separated key=value settings
+     * @return a factory for the described player
+     * @throws IllegalArgumentException if the spec is not understood
+     */
+    public static Supplier<Player> parsePlayer(String spec) {
+        String[] parts = spec.split(":", 2);
+        Map<String, Integer> settings = new LinkedHashMap<>();
+        if (parts.length > 1) {
+            for (String setting : parts[1].split(",")) {
+                String[] pair = setting.split("=", 2);
+                if (pair.length != 2)
+                    throw new IllegalArgumentException("expected key=value in " + spec);
+                settings.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+            }
+        }
+        int depth = settings.getOrDefault("depth", 6);
+        int time = settings.getOrDefault("time", 0);
+        int tt = settings.getOrDefault("tt", 0);
+        switch (parts[0]) {
+            case "random":
+                AtomicInteger seed = new AtomicInteger(settings.getOrDefault("seed", 2410));
+                return () -> new RandomPlayer(seed.getAndIncrement());
+            case "alphabeta":
+                return () -> new AlphaBetaPlayer(new PositionalEvaluator(), depth, time,
+                        tt > 0 ? new TranspositionTable(tt) : null);
+            case "parallel":
+                int searchThreads = settings.getOrDefault("threads", 2);
+                return () -> new ParallelSearch(new PositionalEvaluator(), depth, time, searchThreads,
+                        Math.max(tt, 1));
+            case "mcts":
+                int mctsThreads = settings.getOrDefault("threads", 1);
+                int playouts = settings.getOrDefault("playouts", time > 0 ? 0 : 10_000);
+                int nodes = settings.getOrDefault("nodes", 1 << 20);
+                AtomicInteger mctsSeed = new AtomicInteger(settings.getOrDefault("seed", 2410));
+                return () -> new MctsPlayer(mctsThreads, time, playouts, nodes, mctsSeed.getAndIncrement());
+            default:
+                throw new IllegalArgumentException("unknown player " + parts[0]);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int plies = 4;
+        String a = "alphabeta:depth=4";
+        String b = "random";
+        Path output = Paths.get("tournament.csv");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-plies":
+                    plies = Integer.parseInt(args[++i]);
+                    break;
+                case "-a":
+                    a = args[++i];
+                    break;
+                case "-b":
+                    b = args[++i];
+                    break;
+                case "-out":
+                    output = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        List<BitBoard> openings = openings(plies);
+        System.out.printf("%s vs %s: %d games from %d openings on %d threads%n", a, b, games, openings.size(),
+                threads);
+        long start = System.nanoTime();
+        TournamentResult result = new Tournament(a, parsePlayer(a), b, parsePlayer(b), openings, threads)
+                .run(games, output);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(result);
+        System.out.printf("%.1f games/sec, results in %s%n", result.getGames() / seconds, output);
+    }
+}
@@ -0,0 +1,93 @@
+package othello;
+
+/**
+ * TournamentResult keeps the running score of a match from the point of view of the first player and converts it to
+ * an Elo rating difference. Games can be added from several threads at once.
+ * @see Tournament
+ */
+public class TournamentResult {
+
+    /**
+     * The two-sided 95% quantile of the normal distribution, used for the error bars.
+     */
+    private static final double Z_95 = 1.959964;
+
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * Records a finished game.
+     * @param discDifference the first player's Discs minus the second player's at the end of the game
+     */
+    public synchronized void add(int discDifference) {
+        if (discDifference > 0) {
+            wins++;
+        } else if (discDifference < 0) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    public synchronized int getWins() {
+        return wins;
+    }
+
+    public synchronized int getDraws() {
+        return draws;
+    }
+
+    public synchronized int getLosses() {
+        return losses;
+    }
+
+    public synchronized int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * @return the first player's score per game, counting a draw as half a win
+     */
+    public synchronized double getScore() {
+        int games = wins + draws + losses;
+        return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+    }
+
+    /**
+     * @return the Elo difference between the first and second player implied by the score
+     */
+    public double getEloDifference() {
+        return elo(getScore());
+    }
+
+    /**
+     * The half-width of the 95% confidence interval of the Elo difference, from the standard error of the per-game
+     * score.
+     * @return the error bar in Elo points, or infinity if every game had the same result
+     */
+    public synchronized double getEloError() {
+        int games = wins + draws + losses;
+        if (games == 0)
+            return Double.POSITIVE_INFINITY;
+        double score = getScore();
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / games;
+        double margin = Z_95 * Math.sqrt(variance / games);
+        return (elo(Math.min(score + margin, 1)) - elo(Math.max(score - margin, 0))) / 2;
+    }
+
+    /**
+     * @param score a score per game between 0 and 1
+     * @return the Elo difference that predicts that score
+     */
+    private static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("+%d =%d -%d  score %.1f%%  Elo %+.1f +/- %.1f", getWins(), getDraws(), getLosses(),
+                100 * getScore(), getEloDifference(), getEloError());
+    }
+}
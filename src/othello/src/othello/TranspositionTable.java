@@ -0,0 +1,223 @@
+package othello;
+
+import java.util.Arrays;
+
+/**
+ * TranspositionTable remembers the results of searched positions so that a position reached again through a
+ * different move order does not have to be searched again.<p></p>
+ * The table is a single preallocated {@code long[]} sized from a memory budget in megabytes and never grows. It is
+ * split into buckets of two entries. The first entry of a bucket is depth-preferred: it is only replaced by a search
+ * of at least the same depth, or once the entry is left over from an earlier search. The second entry is always
+ * replaced, so recent shallow results are still kept.<p></p>
+ * Every entry is two longs: the position's hash XORed with the packed data, followed by the data itself. A reader
+ * accepts an entry only if XORing the two longs gives back its hash, so an entry torn by two threads writing at the
+ * same time is seen as a miss instead of as wrong data. This lets several search threads share one table without
+ * locks. The probe and hit counters are not synchronized and may undercount slightly when shared.
+ * @see Zobrist
+ * @see AlphaBetaPlayer
+ */
+public class TranspositionTable {
+
+    /**
+     * The stored score is exact.
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * The stored score is a lower bound: the search failed high.
+     */
+    public static final int LOWER = 2;
+
+    /**
+     * The stored score is an upper bound: the search failed low.
+     */
+    public static final int UPPER = 3;
+
+    /**
+     * The move stored when a position has no best move.
+     */
+    public static final int NO_MOVE = 0xFF;
+
+    /**
+     * The number of longs per bucket: two entries of two longs each.
+     */
+    private static final int BUCKET_LONGS = 4;
+
+    /**
+     * The number of buckets sampled by {@link #getFillPermille()}.
+     */
+    private static final int FILL_SAMPLE = 1000;
+
+    private final long[] table;
+    private final long bucketMask;
+    private int generation;
+    private long probes;
+    private long hits;
+
+    /**
+     * Creates a table using at most the given number of megabytes. The number of buckets is rounded down to a power
+     * of two so a bucket can be found with a mask.
+     * @param megabytes the memory budget of the table, at least 1
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1)
+            throw new IllegalArgumentException("megabytes must be at least 1");
+        long buckets = Long.highestOneBit(megabytes * 1024L * 1024L / (BUCKET_LONGS * Long.BYTES));
+        buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_LONGS));
+        this.table = new long[(int) buckets * BUCKET_LONGS];
+        this.bucketMask = buckets - 1;
+    }
+
+    /**
+     * Looks up a position.
+     * @param hash the Zobrist hash of the position
+     * @return the packed data stored for the position, or 0 if it is not in the table
+     * @see #score(long)
+     * @see #depth(long)
+     * @see #bound(long)
+     * @see #move(long)
+     */
+    public long probe(long hash) {
+        probes++;
+        int index = (int) (hash & bucketMask) * BUCKET_LONGS;
+        long data = table[index + 1];
+        if ((table[index] ^ data) == hash && data != 0) {
+            hits++;
+            return data;
+        }
+        data = table[index + 3];
+        if ((table[index + 2] ^ data) == hash && data != 0) {
+            hits++;
+            return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     * @param hash the Zobrist hash of the position
+     * @param depth the depth the position was searched to
+     * @param bound EXACT, LOWER or UPPER
+     * @param score the score found by the search
+     * @param move the bit index of the best move, or NO_MOVE
+     */
+    public void store(long hash, int depth, int bound, int score, int move) {
+        long data = (score & 0xFFFFFFFFL)
+                | (long) (move & 0xFF) << 32
+                | (long) (depth & 0xFF) << 40
+                | (long) bound << 48
+                | (long) (generation & 0xFF) << 56;
+        int index = (int) (hash & bucketMask) * BUCKET_LONGS;
+        long stored = table[index + 1];
+        boolean samePosition = (table[index] ^ stored) == hash;
+        if (stored == 0 || samePosition || depth(stored) <= depth || generation(stored) != (generation & 0xFF)) {
+            table[index] = hash ^ data;
+            table[index + 1] = data;
+        } else {
+            table[index + 2] = hash ^ data;
+            table[index + 3] = data;
+        }
+    }
+
+    /**
+     * Marks the start of a new search. Entries from earlier searches become the first to be replaced.
+     */
+    public void newSearch() {
+        generation++;
+    }
+
+    /**
+     * Empties the table and resets its statistics.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        generation = 0;
+        probes = 0;
+        hits = 0;
+    }
+
+    /**
+     * @return the number of lookups since the table was created or cleared
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return the number of lookups that found their position
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the fraction of lookups that found their position, between 0 and 1
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Estimates how full the table is by sampling its first buckets, the same way UCI chess engines report hashfull.
+     * @return the number of used entries per thousand, counting only entries written by the current search
+     */
+    public int getFillPermille() {
+        int buckets = (int) Math.min(FILL_SAMPLE, bucketMask + 1);
+        int used = 0;
+        for (int i = 0; i < buckets; i++) {
+            for (int slot = 1; slot < BUCKET_LONGS; slot += 2) {
+                long data = table[i * BUCKET_LONGS + slot];
+                if (data != 0 && generation(data) == (generation & 0xFF))
+                    used++;
+            }
+        }
+        return used * 1000 / (buckets * 2);
+    }
+
+    /**
+     * @return the number of entries the table can hold
+     */
+    public long getCapacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * @param data packed data returned by probe
+     * @return the stored score
+     */
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    /**
+     * @param data packed data returned by probe
+     * @return the stored best move, or NO_MOVE
+     */
+    public static int move(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    /**
+     * @param data packed data returned by probe
+     * @return the depth the stored position was searched to
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 40) & 0xFF;
+    }
+
+    /**
+     * @param data packed data returned by probe
+     * @return EXACT, LOWER or UPPER
+     */
+    public static int bound(long data) {
+        return (int) (data >>> 48) & 0x3;
+    }
+
+    /**
+     * @param data packed data returned by probe
+     * @return the low eight bits of the generation the entry was written in
+     */
+    private static int generation(long data) {
+        return (int) (data >>> 56) & 0xFF;
+    }
+}
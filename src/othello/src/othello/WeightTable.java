@@ -0,0 +1,191 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * WeightTable holds the weights of a {@link PatternEvaluator}: for every game phase, one table of 16-bit weights per
+ * feature, indexed by the feature's configuration.<p></p>
+ * The tables are stored in a binary file that is memory-mapped read-only instead of being parsed. Opening the file
+ * costs almost nothing, the weights are only paged in when they are used, and several engine processes on the same
+ * host that map the same file share one copy of it in the page cache.<p></p>
+ * File layout, little-endian so the weights are read in the native order of common hosts: the int {@link #MAGIC},
+ * the int {@link #VERSION}, the number of phases, the number of tables and the number of weights in each table,
+ * followed by all weights as shorts, phase by phase and table by table in the same order.<p></p>
+ * Usage: {@code WeightTable file} writes the heuristic starting weights of PatternEvaluator to the file.
+ * @see PatternEvaluator
+ */
+public class WeightTable {
+
+    /**
+     * The first four bytes of a weight file, "OTWT".
+     */
+    public static final int MAGIC = 0x4F545754;
+
+    /**
+     * The file layout version this class reads and writes.
+     */
+    public static final int VERSION = 1;
+
+    private final int phases;
+    private final int[] sizes;
+    private final int[] offsets;
+    private final int phaseSize;
+    private final ShortBuffer weights;
+
+    /**
+     * @param phases the number of game phases
+     * @param sizes the number of weights in each table
+     * @param weights all weights in file order
+     */
+    private WeightTable(int phases, int[] sizes, ShortBuffer weights) {
+        this.phases = phases;
+        this.sizes = sizes.clone();
+        this.offsets = new int[sizes.length];
+        int size = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            offsets[i] = size;
+            size += sizes[i];
+        }
+        this.phaseSize = size;
+        if (weights.limit() != (long) phases * phaseSize)
+            throw new IllegalArgumentException("expected " + (long) phases * phaseSize + " weights, found "
+                    + weights.limit());
+        this.weights = weights;
+    }
+
+    /**
+     * Maps a weight file into memory. The file is not read; the weights are paged in as they are used.
+     * @param file the weight file
+     * @return the mapped table
+     * @throws IOException if the file cannot be mapped or does not hold a weight table
+     */
+    public static WeightTable map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < 16 || buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a weight table");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has weight table version " + buffer.getInt(4) + ", expected " + VERSION);
+        int phases = buffer.getInt(8);
+        int tables = buffer.getInt(12);
+        if (phases < 1 || tables < 1 || buffer.limit() < 16 + 4L * tables)
+            throw new IOException(file + " has a damaged header");
+        int[] sizes = new int[tables];
+        for (int i = 0; i < tables; i++) {
+            sizes[i] = buffer.getInt(16 + 4 * i);
+        }
+        buffer.position(16 + 4 * tables);
+        try {
+            return new WeightTable(phases, sizes,
+                    buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + " is truncated: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a weight file.
+     * @param file the file to create or replace
+     * @param phases the number of game phases
+     * @param sizes the number of weights in each table
+     * @param weights all weights, phase by phase and table by table
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, int phases, int[] sizes, short[] weights) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16 + 4 * sizes.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(phases).putInt(sizes.length);
+        for (int size : sizes) {
+            header.putInt(size);
+        }
+        header.flip();
+        ByteBuffer body = ByteBuffer.allocate(weights.length * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        body.asShortBuffer().put(weights);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    /**
+     * @return the number of game phases
+     */
+    public int getPhases() {
+        return phases;
+    }
+
+    /**
+     * @return the number of tables in each phase
+     */
+    public int getTables() {
+        return sizes.length;
+    }
+
+    /**
+     * @param table the table number
+     * @return the number of weights in the table
+     */
+    public int getSize(int table) {
+        return sizes[table];
+    }
+
+    /**
+     * @param phase the game phase
+     * @param table the table number
+     * @return the position in {@link #get(int)} of the table's first weight in the given phase
+     */
+    public int offset(int phase, int table) {
+        return phase * phaseSize + offsets[table];
+    }
+
+    /**
+     * @param index a position returned by {@link #offset(int, int)} plus a configuration index
+     * @return the weight stored at that position
+     */
+    public short get(int index) {
+        return weights.get(index);
+    }
+
+    /**
+     * @param phase the game phase
+     * @param table the table number
+     * @param index the configuration index within the table
+     * @return the weight
+     */
+    public short get(int phase, int table, int index) {
+        return weights.get(offset(phase, table) + index);
+    }
+
+    /**
+     * Copies all weights in file order, for example as the starting point of tuning.
+     * @return a new array holding every weight
+     */
+    public short[] toArray() {
+        short[] copy = new short[weights.limit()];
+        weights.duplicate().get(copy);
+        return copy;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "weights.bin");
+        PatternEvaluator.writeSeedWeights(file);
+        WeightTable table = map(file);
+        System.out.printf("wrote %d phases of %d tables to %s%n", table.getPhases(), table.getTables(), file);
+    }
+}
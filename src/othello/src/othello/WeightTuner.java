@@ -0,0 +1,529 @@
+package othello;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WeightTuner fits the weights of a {@link PatternEvaluator} to positions labelled with their final disc difference,
+ * and writes them as the {@link WeightTable} file the engine maps.<p></p>
+ * Training data comes from self-play: a game starts with 2 to 12 random moves for variety, continues with a
+ * shallow {@link AlphaBetaPlayer} and is solved exactly with an {@link EndgameSolver} once few empties are left.
+ * Every position of the game is labelled with the solved result from its mover's point of view, and the positions
+ * along the solver's perfect line get the same exact result, so the late phases see exact labels and the early ones
+ * the outcome the game actually led to. Games are played on several threads and written as fixed-size records to a
+ * data file, which {@link #generate(Path, int, long)} appends to.<p></p>
+ * Tuning streams the data file in chunks, so a data set may be much larger than memory. The positions of a chunk are
+ * turned into primitive arrays of weight positions on all threads, see
+ * {@link PatternEvaluator#features(long, long, int[], int)}, and the chunk is shuffled and cut into mini-batches. For
+ * every mini-batch the threads first compute the residuals of disjoint slices of positions against the current
+ * weights, then each thread applies the gradient to the weights in its own range of the weight array, so no two
+ * threads write the same weight and no locks are needed. A weight moves by the learning rate times the summed residual
+ * of the positions that use it, divided by their number plus {@link #DAMPING}. A common configuration thus moves by
+ * about the mean residual, while one seen in a few positions barely moves and cannot learn those positions by heart,
+ * which on self-play data raised the playing strength far more than it lowered the training error.<p></p>
+ * Data file layout, little-endian like the weight file: the int {@link #MAGIC}, the int {@link #VERSION}, then one
+ * {@link #RECORD_BYTES}-byte record per position: the Discs of the player to move, the Discs of the other player and
+ * the final disc difference for the player to move as a signed byte.<p></p>
+ * Usage: {@code WeightTuner -generate data.bin [-games n] [-threads n] [-depth n] [-exact n] [-seed n]} to add games
+ * to a data file, and {@code WeightTuner -train data.bin -out weights.bin [-from weights.bin] [-epochs n] [-batch n]
+ * [-rate r] [-threads n]} to tune weights, starting from a weight file or else from
+ * {@link PatternEvaluator#writeSeedWeights(Path)}.
+ * @see PatternEvaluator
+ * @see WeightTable
+ */
+public class WeightTuner {
+
+    /**
+     * The first four bytes of a data file, "OTTD".
+     */
+    public static final int MAGIC = 0x4F545444;
+
+    /**
+     * The data file layout version this class reads and writes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of one position in a data file.
+     */
+    public static final int RECORD_BYTES = 17;
+
+    /**
+     * The evaluation score of one Disc, see {@link Evaluator}.
+     */
+    static final int DISC_SCORE = 100;
+
+    /**
+     * Added to the number of positions using a weight before dividing the gradient by it, see {@link #train}.
+     */
+    static final int DAMPING = 100;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int CHUNK_POSITIONS = 1 << 16;
+
+    private final int threads;
+    private final ExecutorService pool;
+
+    /**
+     * @param threads the number of threads playing games or tuning
+     */
+    public WeightTuner(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Plays self-play games and appends their labelled positions to a data file, creating it if needed.
+     * @param data the data file
+     * @param games the number of games to play
+     * @param seed the seed of the first game; game i draws its random opening moves from seed + i. The searched
+     *             moves after them may depend on which games a thread played before, since each thread keeps its
+     *             search tables from game to game
+     * @return the number of positions written
+     * @throws IOException if the file cannot be written or is not a data file
+     */
+    public long generate(Path data, int games, long seed) throws IOException {
+        return generate(data, games, seed, 4, 14);
+    }
+
+    /**
+     * Plays self-play games and appends their labelled positions to a data file, creating it if needed.
+     * @param data the data file
+     * @param games the number of games to play
+     * @param seed the seed of the first game
+     * @param depth the search depth of the players
+     * @param exactEmpties the number of empties at which a game is solved exactly
+     * @return the number of positions written
+     * @throws IOException if the file cannot be written or is not a data file
+     */
+    public long generate(Path data, int games, long seed, int depth, int exactEmpties) throws IOException {
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header, 0);
+            } else {
+                checkHeader(channel, data);
+            }
+            channel.position(channel.size());
+
+            AtomicInteger nextGame = new AtomicInteger();
+            List<Callable<Long>> players = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                players.add(() -> {
+                    AlphaBetaPlayer player = new AlphaBetaPlayer(new PositionalEvaluator(), depth, 0,
+                            new TranspositionTable(8));
+                    EndgameSolver solver = new EndgameSolver(0, 16);
+                    long written = 0;
+                    for (int game; (game = nextGame.getAndIncrement()) < games; ) {
+                        ByteBuffer records = playGame(player, solver, new SplittableRandom(seed + game), depth,
+                                exactEmpties);
+                        written += records.remaining() / RECORD_BYTES;
+                        synchronized (channel) {
+                            while (records.hasRemaining()) {
+                                channel.write(records);
+                            }
+                        }
+                    }
+                    return written;
+                });
+            }
+            long written = 0;
+            for (long count : invokeAll(players)) {
+                written += count;
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Plays one game and labels its positions.
+     * @return the records of the game, ready to be written
+     */
+    private static ByteBuffer playGame(AlphaBetaPlayer player, EndgameSolver solver, SplittableRandom random,
+                                       int depth, int exactEmpties) {
+        BitBoard board = new BitBoard();
+        List<long[]> positions = new ArrayList<>();
+        List<Color> movers = new ArrayList<>();
+        int randomPlies = 2 + random.nextInt(11);
+        for (int ply = 0; Long.bitCount(~(board.getOwn() | board.getOpponent())) > exactEmpties; ply++) {
+            long moves = board.getPlayableMask();
+            if (moves == 0) {
+                board.pass();
+                if (board.getPlayableMask() == 0)
+                    break;
+                continue;
+            }
+            positions.add(new long[]{board.getOwn(), board.getOpponent()});
+            movers.add(board.getPlayerTurn());
+            int square;
+            if (ply < randomPlies) {
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                square = Long.numberOfTrailingZeros(moves);
+            } else {
+                square = player.search(board, depth, 0).getBestSquare();
+            }
+            board.makeMove(square);
+        }
+
+        // Perfect play from here on decides the game, so every position of it gets the solved disc difference
+        SearchResult solved = solver.solve(board);
+        Color solvedMover = board.getPlayerTurn();
+        int[] line = solved.getPrincipalVariation();
+        ByteBuffer records = ByteBuffer.allocate((positions.size() + line.length) * RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < positions.size(); i++) {
+            putRecord(records, positions.get(i)[0], positions.get(i)[1],
+                    movers.get(i) == solvedMover ? solved.getScore() : -solved.getScore());
+        }
+        for (int square : line) {
+            if (square == SearchResult.PASS) {
+                board.pass();
+                continue;
+            }
+            putRecord(records, board.getOwn(), board.getOpponent(),
+                    board.getPlayerTurn() == solvedMover ? solved.getScore() : -solved.getScore());
+            board.makeMove(square);
+        }
+        return records.flip();
+    }
+
+    private static void putRecord(ByteBuffer records, long own, long opponent, int score) {
+        records.putLong(own).putLong(opponent).put((byte) score);
+    }
+
+    /**
+     * Fits weights to a data file.
+     * @param data the data file, read once per epoch
+     * @param weights the starting weights in file order, changed in place
+     * @param epochs the number of passes over the data
+     * @param batchSize the number of positions per gradient step
+     * @param rate the learning rate
+     * @param seed the seed of the shuffling
+     * @return the root mean square error in Discs of the last epoch, measured before each step
+     * @throws IOException if the file cannot be read or is not a data file
+     */
+    public double train(Path data, float[] weights, int epochs, int batchSize, float rate, long seed)
+            throws IOException {
+        if (weights.length != PatternEvaluator.PHASES * PatternEvaluator.PHASE_SIZE)
+            throw new IllegalArgumentException("weights do not match the PatternEvaluator layout");
+        int features = PatternEvaluator.FEATURES;
+        long[] own = new long[CHUNK_POSITIONS];
+        long[] opponent = new long[CHUNK_POSITIONS];
+        float[] targets = new float[CHUNK_POSITIONS];
+        int[] indices = new int[CHUNK_POSITIONS * features];
+        int[] order = new int[CHUNK_POSITIONS];
+        float[] residuals = new float[batchSize];
+        double[] errors = new double[threads];
+        float[] gradient = new float[weights.length];
+        int[] counts = new int[weights.length];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_POSITIONS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        SplittableRandom random = new SplittableRandom(seed);
+        double rms = Double.NaN;
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            double squaredError = 0;
+            long positions = 0;
+            try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+                checkHeader(channel, data);
+                channel.position(HEADER_BYTES);
+                int count;
+                while ((count = readChunk(channel, buffer, own, opponent, targets)) > 0) {
+                    int chunk = count;
+                    parallel(chunk, (from, to, thread) -> {
+                        for (int i = from; i < to; i++) {
+                            PatternEvaluator.features(own[i], opponent[i], indices, i * features);
+                        }
+                    });
+                    for (int i = 0; i < chunk; i++) {
+                        int j = random.nextInt(i + 1);
+                        order[i] = order[j];
+                        order[j] = i;
+                    }
+                    for (int start = 0; start < chunk; start += batchSize) {
+                        int size = Math.min(batchSize, chunk - start);
+                        int first = start;
+                        parallel(size, (from, to, thread) -> {
+                            double sum = 0;
+                            for (int i = from; i < to; i++) {
+                                int position = order[first + i];
+                                float prediction = 0;
+                                for (int f = position * features, end = f + features; f < end; f++) {
+                                    prediction += weights[indices[f]];
+                                }
+                                float residual = prediction - targets[position];
+                                residuals[i] = residual;
+                                sum += (double) residual * residual;
+                            }
+                            errors[thread] += sum;
+                        });
+                        if (rate == 0)
+                            continue;
+                        parallel(weights.length, (low, high, thread) -> {
+                            for (int i = 0; i < size; i++) {
+                                int position = order[first + i];
+                                for (int f = position * features, end = f + features; f < end; f++) {
+                                    int weight = indices[f];
+                                    if (weight >= low && weight < high) {
+                                        gradient[weight] += residuals[i];
+                                        counts[weight]++;
+                                    }
+                                }
+                            }
+                            for (int i = 0; i < size; i++) {
+                                int position = order[first + i];
+                                for (int f = position * features, end = f + features; f < end; f++) {
+                                    int weight = indices[f];
+                                    if (weight >= low && weight < high && counts[weight] != 0) {
+                                        weights[weight] -= rate * gradient[weight] / (counts[weight] + DAMPING);
+                                        gradient[weight] = 0;
+                                        counts[weight] = 0;
+                                    }
+                                }
+                            }
+                        });
+                    }
+                    positions += chunk;
+                }
+            }
+            for (int thread = 0; thread < threads; thread++) {
+                squaredError += errors[thread];
+                errors[thread] = 0;
+            }
+            rms = Math.sqrt(squaredError / Math.max(1, positions)) / DISC_SCORE;
+        }
+        return rms;
+    }
+
+    /**
+     * Measures how well weights fit a data file without changing them.
+     * @param data the data file
+     * @param weights the weights in file order
+     * @return the root mean square error in Discs
+     * @throws IOException if the file cannot be read or is not a data file
+     */
+    public double measure(Path data, float[] weights) throws IOException {
+        return train(data, weights, 1, CHUNK_POSITIONS, 0, 0);
+    }
+
+    /**
+     * Reads up to a chunk of positions.
+     * @return the number of positions read, 0 at the end of the file
+     */
+    private static int readChunk(FileChannel channel, ByteBuffer buffer, long[] own, long[] opponent,
+                                 float[] targets) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the chunk is full or the file ends
+        }
+        buffer.flip();
+        int count = buffer.remaining() / RECORD_BYTES;
+        for (int i = 0; i < count; i++) {
+            own[i] = buffer.getLong();
+            opponent[i] = buffer.getLong();
+            targets[i] = buffer.get() * DISC_SCORE;
+        }
+        return count;
+    }
+
+    private static void checkHeader(FileChannel channel, Path data) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // read the whole header
+        }
+        if (header.position() < HEADER_BYTES || header.getInt(0) != MAGIC)
+            throw new IOException(data + " is not a training data file");
+        if (header.getInt(4) != VERSION)
+            throw new IOException(data + " has data file version " + header.getInt(4) + ", expected " + VERSION);
+    }
+
+    /**
+     * Rounds tuned weights to the 16-bit weights of a weight file and writes it. The file is written next to the
+     * target and moved over it, so engines that have the old file mapped keep reading consistent weights.
+     * @param file the weight file to create or replace
+     * @param weights the weights in file order
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeWeights(Path file, float[] weights) throws IOException {
+        short[] rounded = new short[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            rounded[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(weights[i])));
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        WeightTable.write(temporary, PatternEvaluator.PHASES, PatternEvaluator.TABLE_SIZES, rounded);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param table the weights to start from
+     * @return the weights as floats, in file order
+     */
+    public static float[] toFloats(short[] table) {
+        float[] weights = new float[table.length];
+        for (int i = 0; i < table.length; i++) {
+            weights[i] = table[i];
+        }
+        return weights;
+    }
+
+    /**
+     * Stops the threads.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private interface Slice {
+        void run(int from, int to, int thread);
+    }
+
+    /**
+     * Splits the range [0, size) into one slice per thread and waits until all slices are done.
+     */
+    private void parallel(int size, Slice slice) throws IOException {
+        List<Callable<Long>> tasks = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            int from = (int) ((long) size * thread / threads);
+            int to = (int) ((long) size * (thread + 1) / threads);
+            int index = thread;
+            tasks.add(() -> {
+                slice.run(from, to, index);
+                return 0L;
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    private List<Long> invokeAll(List<Callable<Long>> tasks) throws IOException {
+        List<Long> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Long> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path generate = null;
+        Path train = null;
+        Path out = Paths.get("weights.bin");
+        Path from = null;
+        Path validate = null;
+        int games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int depth = 4;
+        int exact = 14;
+        long seed = 1;
+        int epochs = 10;
+        int batch = 1024;
+        float rate = 0.01f;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-generate":
+                    generate = Paths.get(args[++i]);
+                    break;
+                case "-train":
+                    train = Paths.get(args[++i]);
+                    break;
+                case "-out":
+                    out = Paths.get(args[++i]);
+                    break;
+                case "-from":
+                    from = Paths.get(args[++i]);
+                    break;
+                case "-validate":
+                    validate = Paths.get(args[++i]);
+                    break;
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "-exact":
+                    exact = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-epochs":
+                    epochs = Integer.parseInt(args[++i]);
+                    break;
+                case "-batch":
+                    batch = Integer.parseInt(args[++i]);
+                    break;
+                case "-rate":
+                    rate = Float.parseFloat(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (generate == null && train == null)
+            throw new IllegalArgumentException("either -generate or -train is required");
+
+        WeightTuner tuner = new WeightTuner(threads);
+        try {
+            if (generate != null) {
+                long start = System.nanoTime();
+                long positions = tuner.generate(generate, games, seed, depth, exact);
+                System.out.printf("%d games, %d positions in %.1f s%n", games, positions,
+                        (System.nanoTime() - start) / 1e9);
+            }
+            if (train != null) {
+                float[] weights = toFloats(from != null ? WeightTable.map(from).toArray()
+                        : PatternEvaluator.seedWeights());
+                for (int epoch = 1; epoch <= epochs; epoch++) {
+                    long start = System.nanoTime();
+                    double rms = tuner.train(train, weights, 1, batch, rate, seed + epoch);
+                    if (validate != null) {
+                        System.out.printf("epoch %d: rms error %.2f discs, validation %.2f discs, %.1f s%n", epoch,
+                                rms, tuner.measure(validate, weights), (System.nanoTime() - start) / 1e9);
+                    } else {
+                        System.out.printf("epoch %d: rms error %.2f discs, %.1f s%n", epoch, rms,
+                                (System.nanoTime() - start) / 1e9);
+                    }
+                }
+                writeWeights(out, weights);
+                System.out.println("wrote " + out);
+            }
+        } finally {
+            tuner.shutdown();
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package othello;
+
+import java.awt.*;
+
+/**
+ * WideBitBoard is the {@link BitBoard} of boards other than 8x8, up to 16x16. A board of size n has n * n squares,
+ * numbered {@code x * n + y} for tile (x, y), and each player's Discs are kept in an array of {@link #words(int)}
+ * longs, four for the largest board of 16x16. The rules and the starting position are those of the 8x8 game, with
+ * the four starting Discs on the centre squares.<p></p>
+ * Legal moves are generated with the same shift-and-mask propagation as BitBoard, applied to the whole array: a shift
+ * by k moves every bit k squares along and carries the bits that leave one word into the next. Runs of opponent Discs
+ * are followed n - 2 times per direction, the longest run that fits between two Discs, so the cost grows with the
+ * number of words times the board size rather than with the number of squares. Flips are found by walking the eight
+ * rays from the placed Disc over the masks. Neither reads any per-tile object.<p></p>
+ * The working arrays are allocated once per board, so move generation, moves and undos do not allocate. A
+ * WideBitBoard is therefore not thread safe.
+ * @see BitBoard
+ * @see Board#Board(int)
+ */
+public class WideBitBoard {
+
+    /**
+     * The smallest supported board size.
+     */
+    public static final int MIN_SIZE = 4;
+
+    /**
+     * The largest supported board size, which fills four longs.
+     */
+    public static final int MAX_SIZE = 16;
+
+    /**
+     * The steps of the eight directions as (dx, dy) pairs, for walking rays.
+     */
+    private static final int[] DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final int size;
+    private final int words;
+
+    /**
+     * Every square of the board, and every square except those in the first and last column. Opponent Discs in these
+     * columns cannot be flanked horizontally or diagonally, so masking them out also stops wrap-around.
+     */
+    private final long[] boardMask;
+    private final long[] innerY;
+
+    private final long[] own;
+    private final long[] opponent;
+    private Color playerTurn;
+
+    /**
+     * Working arrays for move generation, and the moves found by {@link #hasMoves()}.
+     */
+    private final long[] empty;
+    private final long[] inner;
+    private final long[] run;
+    private final long[] shifted;
+    private final long[] moves;
+
+    /**
+     * Creates the starting position of a game on a board of the given size, with Black to move.
+     * @param size the number of rows and columns, even and between MIN_SIZE and MAX_SIZE
+     * @throws IllegalArgumentException if the size is not supported
+     */
+    public WideBitBoard(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE || size % 2 != 0)
+            throw new IllegalArgumentException("board size must be even and between " + MIN_SIZE + " and "
+                    + MAX_SIZE + ": " + size);
+        this.size = size;
+        this.words = words(size);
+        boardMask = new long[words];
+        innerY = new long[words];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int square = square(x, y);
+                boardMask[square >>> 6] |= 1L << square;
+                if (y != 0 && y != size - 1)
+                    innerY[square >>> 6] |= 1L << square;
+            }
+        }
+        own = new long[words];
+        opponent = new long[words];
+        empty = new long[words];
+        inner = new long[words];
+        run = new long[words];
+        shifted = new long[words];
+        moves = new long[words];
+
+        int centre = size / 2;
+        set(opponent, square(centre - 1, centre - 1));
+        set(opponent, square(centre, centre));
+        set(own, square(centre, centre - 1));
+        set(own, square(centre - 1, centre));
+        playerTurn = Color.BLACK;
+    }
+
+    /**
+     * @param size the number of rows and columns
+     * @return the number of longs holding one player's Discs on a board of that size
+     */
+    public static int words(int size) {
+        return (size * size + 63) >>> 6;
+    }
+
+    /**
+     * @param bits a bitset
+     * @param square a bit index
+     * @return whether the bit is set
+     */
+    public static boolean get(long[] bits, int square) {
+        return (bits[square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * @param bits a bitset
+     * @return the number of bits set
+     */
+    public static int bitCount(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the lowest set bit at or above an index, for walking a bitset: {@code for (int s = next(b, 0); s >= 0;
+     * s = next(b, s + 1))}.
+     * @param bits a bitset
+     * @param from the index to start at
+     * @return the index of the next set bit, or -1 if there is none
+     */
+    public static int next(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= bits.length)
+            return -1;
+        long remaining = bits[word] & (-1L << from);
+        while (remaining == 0) {
+            if (++word == bits.length)
+                return -1;
+            remaining = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(remaining);
+    }
+
+    private static void set(long[] bits, int square) {
+        bits[square >>> 6] |= 1L << square;
+    }
+
+    /**
+     * @return the number of rows and columns
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param x the row of the tile
+     * @param y the column of the tile
+     * @return the bit index x * size + y of the tile
+     */
+    public int square(int x, int y) {
+        return x * size + y;
+    }
+
+    /**
+     * @return Color.BLACK or Color.WHITE, whichever is to move
+     */
+    public Color getPlayerTurn() {
+        return playerTurn;
+    }
+
+    /**
+     * @param bits receives the Black Discs; at least {@link #words(int)} longs
+     */
+    public void getBlack(long[] bits) {
+        System.arraycopy(playerTurn == Color.BLACK ? own : opponent, 0, bits, 0, words);
+    }
+
+    /**
+     * @param bits receives the White Discs; at least {@link #words(int)} longs
+     */
+    public void getWhite(long[] bits) {
+        System.arraycopy(playerTurn == Color.BLACK ? opponent : own, 0, bits, 0, words);
+    }
+
+    /**
+     * @return the number of Black Discs
+     */
+    public int getBlackCount() {
+        return bitCount(playerTurn == Color.BLACK ? own : opponent);
+    }
+
+    /**
+     * @return the number of White Discs
+     */
+    public int getWhiteCount() {
+        return bitCount(playerTurn == Color.BLACK ? opponent : own);
+    }
+
+    /**
+     * Calculates the legal moves of the player to move.
+     * @param moves receives a bit for every empty square that flanks at least one opponent Disc; at least
+     *              {@link #words(int)} longs
+     * @return the number of legal moves
+     */
+    public int generateMoves(long[] moves) {
+        for (int i = 0; i < words; i++) {
+            empty[i] = ~(own[i] | opponent[i]) & boardMask[i];
+            inner[i] = opponent[i] & innerY[i];
+            moves[i] = 0;
+        }
+        collectMoves(moves, inner, 1);
+        collectMoves(moves, inner, -1);
+        collectMoves(moves, opponent, size);
+        collectMoves(moves, opponent, -size);
+        collectMoves(moves, inner, size - 1);
+        collectMoves(moves, inner, -(size - 1));
+        collectMoves(moves, inner, size + 1);
+        collectMoves(moves, inner, -(size + 1));
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(moves[i]);
+        }
+        return count;
+    }
+
+    /**
+     * @return whether the player to move has a legal move
+     */
+    public boolean hasMoves() {
+        return generateMoves(moves) > 0;
+    }
+
+    /**
+     * Adds the moves of one direction: own Discs are shifted over runs of opponent Discs and the empty squares
+     * reached are kept. Each step extends the runs by one square and the loop ends early once they stop growing,
+     * which in real positions is after a few steps.
+     * @param moves the moves found so far
+     * @param flankable the opponent Discs that can be flanked in this direction
+     * @param shift the number of squares to shift by, towards higher bit indexes when positive
+     */
+    private void collectMoves(long[] moves, long[] flankable, int shift) {
+        shift(own, shift, run);
+        long any = 0;
+        for (int i = 0; i < words; i++) {
+            any |= run[i] &= flankable[i];
+        }
+        if (any == 0)
+            return;
+        for (int step = 0; step < size - 3 && extend(flankable, shift); step++) {
+        }
+        shift(run, shift, shifted);
+        for (int i = 0; i < words; i++) {
+            moves[i] |= shifted[i] & empty[i];
+        }
+    }
+
+    /**
+     * Adds to {@code run} the flankable squares one step further along, in a single pass over the words.
+     * @return whether any square was added
+     */
+    private boolean extend(long[] flankable, int shift) {
+        long grown = 0;
+        long carry = 0;
+        if (shift > 0) {
+            for (int i = 0; i < words; i++) {
+                long word = run[i];
+                long added = (word << shift | carry) & flankable[i] & ~word;
+                carry = word >>> (64 - shift);
+                run[i] = word | added;
+                grown |= added;
+            }
+        } else {
+            int right = -shift;
+            for (int i = words - 1; i >= 0; i--) {
+                long word = run[i];
+                long added = (word >>> right | carry) & flankable[i] & ~word;
+                carry = word << (64 - right);
+                run[i] = word | added;
+                grown |= added;
+            }
+        }
+        return grown != 0;
+    }
+
+    /**
+     * Shifts a bitset by fewer than 64 squares, carrying bits between words. Bits shifted past either end are lost.
+     */
+    private void shift(long[] source, int shift, long[] target) {
+        if (shift > 0) {
+            long carry = 0;
+            for (int i = 0; i < words; i++) {
+                long word = source[i];
+                target[i] = word << shift | carry;
+                carry = word >>> (64 - shift);
+            }
+        } else {
+            int right = -shift;
+            long carry = 0;
+            for (int i = words - 1; i >= 0; i--) {
+                long word = source[i];
+                target[i] = word >>> right | carry;
+                carry = word << (64 - right);
+            }
+        }
+    }
+
+    /**
+     * Calculates which opponent Discs are flipped when the player to move places a Disc at {@code square}. The
+     * square is expected to be empty.
+     * @param square the bit index the Disc is placed at
+     * @param flips receives the Discs that change color; at least {@link #words(int)} longs
+     * @return the number of flipped Discs, 0 if the move is illegal
+     */
+    public int computeFlips(int square, long[] flips) {
+        for (int i = 0; i < words; i++) {
+            flips[i] = 0;
+        }
+        int x0 = square / size;
+        int y0 = square % size;
+        int count = 0;
+        for (int d = 0; d < DX.length; d++) {
+            int x = x0 + DX[d];
+            int y = y0 + DY[d];
+            int step = DX[d] * size + DY[d];
+            int s = square + step;
+            int length = 0;
+            while (x >= 0 && x < size && y >= 0 && y < size && get(opponent, s)) {
+                x += DX[d];
+                y += DY[d];
+                s += step;
+                length++;
+            }
+            if (length > 0 && x >= 0 && x < size && y >= 0 && y < size && get(own, s)) {
+                for (int i = 1; i <= length; i++) {
+                    set(flips, square + i * step);
+                }
+                count += length;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Places a Disc for the player to move, flips every Disc it outflanks and switches the turn. Like
+     * {@link BitBoard#makeMove(int)}, an illegal move places a lone Disc.
+     * @param square the bit index the Disc is placed at
+     * @param flips receives the flipped Discs, which {@link #undoMove(int, long[])} needs to take the move back
+     * @return the number of flipped Discs
+     */
+    public int makeMove(int square, long[] flips) {
+        int count = computeFlips(square, flips);
+        for (int i = 0; i < words; i++) {
+            long mover = own[i] | flips[i];
+            own[i] = opponent[i] & ~flips[i];
+            opponent[i] = mover;
+        }
+        set(opponent, square);
+        switchTurn();
+        return count;
+    }
+
+    /**
+     * Takes back a move made with {@link #makeMove(int, long[])}. Moves must be undone in reverse order.
+     * @param square the bit index the Disc was placed at
+     * @param flips the Discs flipped by that move
+     */
+    public void undoMove(int square, long[] flips) {
+        opponent[square >>> 6] &= ~(1L << square);
+        for (int i = 0; i < words; i++) {
+            long mover = opponent[i] & ~flips[i];
+            opponent[i] = own[i] | flips[i];
+            own[i] = mover;
+        }
+        switchTurn();
+    }
+
+    /**
+     * Passes the turn to the other player without placing a Disc. Calling it a second time undoes the pass.
+     */
+    public void pass() {
+        for (int i = 0; i < words; i++) {
+            long mover = own[i];
+            own[i] = opponent[i];
+            opponent[i] = mover;
+        }
+        switchTurn();
+    }
+
+    private void switchTurn() {
+        playerTurn = playerTurn == Color.BLACK ? Color.WHITE : Color.BLACK;
+    }
+
+    /**
+     * @return the position as size * size characters in bit index order (X Black, O White, - empty), a space and the
+     * player to move, like {@link BitBoard#toString()}
+     */
+    @Override
+    public String toString() {
+        long[] black = playerTurn == Color.BLACK ? own : opponent;
+        long[] white = playerTurn == Color.BLACK ? opponent : own;
+        StringBuilder text = new StringBuilder(size * size + 2);
+        for (int square = 0; square < size * size; square++) {
+            text.append(get(black, square) ? 'X' : get(white, square) ? 'O' : '-');
+        }
+        return text.append(' ').append(playerTurn == Color.BLACK ? 'X' : 'O').toString();
+    }
+}
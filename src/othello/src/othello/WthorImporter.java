@@ -0,0 +1,163 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * WthorImporter converts game databases in the WTHOR format, the {@code .wtb} files published by the French Othello
+ * federation, into {@link GameRecord}s.<p></p>
+ * A WTHOR file has a 16-byte little-endian header holding, among others, the number of games at offset 4 and the
+ * board size at offset 12 (0 or 8 for the 8x8 board), followed by one 68-byte entry per game: the tournament, Black
+ * player and White player numbers as shorts, the real and theoretical Black scores as bytes and 60 move bytes. A
+ * move is written as {@code 10 * row + column} with both counted from 1, so f5 is 56, and 0 ends a game with fewer
+ * than 60 moves. Passes are not written, as in GameRecord.<p></p>
+ * Games are streamed through a fixed buffer, so databases of any size are imported in constant memory. Every game is
+ * replayed to check that its moves are legal; games that are not are skipped and counted. The tournament and player
+ * numbers are not kept.<p></p>
+ * Usage: {@code WthorImporter output.rec file.wtb...} writes the games of all given databases to one record file.
+ * @see GameRecordWriter
+ */
+public class WthorImporter {
+
+    /**
+     * The size of the WTHOR file header.
+     */
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * The size of one game in a WTHOR file.
+     */
+    static final int GAME_BYTES = 68;
+
+    /**
+     * The number of games read from the file at once.
+     */
+    private static final int GAMES_PER_READ = 1024;
+
+    private long imported;
+    private long skipped;
+
+    /**
+     * Imports every game of a WTHOR database.
+     * @param database the {@code .wtb} file to read
+     * @param writer receives the games with legal moves
+     * @return the number of games written
+     * @throws IOException if a file cannot be read or written, or the database is not an 8x8 WTHOR game file
+     */
+    public long importFile(Path database, GameRecordWriter writer) throws IOException {
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(database, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (!readFully(channel, header))
+                throw new IOException(database + " is too short for a WTHOR header");
+            int games = header.getInt(4);
+            int boardSize = header.get(12);
+            if (boardSize != 0 && boardSize != 8)
+                throw new IOException(database + " holds games on a " + boardSize + "x" + boardSize + " board");
+            if (games < 0 || channel.size() < HEADER_BYTES + (long) games * GAME_BYTES)
+                throw new IOException(database + " should hold " + games + " games but has " + channel.size()
+                        + " bytes");
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(GAMES_PER_READ * GAME_BYTES);
+            int[] moves = new int[GameRecord.MAX_MOVES];
+            for (int left = games; left > 0; ) {
+                int batch = Math.min(left, GAMES_PER_READ);
+                buffer.clear().limit(batch * GAME_BYTES);
+                if (!readFully(channel, buffer))
+                    throw new IOException(database + " ended early");
+                for (int game = 0; game < batch; game++) {
+                    GameRecord record = decode(buffer, game * GAME_BYTES, moves);
+                    if (record == null) {
+                        skipped++;
+                        continue;
+                    }
+                    writer.write(record);
+                    written++;
+                }
+                left -= batch;
+            }
+        }
+        imported += written;
+        return written;
+    }
+
+    /**
+     * Fills the buffer up to its limit, since a FileChannel may return fewer bytes than asked for.
+     * @return false if the file ended first
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of games imported by this importer so far
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * @return the number of games skipped so far because their moves are not legal
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Decodes one WTHOR game entry.
+     * @param buffer the buffer holding the entry
+     * @param offset the position of the entry in the buffer
+     * @param moves a buffer of {@link GameRecord#MAX_MOVES} ints for the moves
+     * @return the game, or null if a move is not a square or not playable
+     */
+    static GameRecord decode(ByteBuffer buffer, int offset, int[] moves) {
+        int count = 0;
+        for (int i = 0; i < GameRecord.MAX_MOVES; i++) {
+            int move = buffer.get(offset + 8 + i) & 0xFF;
+            if (move == 0)
+                break;
+            int row = move / 10;
+            int column = move % 10;
+            if (row < 1 || row > 8 || column < 1 || column > 8)
+                return null;
+            moves[count++] = BitBoard.square(row - 1, column - 1);
+        }
+        try {
+            return GameRecord.of(Arrays.copyOf(moves, count));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param square a bit index between 0 and 63
+     * @return the WTHOR code of the square
+     */
+    static int encode(int square) {
+        return 10 * ((square >>> 3) + 1) + (square & 7) + 1;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2)
+            throw new IllegalArgumentException("usage: WthorImporter output.rec file.wtb...");
+        long start = System.nanoTime();
+        WthorImporter importer = new WthorImporter();
+        try (GameRecordWriter writer = new GameRecordWriter(Paths.get(args[0]))) {
+            for (int i = 1; i < args.length; i++) {
+                System.out.printf("%s: %d games%n", args[i], importer.importFile(Paths.get(args[i]), writer));
+            }
+        }
+        System.out.printf("imported %d games, skipped %d, in %.1f s%n", importer.getImported(),
+                importer.getSkipped(), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,75 @@
+package othello;
+
+import java.awt.*;
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist holds the random keys used to hash Othello positions. A position's hash is the XOR of one key for every
+ * occupied square, chosen by the color of its Disc, and a side key when White is to move. Because XOR is its own
+ * inverse, a hash can be updated incrementally: placing a Disc XORs in one key, flipping a Disc XORs in the key
+ * {@link #FLIP} for its square, and switching the turn XORs in {@link #SIDE}.<p></p>
+ * The keys come from a fixed seed so hashes are the same in every JVM.
+ * @see BitBoard#getHash()
+ */
+public final class Zobrist {
+
+    /**
+     * The key of a Black Disc on each square, indexed by bit index.
+     */
+    static final long[] BLACK = new long[64];
+
+    /**
+     * The key of a White Disc on each square, indexed by bit index.
+     */
+    static final long[] WHITE = new long[64];
+
+    /**
+     * BLACK[square] ^ WHITE[square], the change in hash when the Disc on a square changes color.
+     */
+    static final long[] FLIP = new long[64];
+
+    /**
+     * The key that is part of the hash when White is to move.
+     */
+    static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x07E1106C5152410L);
+        for (int square = 0; square < 64; square++) {
+            BLACK[square] = random.nextLong();
+            WHITE[square] = random.nextLong();
+            FLIP[square] = BLACK[square] ^ WHITE[square];
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Computes the hash of a position from scratch.
+     * @param black the Black Discs
+     * @param white the White Discs
+     * @param playerTurn the player to move
+     * @return the Zobrist hash of the position
+     */
+    public static long hash(long black, long white, Color playerTurn) {
+        long hash = playerTurn == Color.WHITE ? SIDE : 0;
+        for (long discs = black; discs != 0; discs &= discs - 1) {
+            hash ^= BLACK[Long.numberOfTrailingZeros(discs)];
+        }
+        for (long discs = white; discs != 0; discs &= discs - 1) {
+            hash ^= WHITE[Long.numberOfTrailingZeros(discs)];
+        }
+        return hash;
+    }
+
+    /**
+     * @param playerTurn the player placing a Disc
+     * @param square the bit index of the Disc
+     * @return the key of a Disc of the given color on the given square
+     */
+    static long disc(Color playerTurn, int square) {
+        return playerTurn == Color.BLACK ? BLACK[square] : WHITE[square];
+    }
+}
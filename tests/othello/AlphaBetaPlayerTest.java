@@ -0,0 +1,77 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlphaBetaPlayerTest {
+
+    @Test
+    void chooseMovePicksPlayableTile() {
+        Board board = new Board();
+        Coordinate move = new AlphaBetaPlayer(4).chooseMove(board);
+        assertTrue(board.getPlayableTiles().contains(move));
+    }
+
+    @Test
+    void chooseMoveTakesWinningCorner() {
+        // A row of White Discs between a Black corner and the empty corner (0,7) wins the game on the spot.
+        long black = 1L << BitBoard.square(0, 0);
+        long white = 0;
+        for (int y = 1; y < 7; y++)
+            white |= 1L << BitBoard.square(0, y);
+        SearchResult result = new AlphaBetaPlayer(4).search(new BitBoard(black, white, Color.BLACK), 4, 0);
+        assertEquals(BitBoard.square(0, 7), result.getBestSquare());
+        assertEquals(AlphaBetaPlayer.WIN + 64, result.getScore());
+    }
+
+    @Test
+    void searchIsDeterministicAtFixedDepth() {
+        SearchResult first = new AlphaBetaPlayer(6).search(new BitBoard(), 6, 0);
+        SearchResult second = new AlphaBetaPlayer(6).search(new BitBoard(), 6, 0);
+        assertEquals(6, first.getDepth());
+        assertEquals(first.getBestSquare(), second.getBestSquare());
+        assertEquals(first.getScore(), second.getScore());
+        assertEquals(first.getNodes(), second.getNodes());
+        assertArrayEquals(first.getPrincipalVariation(), second.getPrincipalVariation());
+    }
+
+    @Test
+    void searchStopsAtDeadline() {
+        SearchResult result = new AlphaBetaPlayer(AlphaBetaPlayer.MAX_DEPTH).search(new BitBoard(),
+                AlphaBetaPlayer.MAX_DEPTH, 200);
+        assertTrue(result.getElapsedNanos() < 1_000_000_000L);
+        assertTrue(result.getDepth() > 0);
+        assertTrue(result.getNodes() > 0);
+    }
+
+    @Test
+    void searchReturnsPassWithoutMoves() {
+        long black = 1L << BitBoard.square(0, 0);
+        long white = 1L << BitBoard.square(7, 7);
+        assertNull(new AlphaBetaPlayer(4).search(new BitBoard(black, white, Color.BLACK), 4, 0).getBestMove());
+    }
+
+    @Test
+    void resumeContinuesFromAnEarlierResult() {
+        BitBoard board = new BitBoard();
+        board.makeMove(BitBoard.square(2, 3));
+        AlphaBetaPlayer player = new AlphaBetaPlayer(7);
+        SearchResult earlier = player.search(board, 4, 0);
+        SearchResult resumed = player.resume(board, earlier, 7, 0);
+        SearchResult full = new AlphaBetaPlayer(7).search(board, 7, 0);
+        assertEquals(7, resumed.getDepth());
+        assertEquals(full.getScore(), resumed.getScore());
+        assertTrue((board.getPlayableMask() & (1L << resumed.getBestSquare())) != 0);
+
+        SearchResult unchanged = player.resume(board, earlier, 4, 0);
+        assertEquals(earlier.getDepth(), unchanged.getDepth());
+        assertEquals(earlier.getBestSquare(), unchanged.getBestSquare());
+        assertArrayEquals(earlier.getPrincipalVariation(), unchanged.getPrincipalVariation());
+    }
+}
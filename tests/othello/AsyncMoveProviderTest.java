@@ -0,0 +1,69 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncMoveProviderTest {
+
+    @Test
+    void streamsEveryIterationAndTheResult() throws Exception {
+        List<Integer> depths = new ArrayList<>();
+        try (AsyncMoveProvider provider = new AsyncMoveProvider(new PositionalEvaluator(), 6, 0, 4, Runnable::run)) {
+            SearchResult result = provider.requestMove(new BitBoard(), progress -> depths.add(progress.getDepth()))
+                    .get(30, TimeUnit.SECONDS);
+            assertEquals(List.of(1, 2, 3, 4, 5, 6), depths);
+            assertEquals(6, result.getDepth());
+            assertTrue((new BitBoard().getPlayableMask() & (1L << result.getBestSquare())) != 0);
+        }
+    }
+
+    @Test
+    void ponderHitContinuesFromThePonderedDepth() throws Exception {
+        try (AsyncMoveProvider provider = new AsyncMoveProvider(new PositionalEvaluator(), 7, 0, 4, Runnable::run)) {
+            BitBoard board = new BitBoard();
+            SearchResult first = provider.requestMove(board, null).get(30, TimeUnit.SECONDS);
+            board.makeMove(first.getBestSquare());
+            provider.ponder(board, first);
+            Thread.sleep(300);
+
+            int expectedReply = first.getPrincipalVariation()[1];
+            board.makeMove(expectedReply);
+            List<Integer> depths = new ArrayList<>();
+            SearchResult second = provider.requestMove(board, progress -> depths.add(progress.getDepth()))
+                    .get(30, TimeUnit.SECONDS);
+            assertEquals(1, provider.getPonderHits());
+            assertTrue(depths.get(0) > 1, "the first progress report is the pondering result");
+            assertTrue(second.getDepth() >= 7);
+            assertTrue((board.getPlayableMask() & (1L << second.getBestSquare())) != 0);
+        }
+    }
+
+    @Test
+    void cancelDropsTheSearch() throws Exception {
+        AtomicInteger reports = new AtomicInteger();
+        try (AsyncMoveProvider provider = new AsyncMoveProvider(new PositionalEvaluator(), AlphaBetaPlayer.MAX_DEPTH,
+                0, 4, Runnable::run)) {
+            CompletableFuture<SearchResult> future = provider.requestMove(new BitBoard(),
+                    progress -> reports.incrementAndGet());
+            Thread.sleep(100);
+            provider.cancel();
+            assertTrue(future.isCancelled());
+            int reported = reports.get();
+            Thread.sleep(100);
+            assertEquals(reported, reports.get());
+
+            CompletableFuture<SearchResult> next = provider.requestMove(new BitBoard(), null);
+            Thread.sleep(50);
+            assertFalse(next.isDone());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchAnalyzerTest {
+
+    static {
+        TemporaryFlipTables.install();
+    }
+
+    /**
+     * @return positions of random games, from the opening to a dozen empties, with a comment and a bad line
+     */
+    private static List<String> positions() {
+        List<String> lines = new ArrayList<>();
+        lines.add("# test positions");
+        Random random = new Random(7);
+        while (lines.size() < 40) {
+            BitBoard board = new BitBoard();
+            while (Long.bitCount(~(board.getOwn() | board.getOpponent())) > 12) {
+                long moves = board.getPlayableMask();
+                if (moves == 0) {
+                    board.pass();
+                    if (board.getPlayableMask() == 0)
+                        break;
+                    continue;
+                }
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                board.makeMove(Long.numberOfTrailingZeros(moves));
+                if (random.nextInt(12) == 0)
+                    lines.add(board.toString());
+            }
+            lines.add(board.toString());
+        }
+        lines.subList(40, lines.size()).clear();
+        lines.add(20, "not a position");
+        return lines;
+    }
+
+    @Test
+    void resultsAreWrittenInInputOrder() throws IOException {
+        Path input = Files.createTempFile("positions", ".txt");
+        Path output = Files.createTempFile("analysis", ".jsonl");
+        Files.write(input, positions());
+        BatchAnalyzer.Summary summary = new BatchAnalyzer(3, 3, 12, 0, 4, 5, BatchAnalyzer.Format.JSONL)
+                .run(input, output, false);
+        List<String> lines = Files.readAllLines(output);
+        Files.delete(input);
+        Files.delete(output);
+        Files.delete(BatchAnalyzer.checkpointFile(output));
+
+        assertEquals(40, summary.getAnalysed());
+        assertEquals(1, summary.getErrors());
+        assertEquals(40, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertTrue(lines.get(i).startsWith("{\"index\":" + i + ","), lines.get(i));
+        }
+        assertTrue(lines.get(19).contains("\"error\":"));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"exact\":true")));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("\"exact\":false")));
+    }
+
+    @Test
+    void resumeDropsOutputAfterTheCheckpoint() throws IOException {
+        Path input = Files.createTempFile("positions", ".txt");
+        Path output = Files.createTempFile("analysis", ".csv");
+        Path checkpoint = BatchAnalyzer.checkpointFile(output);
+        Files.write(input, positions());
+        BatchAnalyzer analyzer = new BatchAnalyzer(2, 2, 12, 0, 8, 10, BatchAnalyzer.Format.CSV);
+        analyzer.run(input, output, false);
+        List<String> complete = Files.readAllLines(output);
+
+        // Pretend the run crashed after 10 positions, halfway through writing the next line.
+        List<String> head = complete.subList(0, 11);
+        long bytes = String.join("\n", head).getBytes(StandardCharsets.UTF_8).length + 1;
+        Files.write(checkpoint, ("positions=10\nbytes=" + bytes + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(output, head);
+        Files.write(output, "10,half a li".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        BatchAnalyzer.Summary summary = analyzer.run(input, output, true);
+        List<String> resumed = Files.readAllLines(output);
+        Files.delete(input);
+        Files.delete(output);
+        Files.delete(checkpoint);
+
+        assertEquals(10, summary.getSkipped());
+        assertEquals(30, summary.getAnalysed());
+        assertEquals(complete.size(), resumed.size());
+        for (int i = 0; i < complete.size(); i++) {
+            String[] expected = complete.get(i).split(",");
+            String[] actual = resumed.get(i).split(",");
+            assertEquals(expected[0], actual[0]);
+            assertEquals(expected[1], actual[1]);
+        }
+    }
+
+    @Test
+    void rejectsSettingsTheEnginesCannotUse() {
+        BatchAnalyzer.Format format = BatchAnalyzer.Format.JSONL;
+        assertThrows(IllegalArgumentException.class, () -> new BatchAnalyzer(1, 0, 12, 0, 4, 5, format));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchAnalyzer(1, AlphaBetaPlayer.MAX_DEPTH + 1, 12, 0, 4, 5, format));
+        assertThrows(IllegalArgumentException.class, () -> new BatchAnalyzer(1, 4, -1, 0, 4, 5, format));
+        assertThrows(IllegalArgumentException.class, () -> new BatchAnalyzer(1, 4, 61, 0, 4, 5, format));
+        assertThrows(IllegalArgumentException.class, () -> new BatchAnalyzer(1, 4, 12, -1, 4, 5, format));
+    }
+}
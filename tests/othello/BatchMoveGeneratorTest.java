@@ -0,0 +1,91 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchMoveGeneratorTest {
+
+    private static final int COUNT = 500;
+
+    private final long[] own = new long[COUNT];
+    private final long[] opponent = new long[COUNT];
+    private final int[] squares = new int[COUNT];
+
+    /**
+     * Fills the batch with positions of random games and a random legal move of each, or a pass where there is none.
+     */
+    private void randomPositions(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < COUNT; i++) {
+            BitBoard board = new BitBoard();
+            for (int plies = random.nextInt(60); plies > 0 && board.getPlayableMask() != 0; plies--) {
+                board.makeMove(pick(board.getPlayableMask(), random));
+            }
+            own[i] = board.getOwn();
+            opponent[i] = board.getOpponent();
+            long moves = board.getPlayableMask();
+            squares[i] = moves == 0 ? SearchResult.PASS : pick(moves, random);
+        }
+    }
+
+    private static int pick(long moves, SplittableRandom random) {
+        for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+
+    @Test
+    void batchMovesMatchScalarMoves() {
+        randomPositions(1);
+        long[] batch = new long[COUNT];
+        long[] scalar = new long[COUNT];
+        BatchMoveGenerator.generateMoves(own, opponent, batch, COUNT);
+        BatchMoveGenerator.generateMovesScalar(own, opponent, scalar, COUNT);
+        assertArrayEquals(scalar, batch);
+    }
+
+    @Test
+    void batchPlayMatchesMakeMove() {
+        randomPositions(2);
+        long[] flips = new long[COUNT];
+        long[] nextOwn = new long[COUNT];
+        long[] nextOpponent = new long[COUNT];
+        new BatchMoveGenerator(COUNT).play(own, opponent, squares, flips, nextOwn, nextOpponent, COUNT);
+        long[] scalarFlips = new long[COUNT];
+        long[] scalarOwn = new long[COUNT];
+        long[] scalarOpponent = new long[COUNT];
+        BatchMoveGenerator.playScalar(own, opponent, squares, scalarFlips, scalarOwn, scalarOpponent, COUNT);
+        assertArrayEquals(scalarFlips, flips);
+        assertArrayEquals(scalarOwn, nextOwn);
+        assertArrayEquals(scalarOpponent, nextOpponent);
+
+        for (int i = 0; i < COUNT; i++) {
+            BitBoard board = new BitBoard(own[i], opponent[i], Color.BLACK);
+            if (squares[i] == SearchResult.PASS) {
+                board.pass();
+            } else {
+                assertEquals(board.makeMove(squares[i]), flips[i]);
+            }
+            assertEquals(board.getOwn(), nextOwn[i]);
+            assertEquals(board.getOpponent(), nextOpponent[i]);
+        }
+    }
+
+    @Test
+    void playWorksInPlace() {
+        randomPositions(3);
+        long[] expectedOwn = new long[COUNT];
+        long[] expectedOpponent = new long[COUNT];
+        long[] flips = new long[COUNT];
+        BatchMoveGenerator.playScalar(own, opponent, squares, flips, expectedOwn, expectedOpponent, COUNT);
+        new BatchMoveGenerator(COUNT).play(own, opponent, squares, flips, opponent, own, COUNT);
+        assertArrayEquals(expectedOwn, opponent);
+        assertArrayEquals(expectedOpponent, own);
+    }
+}
@@ -0,0 +1,148 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitBoardTest {
+
+    static {
+        TemporaryFlipTables.install();
+    }
+
+    @Test
+    void getPlayableTiles() {
+        BitBoard board = new BitBoard();
+        Coordinate testCord = new Coordinate(3, 2);
+        assertEquals(4, board.getPlayableTiles().size());
+        assertTrue(board.getPlayableTiles().contains(testCord));
+    }
+
+    @Test
+    void placeDiscFlippingRight() {
+        BitBoard board = new BitBoard();
+        board.placeDisc(new Coordinate(2,3));
+        assertEquals(0, board.getWhite() & (1L << BitBoard.square(3, 3)));
+        assertEquals(Color.WHITE, board.getPlayerTurn());
+    }
+
+    @Test
+    void matchesBoardOverRandomGames() {
+        Random random = new Random(2410);
+        for (int game = 0; game < 500; game++) {
+            Board board = new Board();
+            BitBoard bitBoard = new BitBoard();
+            while (true) {
+                ArrayList<Coordinate> playable = new ArrayList<>(new HashSet<>(board.getPlayableTiles()));
+                assertEquals(new HashSet<>(playable), new HashSet<>(bitBoard.getPlayableTiles()));
+                if (playable.isEmpty())
+                    break;
+                playable.sort((a, b) -> BitBoard.square(a) - BitBoard.square(b));
+                Coordinate move = playable.get(random.nextInt(playable.size()));
+                board.placeDisc(move);
+                bitBoard.placeDisc(move);
+
+                BitBoard copy = new BitBoard(board);
+                assertEquals(copy.getOwn(), bitBoard.getOwn());
+                assertEquals(copy.getOpponent(), bitBoard.getOpponent());
+                assertEquals(board.getPlayerTurn(), bitBoard.getPlayerTurn());
+                assertArrayEquals(board.getDiscCount(), bitBoard.getDiscCount());
+            }
+        }
+    }
+
+    @Test
+    void undoMoveRestoresPosition() {
+        Random random = new Random(14);
+        for (int game = 0; game < 200; game++) {
+            BitBoard board = new BitBoard();
+            int[] squares = new int[64];
+            long[] flips = new long[64];
+            long[] own = new long[64];
+            long[] opponent = new long[64];
+            Color[] turns = new Color[64];
+            int ply = 0;
+            long moves;
+            while ((moves = board.getPlayableMask()) != 0) {
+                own[ply] = board.getOwn();
+                opponent[ply] = board.getOpponent();
+                turns[ply] = board.getPlayerTurn();
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--)
+                    moves &= moves - 1;
+                squares[ply] = Long.numberOfTrailingZeros(moves);
+                flips[ply] = board.makeMove(squares[ply]);
+                assertTrue(flips[ply] != 0);
+                assertEquals(Zobrist.hash(board.getBlack(), board.getWhite(), board.getPlayerTurn()),
+                        board.getHash());
+                ply++;
+            }
+            while (ply > 0) {
+                ply--;
+                board.undoMove(squares[ply], flips[ply]);
+                assertEquals(own[ply], board.getOwn());
+                assertEquals(opponent[ply], board.getOpponent());
+                assertEquals(turns[ply], board.getPlayerTurn());
+                assertEquals(Zobrist.hash(board.getBlack(), board.getWhite(), board.getPlayerTurn()),
+                        board.getHash());
+            }
+        }
+    }
+
+    @Test
+    void passSwitchesTurn() {
+        BitBoard board = new BitBoard();
+        long own = board.getOwn();
+        long hash = board.getHash();
+        board.pass();
+        assertTrue(hash != board.getHash());
+        assertEquals(Color.WHITE, board.getPlayerTurn());
+        assertEquals(own, board.getOpponent());
+        board.pass();
+        assertEquals(Color.BLACK, board.getPlayerTurn());
+        assertEquals(own, board.getOwn());
+        assertEquals(hash, board.getHash());
+    }
+
+    @Test
+    void parseReadsToString() {
+        BitBoard board = new BitBoard();
+        board.makeMove(BitBoard.square(2, 3));
+        String text = board.toString();
+        assertEquals("-------------------" + "X" + "-------" + "XX" + "------" + "XO" + "--------------------------- O",
+                text);
+        BitBoard parsed = BitBoard.parse(text);
+        assertEquals(board.getOwn(), parsed.getOwn());
+        assertEquals(board.getOpponent(), parsed.getOpponent());
+        assertEquals(board.getPlayerTurn(), parsed.getPlayerTurn());
+        assertEquals(board.getHash(), parsed.getHash());
+    }
+
+    @Test
+    void transformMatchesTransformSquare() {
+        for (int symmetry = 0; symmetry < BitBoard.SYMMETRIES; symmetry++) {
+            for (int square = 0; square < 64; square++) {
+                assertEquals(1L << BitBoard.transformSquare(square, symmetry),
+                        BitBoard.transform(1L << square, symmetry));
+            }
+        }
+        assertEquals(1L << BitBoard.square(7, 0), BitBoard.transform(1L << BitBoard.square(0, 7), 4));
+    }
+
+    @Test
+    void squareNamesFollowGameNotation() {
+        assertEquals("f5", BitBoard.squareName(BitBoard.square(4, 5)));
+        for (int square = 0; square < 64; square++) {
+            assertEquals(square, BitBoard.parseSquare(BitBoard.squareName(square)));
+        }
+        assertEquals(BitBoard.square(4, 5), BitBoard.parseSquare("F5"));
+        assertThrows(IllegalArgumentException.class, () -> BitBoard.parseSquare("i9"));
+    }
+}
@@ -3,12 +3,19 @@ package othello;
 import org.junit.jupiter.api.Test;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class BoardTest {
 
+    static {
+        TemporaryFlipTables.install();
+    }
+
     @Test
     void getPlayableTiles() {
         Board board = new Board();
@@ -121,5 +128,85 @@ class BoardTest {
         assertEquals(Color.WHITE, board.getTiles()[3][3].getColor());
     }
 
+    @Test
+    void placeDiscFlippingToLastColumn() {
+        Board board = new Board();
+        board.placeDisc(new Coordinate(4,5));
+        board.placeDisc(new Coordinate(3,5));
+        board.placeDisc(new Coordinate(2,6));
+        board.placeDisc(new Coordinate(3,6));
+        board.placeDisc(new Coordinate(2,7));
+        board.placeDisc(new Coordinate(1,7));
+        board.placeDisc(new Coordinate(2,5));
+        assertEquals(Color.BLACK, board.getTiles()[2][6].getColor());
+    }
+
+    @Test
+    void getPlayableTilesHasNoDuplicates() {
+        Board board = new Board();
+        board.placeDisc(new Coordinate(2,3));
+        board.placeDisc(new Coordinate(2,2));
+        board.placeDisc(new Coordinate(3,2));
+        ArrayList<Coordinate> playable = board.getPlayableTiles();
+        assertEquals(new HashSet<>(playable).size(), playable.size());
+        assertEquals(Long.bitCount(board.getPlayableMask()), playable.size());
+    }
 
+    @Test
+    void getPlayableTilesIntoBuffer() {
+        Board board = new Board();
+        int[] squares = new int[64];
+        assertEquals(4, board.getPlayableTiles(squares));
+        assertEquals(BitBoard.square(2, 3), squares[0]);
+        assertSame(Coordinate.of(2, 3), board.getPlayableTiles().get(0));
+    }
+
+    @Test
+    void discCountsFollowPlacedAndFlippedDiscs() {
+        Board board = new Board();
+        board.placeDisc(new Coordinate(2,3));
+        board.placeDisc(new Coordinate(2,2));
+        assertEquals(3, board.getBlackCount());
+        assertEquals(3, board.getWhiteCount());
+        assertEquals(Long.bitCount(board.getBlack()), board.getBlackCount());
+        assertEquals(Color.WHITE, board.getTiles()[3][3].getColor());
+    }
+
+    @Test
+    void listenerReceivesMoveDelta() {
+        Board board = new Board();
+        long[] received = new long[4];
+        board.addBoardListener((source, square, flipped, blackCount, whiteCount) -> {
+            received[0] = square;
+            received[1] = flipped[0];
+            received[2] = blackCount;
+            received[3] = whiteCount;
+        });
+        board.placeDisc(new Coordinate(2,3));
+        assertEquals(BitBoard.square(2, 3), received[0]);
+        assertEquals(1L << BitBoard.square(3, 3), received[1]);
+        assertEquals(4, received[2]);
+        assertEquals(1, received[3]);
+    }
+
+    @Test
+    void copyPositionRestoresTilesAndCounts() {
+        Board source = new Board();
+        source.placeDisc(new Coordinate(2, 3));
+        Board copy = new Board();
+        copy.copyPosition(source);
+        copy.placeDisc(new Coordinate(2, 2));
+        copy.placeDisc(new Coordinate(3, 2));
+        copy.copyPosition(source);
+        assertEquals(source.getBlack(), copy.getBlack());
+        assertEquals(source.getWhite(), copy.getWhite());
+        assertEquals(source.getPlayerTurn(), copy.getPlayerTurn());
+        assertEquals(source.getBlackCount(), copy.getBlackCount());
+        assertEquals(source.getWhiteCount(), copy.getWhiteCount());
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                assertEquals(source.getTiles()[x][y], copy.getTiles()[x][y], x + "," + y);
+            }
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EndgameSolverTest {
+
+    static {
+        TemporaryFlipTables.install();
+    }
+
+    /**
+     * A plain minimax over every line, to check the solver's pruning against.
+     */
+    private static int minimax(long own, long opponent, boolean passed) {
+        long playable = BitBoard.generateMoves(own, opponent);
+        if (playable == 0)
+            return passed ? EndgameSolver.finalScore(own, opponent) : -minimax(opponent, own, true);
+        int best = -65;
+        for (; playable != 0; playable &= playable - 1) {
+            int square = Long.numberOfTrailingZeros(playable);
+            long flips = BitBoard.computeFlips(own, opponent, square);
+            best = Math.max(best, -minimax(opponent & ~flips, own | flips | (1L << square), false));
+        }
+        return best;
+    }
+
+    @Test
+    void matchesMinimaxOnSmallEndgames() {
+        EndgameSolver solver = new EndgameSolver(0, 1);
+        SplittableRandom random = new SplittableRandom(5);
+        for (int tested = 0; tested < 30; ) {
+            int empties = 1 + tested % 10;
+            BitBoard board = EndgameSolver.randomPosition(random, empties);
+            if (board == null)
+                continue;
+            tested++;
+            int expected = minimax(board.getOwn(), board.getOpponent(), false);
+            SearchResult result = solver.solve(board);
+            assertEquals(expected, result.getScore(), board.toString());
+            assertEquals(Integer.signum(expected), solver.solveWinLossDraw(board).getScore(), board.toString());
+
+            long flips = board.makeMove(result.getBestSquare());
+            assertEquals(expected, -minimax(board.getOwn(), board.getOpponent(), false), board.toString());
+            board.undoMove(result.getBestSquare(), flips);
+        }
+    }
+
+    @Test
+    void exactScoreIsTheBestScoreOfAnyMove() {
+        EndgameSolver solver = new EndgameSolver(0, 4);
+        EndgameSolver childSolver = new EndgameSolver(0, 4);
+        SplittableRandom random = new SplittableRandom(12);
+        for (int tested = 0; tested < 4; ) {
+            BitBoard board = EndgameSolver.randomPosition(random, 12);
+            if (board == null)
+                continue;
+            tested++;
+            int best = -65;
+            for (long moves = board.getPlayableMask(); moves != 0; moves &= moves - 1) {
+                int square = Long.numberOfTrailingZeros(moves);
+                long flips = board.makeMove(square);
+                best = Math.max(best, -childSolver.solve(board).getScore());
+                board.undoMove(square, flips);
+            }
+            SearchResult result = solver.solve(board);
+            assertEquals(best, result.getScore(), board.toString());
+            assertEquals(Integer.signum(best), solver.solveWinLossDraw(board).getScore(), board.toString());
+        }
+    }
+
+    @Test
+    void solvesTwentyEmpties() {
+        BitBoard board = EndgameSolver.randomPosition(new SplittableRandom(2410), 20);
+        assertNotNull(board);
+        SearchResult result = new EndgameSolver(0, 16).solve(board);
+        assertEquals(20, result.getDepth());
+        assertTrue((board.getPlayableMask() & (1L << result.getBestSquare())) != 0);
+        assertTrue(result.getPrincipalVariation().length > 0);
+    }
+
+    @Test
+    void stopsWhenTimeRunsOut() {
+        BitBoard board = EndgameSolver.randomPosition(new SplittableRandom(1), 30);
+        assertNotNull(board);
+        assertNull(new EndgameSolver(1, 1).solve(board));
+    }
+
+    @Test
+    void cornerAnchoredEdgeIsStable() {
+        long edge = 0x0FL;
+        long loose = 1L << BitBoard.square(3, 3);
+        assertEquals(edge, EndgameSolver.stableDiscs(edge | loose, edge | loose));
+        assertEquals(-1L, EndgameSolver.stableDiscs(-1L, -1L));
+    }
+
+    @Test
+    void discInFourFullLinesIsStable() {
+        int x = 3;
+        int y = 4;
+        long lines = 0;
+        for (int i = 0; i < 8; i++) {
+            lines |= 1L << BitBoard.square(x, i) | 1L << BitBoard.square(i, y);
+            if (i - x + y >= 0 && i - x + y < 8)
+                lines |= 1L << BitBoard.square(i, i - x + y);
+            if (x + y - i >= 0 && x + y - i < 8)
+                lines |= 1L << BitBoard.square(i, x + y - i);
+        }
+        long disc = 1L << BitBoard.square(x, y);
+        assertEquals(disc, EndgameSolver.stableDiscs(disc, lines));
+        assertEquals(0L, EndgameSolver.stableDiscs(disc, lines & ~(1L << BitBoard.square(6, 1))));
+        assertEquals(0L, EndgameSolver.stableDiscs(disc, lines & ~(1L << BitBoard.square(7, 0))));
+        assertEquals(0L, EndgameSolver.stableDiscs(disc, lines & ~(1L << BitBoard.square(0, 1))));
+    }
+}
@@ -0,0 +1,57 @@
+package othello;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EngineMetricsTest {
+
+    @Test
+    void snapshotsCountSearches() {
+        EngineMetrics.Snapshot before = EngineMetrics.snapshot();
+        AlphaBetaPlayer player = new AlphaBetaPlayer(new PositionalEvaluator(), 6, 0, new TranspositionTable(4));
+        SearchResult result = player.search(new BitBoard(), 6, 0);
+        EngineMetrics.Snapshot delta = EngineMetrics.snapshot().since(before);
+
+        assertEquals(1, delta.getSearches());
+        assertEquals(6, delta.getIterations());
+        assertEquals(result.getNodes(), delta.getNodes());
+        assertTrue(delta.getTableProbes() > 0 && delta.getTableHits() <= delta.getTableProbes());
+        assertTrue(delta.getFirstMoveCutoffs() > 0 && delta.getFirstMoveCutoffs() <= delta.getCutoffs());
+        assertTrue(delta.getAverageBranchingFactor() > 1 && delta.getAverageBranchingFactor() < 20);
+        assertTrue(delta.getNodesPerSecond() > 0);
+    }
+
+    @Test
+    void recordsFlightRecorderEvents() throws IOException {
+        Path file = Files.createTempFile("search", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("othello.SearchIteration");
+            recording.enable("othello.MoveSearch");
+            recording.start();
+            new AlphaBetaPlayer(new PositionalEvaluator(), 5, 0).search(new BitBoard(), 5, 0);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(5, events.stream().filter(e -> e.getEventType().getName().equals("othello.SearchIteration"))
+                    .count());
+            RecordedEvent search = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("othello.MoveSearch")).findFirst().orElseThrow();
+            assertEquals(5, search.getInt("depth"));
+            assertEquals(60, search.getInt("empties"));
+            assertTrue(search.getLong("nodes") > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlipTablesTest {
+
+    static {
+        TemporaryFlipTables.install();
+    }
+
+    @Test
+    void flipsMatchBitBoard() {
+        SplittableRandom random = new SplittableRandom(25);
+        for (int i = 0; i < 2000; i++) {
+            long own = random.nextLong() & random.nextLong();
+            long opponent = random.nextLong() & ~own;
+            long empty = ~(own | opponent);
+            for (long squares = empty; squares != 0; squares &= squares - 1) {
+                int square = Long.numberOfTrailingZeros(squares);
+                assertEquals(BitBoard.computeFlips(own, opponent, square), FlipTables.computeFlips(own, opponent,
+                        square), BitBoard.squareName(square));
+            }
+        }
+    }
+
+    @Test
+    void cacheRoundTrips() throws IOException {
+        Path file = Files.createTempFile("flips", ".bin");
+        byte[] table = FlipTables.build();
+        FlipTables.write(file, table);
+        assertArrayEquals(table, FlipTables.read(file));
+        Files.delete(file);
+    }
+
+    @Test
+    void damagedOrOutdatedCachesAreIgnored() throws IOException {
+        Path file = Files.createTempFile("flips", ".bin");
+        FlipTables.write(file, FlipTables.build());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1}), 1000);
+        }
+        assertNull(FlipTables.read(file));
+
+        FlipTables.write(file, FlipTables.build());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer version = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(FlipTables.VERSION + 1);
+            channel.write(version.flip(), 4);
+        }
+        assertNull(FlipTables.read(file));
+        Files.delete(file);
+    }
+
+    @Test
+    void linkedCachesAreIgnored() throws IOException {
+        Path directory = Files.createTempDirectory("flips");
+        Path file = directory.resolve("flips.bin");
+        Path link = directory.resolve("link.bin");
+        FlipTables.write(file, FlipTables.build());
+        Files.createSymbolicLink(link, file);
+        assertNull(FlipTables.read(link));
+        Files.delete(link);
+        Files.delete(file);
+        Files.delete(directory);
+    }
+
+    @Test
+    void defaultCacheIsInTheHomeDirectory() {
+        String configured = System.clearProperty("othello.flipTables");
+        try {
+            assertTrue(FlipTables.cacheFile().startsWith(System.getProperty("user.home")));
+        } finally {
+            if (configured != null)
+                System.setProperty("othello.flipTables", configured);
+        }
+    }
+}
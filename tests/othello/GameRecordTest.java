@@ -0,0 +1,134 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameRecordTest {
+
+    private static GameRecord randomGame(long seed) {
+        BitBoard board = new BitBoard();
+        RandomPlayer player = new RandomPlayer(seed);
+        int[] moves = new int[GameRecord.MAX_MOVES];
+        int length = 0;
+        while (true) {
+            if (board.getPlayableMask() == 0) {
+                if (BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0)
+                    break;
+                board.pass();
+                continue;
+            }
+            int square = player.selectMove(board);
+            board.makeMove(square);
+            moves[length++] = square;
+        }
+        return GameRecord.of(Arrays.copyOf(moves, length));
+    }
+
+    @Test
+    void recordsSurviveWritingAndReading() throws IOException {
+        List<GameRecord> games = new ArrayList<>();
+        for (int seed = 0; seed < 3000; seed++) {
+            games.add(randomGame(seed));
+        }
+        Path file = Files.createTempFile("games", ".rec");
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            for (GameRecord game : games) {
+                writer.write(game);
+            }
+            assertEquals(games.size(), writer.getCount());
+        }
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            for (GameRecord game : games) {
+                assertEquals(game, reader.read());
+            }
+            assertNull(reader.read());
+        }
+        Files.delete(file);
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = Files.createTempFile("games", ".rec");
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            writer.write(randomGame(1));
+        }
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) - 1));
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            assertThrows(IOException.class, reader::read);
+        }
+        Files.write(file, new byte[8]);
+        assertThrows(IOException.class, () -> new GameRecordReader(file));
+        Files.delete(file);
+    }
+
+    @Test
+    void replayRebuildsBoardAndFinalCount() {
+        GameRecord game = randomGame(7);
+        BitBoard position = new BitBoard();
+        GameReplay replay = new GameReplay(game);
+        while (replay.hasNext()) {
+            int square = replay.next();
+            if (position.getPlayableMask() == 0)
+                position.pass();
+            position.makeMove(square);
+            if (position.getPlayableMask() == 0 && BitBoard.generateMoves(position.getOpponent(),
+                    position.getOwn()) != 0)
+                position.pass();
+            Board board = replay.toBoard();
+            assertEquals(position.getBlack(), board.getBlack());
+            assertEquals(position.getWhite(), board.getWhite());
+            assertEquals(position.getPlayerTurn(), board.getPlayerTurn());
+            Disc disc = board.getTiles()[square >>> 3][square & 7];
+            assertEquals((position.getBlack() & (1L << square)) != 0 ? Color.BLACK : Color.WHITE, disc.getColor());
+        }
+        int black = Long.bitCount(position.getBlack());
+        int white = Long.bitCount(position.getWhite());
+        assertEquals(black > white ? 64 - white : black < white ? black : 32, game.getBlackDiscs());
+        assertEquals(game, GameRecord.parse(game.toString()));
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.parse("f5f5"));
+    }
+
+    @Test
+    void importsWthorDatabase() throws IOException {
+        GameRecord game = randomGame(3);
+        ByteBuffer wthor = ByteBuffer.allocate(WthorImporter.HEADER_BYTES + 2 * WthorImporter.GAME_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        wthor.put(0, (byte) 20).put(1, (byte) 24).putInt(4, 2).put(12, (byte) 8);
+        int offset = WthorImporter.HEADER_BYTES;
+        wthor.put(offset + 6, (byte) game.getBlackDiscs());
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            wthor.put(offset + 8 + i, (byte) WthorImporter.encode(game.getMove(i)));
+        }
+        offset += WthorImporter.GAME_BYTES;
+        wthor.put(offset + 8, (byte) 11);
+        Path database = Files.createTempFile("games", ".wtb");
+        Files.write(database, wthor.array());
+        Path records = Files.createTempFile("games", ".rec");
+
+        WthorImporter importer = new WthorImporter();
+        try (GameRecordWriter writer = new GameRecordWriter(records)) {
+            assertEquals(1, importer.importFile(database, writer));
+        }
+        assertEquals(1, importer.getSkipped());
+        try (GameRecordReader reader = new GameRecordReader(records)) {
+            assertEquals(game, reader.read());
+            assertNull(reader.read());
+        }
+        assertEquals(56, WthorImporter.encode(BitBoard.parseSquare("f5")));
+        Files.delete(database);
+        Files.delete(records);
+    }
+}
@@ -0,0 +1,68 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameServerTest {
+
+    static {
+        TemporaryFlipTables.install();
+    }
+
+    @Test
+    void playsGamesOverTheSocket() throws IOException {
+        try (GameServer server = new GameServer(0, 2, 60_000);
+             Socket socket = new Socket("localhost", server.getPort())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            OutputStream out = socket.getOutputStream();
+            // requests may be sent without waiting for the answers
+            out.write("NEW\nNEW\nMOVES 1\nMOVE 1 f5\nMOVE 1 f5\nMOVE 2 a1\nBOARD 1\nEND 2\nMOVES 2\nJUMP\nSTATS\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals("OK 1", reader.readLine());
+            assertEquals("OK 2", reader.readLine());
+            assertEquals("OK d3 c4 f5 e6", reader.readLine());
+            assertEquals("OK O 4 1", reader.readLine());
+            assertEquals("ERR illegal move f5", reader.readLine());
+            assertEquals("ERR illegal move a1", reader.readLine());
+            BitBoard expected = new BitBoard();
+            expected.makeMove(BitBoard.parseSquare("f5"));
+            assertEquals("OK " + expected, reader.readLine());
+            assertEquals("OK", reader.readLine());
+            assertEquals("ERR no game 2", reader.readLine());
+            assertEquals("ERR unknown command JUMP", reader.readLine());
+            assertEquals("OK 1 1", reader.readLine());
+        }
+    }
+
+    @Test
+    void evictsIdleGames() throws IOException, InterruptedException {
+        try (GameServer server = new GameServer(0, 1, 50)) {
+            server.handle("NEW");
+            assertEquals(1, server.getGameCount());
+            Thread.sleep(300);
+            assertEquals(0, server.getGameCount());
+            assertEquals("ERR no game 1", server.handle("MOVES 1"));
+        }
+    }
+
+    @Test
+    void loadGeneratorMeasuresMoves() throws IOException {
+        try (GameServer server = new GameServer(0, 2, 60_000)) {
+            LoadGenerator.Report report = LoadGenerator.run("localhost", server.getPort(), 4, 16, 300);
+            assertTrue(report.getMoves() > 0);
+            assertTrue(report.getLatencyMicros(50) <= report.getLatencyMicros(99));
+            assertEquals(0, server.getGameCount(), "the generator ends its games");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MctsPlayerTest {
+
+    @Test
+    void singleThreadWithPlayoutBudgetIsDeterministic() {
+        try (MctsPlayer a = new MctsPlayer(1, 0, 5000, 1 << 16, 7);
+             MctsPlayer b = new MctsPlayer(1, 0, 5000, 1 << 16, 7)) {
+            SearchResult first = a.search(new BitBoard());
+            SearchResult second = b.search(new BitBoard());
+            assertEquals(5000, first.getNodes());
+            assertEquals(first.getBestSquare(), second.getBestSquare());
+            assertEquals(first.getScore(), second.getScore());
+            assertArrayEquals(first.getPrincipalVariation(), second.getPrincipalVariation());
+            assertTrue((new BitBoard().getPlayableMask() & (1L << first.getBestSquare())) != 0);
+            assertEquals(first.getBestSquare(), first.getPrincipalVariation()[0]);
+        }
+    }
+
+    @Test
+    void reusesTheTreeAfterTwoMoves() {
+        try (MctsPlayer player = new MctsPlayer(1, 0, 20000, 1 << 18, 3)) {
+            BitBoard board = new BitBoard();
+            SearchResult result = player.search(board);
+            board.makeMove(result.getBestSquare());
+            board.makeMove(result.getPrincipalVariation()[1]);
+            player.search(board);
+            assertTrue(player.getRootVisits() > 20000, "the root kept its earlier visits");
+        }
+    }
+
+    @Test
+    void threadsShareOneTree() {
+        try (MctsPlayer player = new MctsPlayer(4, 0, 20000, 1 << 18, 5)) {
+            BitBoard board = BitBoard.parse("---------------------------XO------OX--------------------------- X");
+            board.makeMove(BitBoard.parseSquare("f5"));
+            SearchResult result = player.search(board);
+            assertEquals(20000, result.getNodes());
+            assertEquals(20000, player.getRootVisits());
+            assertTrue((board.getPlayableMask() & (1L << result.getBestSquare())) != 0);
+        }
+    }
+
+    @Test
+    void playoutScoresTheFinalPosition() {
+        SplittableRandom random = new SplittableRandom(1);
+        assertEquals(2, MctsPlayer.playout(-1L >>> 1, 1L << 63, random));
+        assertEquals(0, MctsPlayer.playout(1L << 63, -1L >>> 1, random));
+        assertEquals(1, MctsPlayer.playout(0xFFFFFFFFL, 0xFFFFFFFFL << 32, random));
+    }
+}
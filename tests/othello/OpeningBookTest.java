@@ -0,0 +1,100 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpeningBookTest {
+
+    private static OpeningBook randomBook(int plies, int games) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        builder.addSelfPlay(new RandomPlayer(1), new RandomPlayer(2), games, 0, new SplittableRandom(3));
+        Path file = Files.createTempFile("book", ".bin");
+        builder.write(file, 1);
+        OpeningBook book = OpeningBook.map(file);
+        Files.delete(file);
+        assertEquals(builder.size(), book.size());
+        return book;
+    }
+
+    @Test
+    void symmetricPositionsShareAnEntry() throws IOException {
+        OpeningBook book = randomBook(6, 200);
+        BitBoard board = new BitBoard();
+        board.makeMove(BitBoard.parseSquare("f5"));
+        board.makeMove(BitBoard.parseSquare("d6"));
+        int index = book.find(board.getOwn(), board.getOpponent());
+        assertTrue(index >= 0);
+        for (int symmetry = 0; symmetry < BitBoard.SYMMETRIES; symmetry++) {
+            assertEquals(index, book.find(BitBoard.transform(board.getOwn(), symmetry),
+                    BitBoard.transform(board.getOpponent(), symmetry)));
+        }
+        assertEquals(-1, book.find(board.getOpponent(), board.getOwn()));
+    }
+
+    @Test
+    void probeChoosesTheBestBackedUpMove() throws IOException {
+        OpeningBook book = randomBook(6, 500);
+        BitBoard board = new BitBoard();
+        board.makeMove(BitBoard.parseSquare("f5"));
+
+        int bestScore = Integer.MIN_VALUE;
+        for (long m = board.getPlayableMask(); m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            long flips = board.makeMove(square);
+            int index = book.find(board.getOwn(), board.getOpponent());
+            if (index >= 0)
+                bestScore = Math.max(bestScore, -book.getScore(index));
+            board.undoMove(square, flips);
+        }
+        SearchResult result = book.probe(board, 1);
+        assertNotNull(result);
+        assertEquals(bestScore, result.getScore());
+        assertEquals(bestScore, book.getScore(book.find(board.getOwn(), board.getOpponent())));
+        assertNull(book.probe(board, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void importsGamesFromTextFile() throws IOException {
+        StringBuilder game = new StringBuilder();
+        BitBoard board = new BitBoard();
+        RandomPlayer player = new RandomPlayer(4);
+        while (true) {
+            if (board.getPlayableMask() == 0) {
+                if (BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0)
+                    break;
+                board.pass();
+                continue;
+            }
+            int square = player.selectMove(board);
+            board.makeMove(square);
+            game.append(BitBoard.squareName(square));
+        }
+        Path file = Files.createTempFile("games", ".txt");
+        Files.writeString(file, "# one finished game and one unfinished\n" + game + "\nf5 d6 c3\n");
+        OpeningBookBuilder builder = new OpeningBookBuilder(10);
+        assertEquals(1, builder.addGames(file));
+        Files.delete(file);
+        assertEquals(11, builder.size(), "the start position and the first ten plies of the game");
+        assertFalse(builder.addGame(new int[]{BitBoard.parseSquare("f5")}));
+        assertThrows(IllegalArgumentException.class, () -> builder.addGame(new int[]{BitBoard.parseSquare("a1")}));
+    }
+
+    @Test
+    void rejectsFileThatIsNotABook() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> OpeningBook.map(file));
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,33 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelSearchTest {
+
+    @Test
+    void singleThreadMatchesAlphaBetaPlayer() {
+        SearchResult expected = new AlphaBetaPlayer(new PositionalEvaluator(), 8, 0, new TranspositionTable(16))
+                .search(new BitBoard(), 8, 0);
+        try (ParallelSearch search = new ParallelSearch(new PositionalEvaluator(), 8, 0, 1, 16)) {
+            SearchResult result = search.search(new BitBoard(), 8, 0);
+            assertEquals(expected.getBestSquare(), result.getBestSquare());
+            assertEquals(expected.getScore(), result.getScore());
+            assertEquals(expected.getNodes(), result.getNodes());
+            assertArrayEquals(expected.getPrincipalVariation(), result.getPrincipalVariation());
+        }
+    }
+
+    @Test
+    void multipleThreadsReachDepth() {
+        Board board = new Board();
+        try (ParallelSearch search = new ParallelSearch(new PositionalEvaluator(), 8, 0, 4, 16)) {
+            SearchResult result = search.search(new BitBoard(board), 8, 0);
+            assertEquals(8, result.getDepth());
+            assertTrue(board.getPlayableTiles().contains(result.getBestMove()));
+        }
+    }
+}
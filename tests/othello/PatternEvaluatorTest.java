@@ -0,0 +1,107 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PatternEvaluatorTest {
+
+    private static PatternEvaluator seeded() throws IOException {
+        Path file = Files.createTempFile("weights", ".bin");
+        PatternEvaluator.writeSeedWeights(file);
+        WeightTable table = WeightTable.map(file);
+        Files.delete(file);
+        return new PatternEvaluator(table);
+    }
+
+    @Test
+    void mappedWeightsMatchWrittenWeights() throws IOException {
+        Path file = Files.createTempFile("weights", ".bin");
+        PatternEvaluator.writeSeedWeights(file);
+        WeightTable table = WeightTable.map(file);
+        Files.delete(file);
+        short[] seed = PatternEvaluator.seedWeights();
+        assertEquals(seed.length, table.toArray().length);
+        assertEquals(seed[12345], table.get(12345));
+        assertEquals(PatternEvaluator.PHASES, table.getPhases());
+    }
+
+    @Test
+    void startPositionIsEven() throws IOException {
+        BitBoard board = new BitBoard();
+        assertEquals(0, seeded().evaluate(board.getOwn(), board.getOpponent()));
+    }
+
+    @Test
+    void symmetricPositionsScoreTheSame() throws IOException {
+        PatternEvaluator evaluator = seeded();
+        SplittableRandom random = new SplittableRandom(12);
+        for (int game = 0; game < 20; game++) {
+            BitBoard board = new BitBoard();
+            for (int ply = 0; ply < 30 && board.getPlayableMask() != 0; ply++) {
+                long moves = board.getPlayableMask();
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                board.makeMove(Long.numberOfTrailingZeros(moves));
+            }
+            int score = evaluator.evaluate(board.getOwn(), board.getOpponent());
+            for (int symmetry = 1; symmetry < BitBoard.SYMMETRIES; symmetry++) {
+                assertEquals(score, evaluator.evaluate(BitBoard.transform(board.getOwn(), symmetry),
+                        BitBoard.transform(board.getOpponent(), symmetry)));
+            }
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotWeightTables() throws IOException {
+        Path file = Files.createTempFile("weights", ".bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertThrows(IOException.class, () -> WeightTable.map(file));
+        Files.delete(file);
+    }
+
+    @Test
+    void keyGathersPatternSquaresInOrder() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100; i++) {
+            long mask = random.nextLong();
+            for (int pattern = 0; pattern < PatternEvaluator.PATTERNS.length; pattern++) {
+                int[] squares = PatternEvaluator.PATTERNS[pattern];
+                int expected = 0;
+                for (int bit = 0; bit < squares.length; bit++) {
+                    expected |= (int) ((mask >>> squares[bit]) & 1) << bit;
+                }
+                assertEquals(expected, PatternEvaluator.key(pattern, mask));
+            }
+        }
+    }
+
+    @Test
+    void featuresAddUpToTheEvaluation() throws IOException {
+        PatternEvaluator evaluator = seeded();
+        short[] weights = PatternEvaluator.seedWeights();
+        int[] features = new int[PatternEvaluator.FEATURES];
+        SplittableRandom random = new SplittableRandom(3);
+        BitBoard board = new BitBoard();
+        while (board.getPlayableMask() != 0) {
+            PatternEvaluator.features(board.getOwn(), board.getOpponent(), features, 0);
+            int sum = 0;
+            for (int feature : features) {
+                sum += weights[feature];
+            }
+            assertEquals(evaluator.evaluate(board.getOwn(), board.getOpponent()), sum);
+            long moves = board.getPlayableMask();
+            for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                moves &= moves - 1;
+            }
+            board.makeMove(Long.numberOfTrailingZeros(moves));
+        }
+    }
+}
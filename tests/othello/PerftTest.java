@@ -0,0 +1,35 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PerftTest {
+
+    @Test
+    void countsMatchPublishedNumbers() {
+        Perft perft = new Perft(1, false);
+        for (int depth = 1; depth <= 8; depth++)
+            assertEquals(Perft.START_POSITION_COUNTS[depth], perft.count(new BitBoard(), depth));
+    }
+
+    @Test
+    void bulkCountingMatches() {
+        Perft perft = new Perft(1, true);
+        for (int depth = 1; depth <= 9; depth++)
+            assertEquals(Perft.START_POSITION_COUNTS[depth], perft.count(new BitBoard(), depth));
+    }
+
+    @Test
+    void threadedCountingMatches() {
+        assertEquals(Perft.START_POSITION_COUNTS[9], new Perft(4, true).count(new BitBoard(), 9));
+    }
+
+    @Test
+    void finishedGameCountsAsOneLeaf() {
+        BitBoard board = new BitBoard(1L, 0, Color.BLACK);
+        assertEquals(1, new Perft(1, true).count(board, 5));
+    }
+}
@@ -0,0 +1,81 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionTest {
+
+    static {
+        TemporaryFlipTables.install();
+    }
+
+    @Test
+    void playMatchesBoardAndLeavesTheReceiverAlone() {
+        SplittableRandom random = new SplittableRandom(3);
+        Board board = new Board();
+        Position position = Position.START;
+        while (!position.isGameOver()) {
+            assertEquals(position, Position.of(board));
+            assertEquals(new BitBoard(board).getHash(), position.getZobristHash());
+            long playable = position.getPlayableMask();
+            if (playable == 0) {
+                board.pass();
+                position = position.pass();
+                continue;
+            }
+            for (int skip = random.nextInt(Long.bitCount(playable)); skip > 0; skip--) {
+                playable &= playable - 1;
+            }
+            int square = Long.numberOfTrailingZeros(playable);
+            Position before = position;
+            String text = before.toString();
+            position = position.play(square);
+            assertEquals(text, before.toString());
+            board.placeDisc(Coordinate.of(square));
+        }
+        assertEquals(board.getBlackCount(), position.getBlackCount());
+        assertEquals(board.getWhiteCount(), position.getWhiteCount());
+    }
+
+    @Test
+    void convertsToAndFromBoard() {
+        Position position = Position.START.play(BitBoard.parseSquare("f5")).play(BitBoard.parseSquare("d6"));
+        Board board = position.toBoard();
+        assertEquals(position, Position.of(board));
+        assertEquals(Color.BLACK, board.getPlayerTurn());
+        assertEquals(Color.WHITE, position.getColor(BitBoard.parseSquare("d6")));
+        assertEquals(position, Position.parse(position.toString()));
+        assertEquals(position, Position.of(position.toBitBoard()));
+        assertTrue(position.toBoard() != board);
+    }
+
+    @Test
+    void equalPositionsHashAlike() {
+        Position a = Position.START.play(BitBoard.parseSquare("f5"));
+        Position b = Position.of(a.getBlack(), a.getWhite(), Color.WHITE);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertTrue(!a.equals(Position.of(a.getBlack(), a.getWhite(), Color.BLACK)));
+
+        Set<Position> positions = new HashSet<>();
+        for (long playable = Position.START.getPlayableMask(); playable != 0; playable &= playable - 1) {
+            positions.add(Position.START.play(Long.numberOfTrailingZeros(playable)));
+        }
+        assertEquals(4, positions.size());
+    }
+
+    @Test
+    void rejectsIllegalMoves() {
+        assertThrows(IllegalArgumentException.class, () -> Position.START.play(BitBoard.parseSquare("a1")));
+        assertThrows(IllegalArgumentException.class, () -> Position.START.play(BitBoard.parseSquare("d4")));
+        assertThrows(IllegalStateException.class, Position.START::pass);
+    }
+}
@@ -0,0 +1,46 @@
+package othello;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Points the {@link FlipTables} cache at a temporary directory, so tests neither trust nor leave behind a cache file
+ * outside the test run. The directory is deleted with everything in it when the JVM exits.<p></p>
+ * FlipTables reads the system property {@code othello.flipTables} once, when it is initialised, so every test class
+ * that loads it calls {@link #install()} from a static initializer. A property set on the command line is kept.
+ */
+final class TemporaryFlipTables {
+
+    private static boolean installed;
+
+    private TemporaryFlipTables() {
+    }
+
+    static synchronized void install() {
+        if (installed || System.getProperty("othello.flipTables") != null)
+            return;
+        installed = true;
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("othello-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.setProperty("othello.flipTables", directory.resolve("flips.bin").toString());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(directory)));
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            // a directory that cannot be deleted is left to the system's cleanup of temporary files
+        }
+    }
+}
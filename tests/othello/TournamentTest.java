@@ -0,0 +1,69 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TournamentTest {
+
+    @Test
+    void openingsAreDistinct() {
+        assertEquals(4, Tournament.openings(1).size());
+        assertEquals(12, Tournament.openings(2).size());
+    }
+
+    @Test
+    void runPlaysEveryGameAndStreamsResults() throws IOException, InterruptedException {
+        Path output = Files.createTempFile("tournament", ".csv");
+        Tournament tournament = new Tournament("alphabeta", Tournament.parsePlayer("alphabeta:depth=2"),
+                "random", Tournament.parsePlayer("random"), Tournament.openings(2), 3);
+        TournamentResult result = tournament.run(40, output);
+        List<String> lines = Files.readAllLines(output);
+        Files.delete(output);
+
+        assertEquals(40, result.getGames());
+        assertEquals(41, lines.size());
+        assertTrue(result.getEloDifference() > 0);
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("0,0,alphabeta,random,")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("1,0,random,alphabeta,")));
+    }
+
+    @Test
+    void failedGameStopsTheRunAfterEveryWorkerHasFinished() throws IOException {
+        Path output = Files.createTempFile("tournament", ".csv");
+        AtomicInteger moves = new AtomicInteger();
+        Tournament tournament = new Tournament("failing", () -> board -> {
+            if (moves.incrementAndGet() == 50)
+                throw new IllegalArgumentException("broken player");
+            return Long.numberOfTrailingZeros(board.getPlayableMask());
+        }, "random", Tournament.parsePlayer("random"), Tournament.openings(2), 3);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> tournament.run(1000, output));
+        List<String> lines = Files.readAllLines(output);
+        Files.delete(output);
+
+        assertTrue(failure.getCause() instanceof IllegalArgumentException);
+        assertTrue(lines.size() < 1001);
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.split(",").length == 6));
+    }
+
+    @Test
+    void evenScoreIsZeroElo() {
+        TournamentResult result = new TournamentResult();
+        result.add(10);
+        result.add(-10);
+        result.add(0);
+        result.add(0);
+        assertEquals(0.0, result.getEloDifference(), 1e-9);
+        assertTrue(result.getEloError() > 0);
+    }
+}
@@ -0,0 +1,53 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranspositionTableTest {
+
+    @Test
+    void probeReturnsStoredEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        long hash = new BitBoard().getHash();
+        table.store(hash, 7, TranspositionTable.LOWER, -1234, 19);
+        long entry = table.probe(hash);
+        assertEquals(-1234, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(19, TranspositionTable.move(entry));
+        assertEquals(0, table.probe(hash + 1));
+        assertEquals(0.5, table.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void capacityFollowsMemoryBudget() {
+        assertEquals(65536, new TranspositionTable(1).getCapacity());
+        assertEquals(65536 * 16, new TranspositionTable(31).getCapacity());
+    }
+
+    @Test
+    void deepEntrySurvivesShallowStore() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deep = 5;
+        long shallow = deep + (1L << 40);
+        table.store(deep, 10, TranspositionTable.EXACT, 1, 2);
+        table.store(shallow, 1, TranspositionTable.EXACT, 3, 4);
+        assertEquals(10, TranspositionTable.depth(table.probe(deep)));
+        assertEquals(1, TranspositionTable.depth(table.probe(shallow)));
+
+        table.newSearch();
+        table.store(shallow + (1L << 41), 1, TranspositionTable.EXACT, 5, 6);
+        assertEquals(0, table.probe(deep));
+    }
+
+    @Test
+    void fillLevelGrowsWithStores() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(0, table.getFillPermille());
+        for (long hash = 0; hash < 2000; hash++)
+            table.store(hash, 1, TranspositionTable.EXACT, 0, 0);
+        assertTrue(table.getFillPermille() >= 500);
+    }
+}
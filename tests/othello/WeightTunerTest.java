@@ -0,0 +1,60 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeightTunerTest {
+
+    static {
+        TemporaryFlipTables.install();
+    }
+
+    @Test
+    void generatedGamesAreAppended() throws IOException {
+        Path data = Files.createTempFile("games", ".bin");
+        Files.delete(data);
+        WeightTuner tuner = new WeightTuner(2);
+        try {
+            long positions = tuner.generate(data, 6, 11, 1, 8);
+            assertTrue(positions > 6 * 40);
+            assertEquals(8 + positions * WeightTuner.RECORD_BYTES, Files.size(data));
+
+            long more = tuner.generate(data, 2, 100, 1, 8);
+            assertTrue(more > 2 * 40);
+            assertEquals(8 + (positions + more) * WeightTuner.RECORD_BYTES, Files.size(data));
+        } finally {
+            tuner.shutdown();
+            Files.deleteIfExists(data);
+        }
+    }
+
+    @Test
+    void trainingLowersTheErrorAndWritesAWeightTable() throws IOException {
+        Path data = Files.createTempFile("games", ".bin");
+        Path out = Files.createTempFile("weights", ".bin");
+        Files.delete(data);
+        WeightTuner tuner = new WeightTuner(2);
+        try {
+            tuner.generate(data, 40, 5, 1, 8);
+            float[] weights = WeightTuner.toFloats(PatternEvaluator.seedWeights());
+            double before = tuner.measure(data, weights);
+            tuner.train(data, weights, 5, 256, 0.01f, 1);
+            assertTrue(tuner.measure(data, weights) < before);
+
+            WeightTuner.writeWeights(out, weights);
+            WeightTable table = WeightTable.map(out);
+            new PatternEvaluator(table);
+            assertEquals(Math.round(weights[weights.length - 1]), table.toArray()[weights.length - 1]);
+        } finally {
+            tuner.shutdown();
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(out);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package othello;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WideBitBoardTest {
+
+    @Test
+    void matchesBitBoardOnEightByEight() {
+        SplittableRandom random = new SplittableRandom(8);
+        long[] moves = new long[1];
+        long[] flips = new long[1];
+        for (int game = 0; game < 50; game++) {
+            WideBitBoard wide = new WideBitBoard(8);
+            BitBoard board = new BitBoard();
+            while (true) {
+                long playable = board.getPlayableMask();
+                assertEquals(Long.bitCount(playable), wide.generateMoves(moves));
+                assertEquals(playable, moves[0]);
+                if (playable == 0) {
+                    if (BitBoard.generateMoves(board.getOpponent(), board.getOwn()) == 0)
+                        break;
+                    board.pass();
+                    wide.pass();
+                    continue;
+                }
+                int square = pick(playable, random);
+                long expected = board.makeMove(square);
+                assertEquals(Long.bitCount(expected), wide.makeMove(square, flips));
+                assertEquals(expected, flips[0]);
+                assertEquals(board.toString(), wide.toString());
+            }
+        }
+    }
+
+    @Test
+    void matchesRaysOnLargerBoards() {
+        SplittableRandom random = new SplittableRandom(16);
+        for (int size = 6; size <= WideBitBoard.MAX_SIZE; size += 2) {
+            int words = WideBitBoard.words(size);
+            long[] moves = new long[words];
+            long[] flips = new long[words];
+            long[] black = new long[words];
+            long[] white = new long[words];
+            for (int game = 0; game < 10; game++) {
+                WideBitBoard board = new WideBitBoard(size);
+                int passes = 0;
+                String before = board.toString();
+                int[] played = new int[2 * size * size];
+                long[][] playedFlips = new long[2 * size * size][];
+                int plies = 0;
+                while (passes < 2) {
+                    board.getBlack(black);
+                    board.getWhite(white);
+                    boolean blackToMove = board.getPlayerTurn() == Color.BLACK;
+                    long[] own = blackToMove ? black : white;
+                    long[] opponent = blackToMove ? white : black;
+                    int count = board.generateMoves(moves);
+                    int expectedCount = 0;
+                    for (int square = 0; square < size * size; square++) {
+                        boolean legal = !WideBitBoard.get(own, square) && !WideBitBoard.get(opponent, square)
+                                && rayFlips(size, own, opponent, square) > 0;
+                        assertEquals(legal, WideBitBoard.get(moves, square), size + "x" + size + " square " + square);
+                        if (legal)
+                            expectedCount++;
+                    }
+                    assertEquals(expectedCount, count);
+                    if (count == 0) {
+                        board.pass();
+                        played[plies++] = SearchResult.PASS;
+                        passes++;
+                        continue;
+                    }
+                    passes = 0;
+                    int square = WideBitBoard.next(moves, 0);
+                    for (int skip = random.nextInt(count); skip > 0; skip--) {
+                        square = WideBitBoard.next(moves, square + 1);
+                    }
+                    assertEquals(rayFlips(size, own, opponent, square), board.makeMove(square, flips));
+                    played[plies] = square;
+                    playedFlips[plies++] = flips.clone();
+                }
+                assertEquals(size * size, board.getBlackCount() + board.getWhiteCount() + emptiesLeft(board, size));
+                while (plies > 0) {
+                    plies--;
+                    if (played[plies] == SearchResult.PASS) {
+                        board.pass();
+                    } else {
+                        board.undoMove(played[plies], playedFlips[plies]);
+                    }
+                }
+                assertEquals(before, board.toString());
+            }
+        }
+    }
+
+    @Test
+    void boardPlaysLargerGames() {
+        Board board = new Board(12);
+        assertEquals(12, board.getTiles().length);
+        assertEquals(Color.WHITE, board.getTiles()[5][5].getColor());
+        assertEquals(Color.BLACK, board.getTiles()[6][5].getColor());
+        SplittableRandom random = new SplittableRandom(12);
+        while (!board.isGameOver()) {
+            if (!board.hasPlayableTile()) {
+                board.pass();
+                continue;
+            }
+            java.util.List<Coordinate> tiles = board.getPlayableTiles();
+            board.placeDisc(tiles.get(random.nextInt(tiles.size())));
+        }
+        int black = 0;
+        int white = 0;
+        for (Disc[] row : board.getTiles()) {
+            for (Disc disc : row) {
+                if (disc != null && disc.getColor() == Color.BLACK)
+                    black++;
+                else if (disc != null)
+                    white++;
+            }
+        }
+        assertEquals(black, board.getBlackCount());
+        assertEquals(white, board.getWhiteCount());
+        assertTrue(black + white > 100);
+        assertThrows(IllegalStateException.class, board::getBlack);
+        assertThrows(IllegalArgumentException.class, () -> new Board(9));
+        assertThrows(IllegalArgumentException.class, () -> new Board(18));
+    }
+
+    @Test
+    void largerBoardRefusesOccupiedTile() {
+        Board board = new Board(10);
+        long[] before = new long[WideBitBoard.words(10)];
+        board.getBlack(before);
+        assertThrows(IllegalArgumentException.class, () -> board.placeDisc(new Coordinate(4, 4)));
+        long[] after = new long[before.length];
+        board.getBlack(after);
+        assertArrayEquals(before, after);
+        assertEquals(Color.WHITE, board.getTiles()[4][4].getColor());
+        assertEquals(Color.BLACK, board.getPlayerTurn());
+        assertEquals(2, board.getBlackCount());
+        assertEquals(2, board.getWhiteCount());
+    }
+
+    @Test
+    void largerBoardListenerReceivesFlippedDiscs() {
+        Board board = new Board(10);
+        Coordinate move = board.getPlayableTiles().get(0);
+        java.util.List<Integer> flipped = new java.util.ArrayList<>();
+        board.addBoardListener((source, square, flips, blackCount, whiteCount) -> {
+            for (int flip = WideBitBoard.next(flips, 0); flip >= 0; flip = WideBitBoard.next(flips, flip + 1))
+                flipped.add(flip);
+        });
+        board.placeDisc(move);
+        assertEquals(1, flipped.size());
+        int flip = flipped.get(0);
+        assertEquals(board.getTiles()[move.x][move.y].getColor(), board.getTiles()[flip / 10][flip % 10].getColor());
+        assertEquals(4, board.getBlackCount());
+    }
+
+    private static int pick(long playable, SplittableRandom random) {
+        for (int skip = random.nextInt(Long.bitCount(playable)); skip > 0; skip--)
+            playable &= playable - 1;
+        return Long.numberOfTrailingZeros(playable);
+    }
+
+    private static int emptiesLeft(WideBitBoard board, int size) {
+        String text = board.toString();
+        int empties = 0;
+        for (int i = 0; i < size * size; i++) {
+            if (text.charAt(i) == '-')
+                empties++;
+        }
+        return empties;
+    }
+
+    /**
+     * Counts the flips of a move square by square, as a reference for the mask-based generator.
+     */
+    private static int rayFlips(int size, long[] own, long[] opponent, int square) {
+        int flips = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                if (dx == 0 && dy == 0)
+                    continue;
+                int x = square / size + dx;
+                int y = square % size + dy;
+                int run = 0;
+                while (x >= 0 && x < size && y >= 0 && y < size && WideBitBoard.get(opponent, x * size + y)) {
+                    x += dx;
+                    y += dy;
+                    run++;
+                }
+                if (run > 0 && x >= 0 && x < size && y >= 0 && y < size && WideBitBoard.get(own, x * size + y))
+                    flips += run;
+            }
+        }
+        return flips;
+    }
+}